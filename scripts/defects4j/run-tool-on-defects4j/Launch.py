@@ -6,11 +6,14 @@ import sys
 import requests
 import time
 import signal
+import threading
 from Config import config
 
 root = config.get('path', 'root')
 defects4j_checkout_path = config.get('path', 'checkout')
 output_path = config.get('path', 'output')
+# number of bugs kept in flight on the detector service
+nb_parallel_requests = int(os.environ.get('ADD_PARALLEL_REQUESTS', '4'))
 
 
 def start_detector_service():
@@ -34,9 +37,34 @@ def get_project_features(project, bug_id):
         "diffPath": os.path.join(defects4j_checkout_path, project, bug_id, "path.diff")
     }
     response = requests.post("http://localhost:9888", json=data, allow_redirects=False)
+    while response.status_code == 429:
+        time.sleep(int(response.headers.get("Retry-After", "5")))
+        response = requests.post("http://localhost:9888", json=data, allow_redirects=False)
+    job_id = response.json()["jobId"]
+    response = requests.get("http://localhost:9888/jobs/%s" % job_id, params={"wait": 60})
+    while response.status_code == 202:
+        response = requests.get("http://localhost:9888/jobs/%s" % job_id, params={"wait": 60})
     with open(os.path.join(output_path, "%s_all.json" % bug_id), "w+") as fd:
         fd.write(response.content)
 
+
+def run_tasks(tasks):
+    lock = threading.Lock()
+
+    def worker():
+        while True:
+            with lock:
+                if not tasks:
+                    return
+                (project, bug) = tasks.pop(0)
+            get_project_features(project, bug)
+
+    threads = [threading.Thread(target=worker) for _ in range(nb_parallel_requests)]
+    for thread in threads:
+        thread.start()
+    for thread in threads:
+        thread.join()
+
 def eprint(*args, **kwargs):
     print(*args, file=sys.stderr, **kwargs)
 
@@ -52,7 +80,6 @@ try:
     serviceId = start_detector_service()
     if not os.path.exists(output_path):
         os.makedirs(output_path)
-    for (project, bug) in tasks:
-        get_project_features(project, bug)
+    run_tasks(tasks)
 finally:
     stop_detector_service(serviceId)
\ No newline at end of file
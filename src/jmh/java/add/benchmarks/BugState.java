@@ -0,0 +1,126 @@
+package add.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import add.features.detector.EditScriptBasedDetector;
+import add.features.detector.repairactions.RepairActionDetector;
+import add.features.detector.spoon.SpoonHelper;
+import add.features.diffanalyzer.JGitBasedDiffAnalyzer;
+import add.features.diffanalyzer.PatchContext;
+import add.main.Config;
+import add.utils.TestUtils;
+import gumtree.spoon.diff.Diff;
+import gumtree.spoon.diff.operations.InsertOperation;
+import gumtree.spoon.diff.operations.Operation;
+import spoon.Launcher;
+import spoon.reflect.declaration.CtElement;
+
+/**
+ * The inputs of every stage of the pipeline for one bug of the <code>patches</code> corpus of the test resources,
+ * computed once per trial so that each benchmark only measures its own stage.
+ *
+ * The analyzers cache indexes in the models of the edit script (see <code>ClassIndex</code>,
+ * <code>MethodIndex</code>, <code>NameIndex</code>, <code>ScopeIndex</code> and <code>TypeLattice</code>), so a
+ * benchmark reusing {@link #editScript} measures the analyzers with the indexes already built by the previous
+ * invocations, which a bug analyzed once never does. The benchmarks of a real analysis take a {@link FreshEditScript}
+ * or a {@link RawEditScript} instead, computed from new models before each invocation.
+ *
+ * The bugs are chosen with <code>-p bugId=&lt;bugId&gt;,...</code>.
+ */
+@State(Scope.Benchmark)
+public class BugState {
+
+	@Param({ "chart_1", "closure_114", "math_58" })
+	public String bugId;
+
+	public Config config;
+	public String diffPath;
+	public String projectRoot;
+	public JGitBasedDiffAnalyzer diffAnalyzer;
+	public Map<String, List<String>> originalFiles;
+	public Map<String, List<String>> patchedFiles;
+	public Launcher oldSpoon;
+	public Launcher newSpoon;
+	// the edit script of the bug, already preprocessed, shared by all the invocations
+	public Diff editScript;
+	// the elements whose code features are computed, as in the context of the pattern instances
+	public List<CtElement> affectedElements;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		config = TestUtils.setupConfig(bugId);
+		diffPath = config.getDiffPath();
+		projectRoot = config.getBuggySourceDirectoryPath();
+
+		diffAnalyzer = new JGitBasedDiffAnalyzer(diffPath);
+		diffAnalyzer.analyze();
+
+		PatchContext patchContext = config.getPatchContext();
+		originalFiles = patchContext.getOriginalFiles();
+		patchedFiles = patchContext.getPatchedFiles();
+		oldSpoon = SpoonHelper.initSpoon(originalFiles);
+		newSpoon = SpoonHelper.initSpoon(patchedFiles);
+
+		// the detectors set the GumTree options before computing the edit script
+		editScript = new RepairActionDetector(config).getEditScript();
+		affectedElements = getAffectedElements(editScript);
+	}
+
+	private static List<CtElement> getAffectedElements(Diff editScript) {
+		List<CtElement> affectedElements = new ArrayList<>();
+		for (Operation operation : editScript.getRootOperations()) {
+			CtElement element = operation instanceof InsertOperation ? ((InsertOperation) operation).getParent()
+					: operation.getSrcNode();
+			if (element != null) {
+				affectedElements.add(element);
+			}
+		}
+		return affectedElements;
+	}
+
+	/**
+	 * The edit script of the bug, computed from new models and not preprocessed, before each invocation.
+	 */
+	@State(Scope.Thread)
+	public static class RawEditScript {
+
+		public Diff editScript;
+
+		@Setup(Level.Invocation)
+		public void setup(BugState bug) {
+			editScript = SpoonHelper.getAstDiff(bug.originalFiles, bug.patchedFiles);
+		}
+
+	}
+
+	/**
+	 * The edit script of the bug, computed from new models and preprocessed, before each invocation, so that the
+	 * indexes of the models are built by the measured analysis.
+	 *
+	 * The setup is not measured, but its timestamps are: the figures of a benchmark far below one millisecond are
+	 * only comparable with each other.
+	 */
+	@State(Scope.Thread)
+	public static class FreshEditScript {
+
+		public Diff editScript;
+		public List<CtElement> affectedElements;
+
+		@Setup(Level.Invocation)
+		public void setup(BugState bug) {
+			editScript = SpoonHelper.getAstDiff(bug.originalFiles, bug.patchedFiles);
+			EditScriptBasedDetector.preprocessEditScript(editScript);
+			affectedElements = getAffectedElements(editScript);
+		}
+
+	}
+
+}
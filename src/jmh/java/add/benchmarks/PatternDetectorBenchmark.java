@@ -0,0 +1,88 @@
+package add.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import add.entities.RepairPatterns;
+import add.features.detector.repairpatterns.AbstractPatternDetector;
+import add.features.detector.repairpatterns.ConditionalBlockDetector;
+import add.features.detector.repairpatterns.ConstantChangeDetector;
+import add.features.detector.repairpatterns.CopyPasteDetector;
+import add.features.detector.repairpatterns.ExpressionFixDetector;
+import add.features.detector.repairpatterns.MissingNullCheckDetector;
+import add.features.detector.repairpatterns.SingleLineDetector;
+import add.features.detector.repairpatterns.WrapsWithDetector;
+import add.features.detector.repairpatterns.WrongReferenceDetector;
+import gumtree.spoon.diff.Diff;
+import gumtree.spoon.diff.operations.Operation;
+
+/**
+ * Measures each repair pattern detector alone on the preprocessed edit script of the bugs of {@link BugState}:
+ * computed before each invocation, so that the detector builds the indexes it needs, or with
+ * {@link #detectCachedIndexes} the edit script of the trial, whose indexes are already built.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PatternDetectorBenchmark {
+
+	@Param({ "MissingNullCheck", "WrapsWith", "ConstantChange", "ExpressionFix", "WrongReference",
+			"ConditionalBlock", "CopyPaste", "SingleLine" })
+	public String detector;
+
+	@Benchmark
+	public RepairPatterns detect(BugState bug, BugState.FreshEditScript script) {
+		return detect(bug, script.editScript);
+	}
+
+	@Benchmark
+	public RepairPatterns detectCachedIndexes(BugState bug) {
+		return detect(bug, bug.editScript);
+	}
+
+	private RepairPatterns detect(BugState bug, Diff editScript) {
+		AbstractPatternDetector patternDetector = createDetector(bug, editScript.getRootOperations());
+		patternDetector.setDiff(editScript);
+		RepairPatterns repairPatterns = new RepairPatterns();
+		patternDetector.detect(repairPatterns);
+		return repairPatterns;
+	}
+
+	private AbstractPatternDetector createDetector(BugState bug, List<Operation> operations) {
+		switch (detector) {
+		case "MissingNullCheck":
+			return new MissingNullCheckDetector(operations);
+		case "WrapsWith":
+			return new WrapsWithDetector(operations);
+		case "ConstantChange":
+			return new ConstantChangeDetector(operations);
+		case "ExpressionFix":
+			return new ExpressionFixDetector(operations);
+		case "WrongReference":
+			return new WrongReferenceDetector(bug.config, operations);
+		case "ConditionalBlock":
+			return new ConditionalBlockDetector(operations);
+		case "CopyPaste":
+			return new CopyPasteDetector(operations);
+		case "SingleLine":
+			return new SingleLineDetector(bug.config, operations);
+		default:
+			throw new IllegalArgumentException("Unknown detector " + detector);
+		}
+	}
+
+}
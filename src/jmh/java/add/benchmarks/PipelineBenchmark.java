@@ -0,0 +1,116 @@
+package add.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import add.entities.Metrics;
+import add.entities.RepairActions;
+import add.features.codefeatures.CodeFeatureDetector;
+import add.features.detector.EditScriptBasedDetector;
+import add.features.detector.repairactions.RepairActionDetector;
+import add.features.detector.spoon.LogicalExpressionAnalyzer;
+import add.features.detector.spoon.SpoonHelper;
+import add.features.diffanalyzer.Changes;
+import add.features.diffanalyzer.JGitBasedDiffAnalyzer;
+import add.features.extractor.MetricExtractor;
+import gumtree.spoon.diff.Diff;
+import spoon.Launcher;
+import spoon.reflect.declaration.CtElement;
+
+/**
+ * Measures each stage of the pipeline on the bugs of {@link BugState}. Run with <code>-prof gc</code> (the default of
+ * the <code>benchmark</code> profile) to get the allocation rate of each stage next to its time.
+ *
+ * The stages after the AST diff run on an edit script computed before each invocation, as in a real analysis; the
+ * <code>...CachedIndexes</code> variants run on the edit script of the trial, whose indexes are already built.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+	@Benchmark
+	public Changes diffParse(BugState bug) {
+		return new JGitBasedDiffAnalyzer(bug.diffPath).analyze();
+	}
+
+	@Benchmark
+	public Map<String, List<String>> patchApply(BugState bug) {
+		return bug.diffAnalyzer.getPatchedFiles(bug.originalFiles, bug.projectRoot);
+	}
+
+	@Benchmark
+	public Launcher initSpoon(BugState bug) {
+		return SpoonHelper.initSpoon(bug.originalFiles);
+	}
+
+	/**
+	 * The AST diff of the already built models.
+	 */
+	@Benchmark
+	public Diff astDiff(BugState bug) {
+		return SpoonHelper.getAstDiff(bug.oldSpoon, bug.newSpoon);
+	}
+
+	/**
+	 * The AST diff of the files, including the building of both models.
+	 */
+	@Benchmark
+	public Diff modelsAndAstDiff(BugState bug) {
+		return SpoonHelper.getAstDiff(bug.originalFiles, bug.patchedFiles);
+	}
+
+	@Benchmark
+	public Diff preprocessEditScript(BugState.RawEditScript script) {
+		EditScriptBasedDetector.preprocessEditScript(script.editScript);
+		return script.editScript;
+	}
+
+	@Benchmark
+	public RepairActions repairActions(BugState bug) {
+		return new RepairActionDetector(bug.config, bug.editScript).analyze();
+	}
+
+	@Benchmark
+	public Metrics metrics(BugState bug) {
+		return new MetricExtractor(bug.config).analyze();
+	}
+
+	/**
+	 * The code features, including the building of the indexes of the models.
+	 */
+	@Benchmark
+	public void codeFeatures(BugState.FreshEditScript script, Blackhole blackhole) {
+		analyzeFeatures(script.affectedElements, blackhole);
+	}
+
+	/**
+	 * The code features with the indexes of the models already built.
+	 */
+	@Benchmark
+	public void codeFeaturesCachedIndexes(BugState bug, Blackhole blackhole) {
+		analyzeFeatures(bug.affectedElements, blackhole);
+	}
+
+	private static void analyzeFeatures(List<CtElement> affectedElements, Blackhole blackhole) {
+		CodeFeatureDetector detector = new CodeFeatureDetector();
+		for (CtElement element : affectedElements) {
+			blackhole.consume(detector.analyzeFeatures(element, LogicalExpressionAnalyzer.getAllExpressions(element),
+					LogicalExpressionAnalyzer.getAllRootLogicalExpressions(element),
+					LogicalExpressionAnalyzer.getAllBinaryOperators(element)));
+		}
+	}
+
+}
@@ -1,7 +1,5 @@
 package add.entities;
 
-import java.lang.reflect.Field;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.json.JSONObject;
@@ -9,10 +7,22 @@ import org.json.JSONObject;
 import add.main.Config;
 import add.main.Constants;
 
+/**
+ * A vector of feature counters.
+ *
+ * The features of a subclass are declared by its constant <code>int</code> fields annotated with
+ * {@link FeatureAnnotation}: the annotations are read once per class into a {@link FeatureSchema}, and the counters
+ * themselves are stored in a primitive array indexed by that schema. The annotated fields only declare the features,
+ * they never hold a counter.
+ */
 public abstract class Feature {
 
 	private Config config;
 
+	private final FeatureSchema schema = FeatureSchema.of(this.getClass());
+
+	private final int[] counters = new int[schema.size()];
+
 	@SuppressWarnings("rawtypes")
 
 	public void setConfig(Config config) {
@@ -20,70 +30,44 @@ public abstract class Feature {
 	}
 
 	public void incrementFeatureCounter(String key) {
-		try {
-			Field field = this.getClass().getDeclaredField(key);
-			field.setAccessible(true);
-			int value = (int) field.get(this);
-			field.set(this, value + 1);
-
-		} catch (IllegalAccessException | NoSuchFieldException e) {
-			throw new IllegalArgumentException("Feature not found: " + key, e);
-		}
+		counters[schema.indexOf(key)]++;
 	}
 
 	public void setFeatureCounter(String key, int value) {
-		try {
-			Field field = this.getClass().getDeclaredField(key);
-			field.setAccessible(true);
-			field.set(this, value);
-		} catch (IllegalAccessException | NoSuchFieldException e) {
-			throw new IllegalArgumentException("Feature not found: " + key, e);
-		}
+		counters[schema.indexOf(key)] = value;
 	}
 
 	public int getFeatureCounter(String key) {
-		try {
-			Field field = this.getClass().getDeclaredField(key);
-			if (int.class.isAssignableFrom(field.getType())) {
-				field.setAccessible(true);
-				return (int) field.get(this);
-			}
-			throw new IllegalArgumentException("Feature not found" + key);
-		} catch (IllegalAccessException | NoSuchFieldException e) {
-			throw new IllegalArgumentException("Feature not found" + key, e);
-		}
+		return counters[schema.indexOf(key)];
 	}
 
 	public List<String> getFeatureNames() {
-		List<String> output = new ArrayList<>();
-		Field[] declaredFields = this.getClass().getDeclaredFields();
-		for (int i = 0; i < declaredFields.length; i++) {
-			FeatureAnnotation annotation = declaredFields[i].getAnnotation(FeatureAnnotation.class);
-			if (annotation != null) {
-				output.add(annotation.key());
-			}
-		}
-		return output;
+		return schema.getKeys();
+	}
+
+	/**
+	 * @return the counters, in the order of {@link #getFeatureNames()}
+	 */
+	public int[] getFeatureCounters() {
+		return counters.clone();
 	}
 
 	public String toCSV() {
 		StringBuilder output = new StringBuilder();
-		for (String featureName : getFeatureNames()) {
-			output.append(featureName + Constants.CSV_SEPARATOR);
+		for (int i = 0; i < schema.size(); i++) {
+			output.append(schema.getKey(i)).append(Constants.CSV_SEPARATOR);
 		}
 		output.append(Constants.LINE_BREAK);
-		for (String featureName : getFeatureNames()) {
-			int counter = getFeatureCounter(featureName);
-			output.append(counter + Constants.CSV_SEPARATOR);
+		for (int i = 0; i < counters.length; i++) {
+			output.append(counters[i]).append(Constants.CSV_SEPARATOR);
 		}
 		return output.toString();
 	}
 
 	public JSONObject toJson() {
 		JSONObject jsonObjectFeatures = new JSONObject();
-		for (String featureName : getFeatureNames()) {
-			int counter = getFeatureCounter(featureName);
-			jsonObjectFeatures.put(featureName, counter);
+		for (int i = 0; i < counters.length; i++) {
+			jsonObjectFeatures.put(schema.getKey(i), counters[i]);
 		}
 		JSONObject json = new JSONObject();
 		if (config != null) {
@@ -7,11 +7,13 @@ import org.json.JSONObject;
 
 import add.main.Config;
 import add.main.Constants;
+import add.main.StageProfile;
 
 public class FeatureList {
 
     private List<Feature> featureList;
     private Config config;
+    private StageProfile stageProfile;
 
     public FeatureList(Config config) {
         this.config = config;
@@ -23,20 +25,30 @@ public class FeatureList {
         feature.setConfig(this.config);
     }
 
+    /**
+     * @param stageProfile the figures of the stages of the analysis, added to the JSON output when not null
+     */
+    public void setStageProfile(StageProfile stageProfile) {
+        this.stageProfile = stageProfile;
+    }
+
+    public StageProfile getStageProfile() {
+        return stageProfile;
+    }
+
     public String toCSV() {
         StringBuilder output = new StringBuilder();
         for (int i = 0; i < featureList.size(); i++) {
             Feature feature = featureList.get(i);
             for (String featureName : feature.getFeatureNames()) {
-                output.append(featureName + Constants.CSV_SEPARATOR);
+                output.append(featureName).append(Constants.CSV_SEPARATOR);
             }
         }
         output.append(Constants.LINE_BREAK);
         for (int i = 0; i < featureList.size(); i++) {
             Feature feature = featureList.get(i);
-            for (String featureName : feature.getFeatureNames()) {
-                int counter = feature.getFeatureCounter(featureName);
-                output.append(counter + Constants.CSV_SEPARATOR);
+            for (int counter : feature.getFeatureCounters()) {
+                output.append(counter).append(Constants.CSV_SEPARATOR);
             }
         }
         return output.toString();
@@ -51,6 +63,9 @@ public class FeatureList {
                 mergedJSON.put(key, jsonObject.get(key));
             }
         }
+        if (stageProfile != null) {
+            mergedJSON.put("stages", stageProfile.toJson());
+        }
         return mergedJSON;
     }
 
@@ -0,0 +1,74 @@
+package add.entities;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The features of a {@link Feature} class: the keys of its fields annotated with {@link FeatureAnnotation}, in
+ * declaration order, each one with a dense index in the counter vector of the instances.
+ *
+ * The schema is computed once per class, on first use, and shared by all the instances of the class.
+ */
+final class FeatureSchema {
+
+	private static final ClassValue<FeatureSchema> SCHEMAS = new ClassValue<FeatureSchema>() {
+		@Override
+		protected FeatureSchema computeValue(Class<?> type) {
+			return new FeatureSchema(type);
+		}
+	};
+
+	private final String[] keys;
+	private final List<String> keyList;
+	private final Map<String, Integer> indexes;
+
+	private FeatureSchema(Class<?> type) {
+		List<String> keys = new ArrayList<>();
+		for (Field field : type.getDeclaredFields()) {
+			FeatureAnnotation annotation = field.getAnnotation(FeatureAnnotation.class);
+			if (annotation != null) {
+				keys.add(annotation.key().intern());
+			}
+		}
+		this.keys = keys.toArray(new String[0]);
+		this.keyList = Collections.unmodifiableList(Arrays.asList(this.keys));
+		this.indexes = new HashMap<>(this.keys.length * 2);
+		for (int i = 0; i < this.keys.length; i++) {
+			this.indexes.put(this.keys[i], i);
+		}
+	}
+
+	static FeatureSchema of(Class<? extends Feature> type) {
+		return SCHEMAS.get(type);
+	}
+
+	int size() {
+		return keys.length;
+	}
+
+	String getKey(int index) {
+		return keys[index];
+	}
+
+	List<String> getKeys() {
+		return keyList;
+	}
+
+	/**
+	 * @return the index of the feature in the counter vector
+	 * @throws IllegalArgumentException if the class has no such feature
+	 */
+	int indexOf(String key) {
+		Integer index = indexes.get(key);
+		if (index == null) {
+			throw new IllegalArgumentException("Feature not found: " + key);
+		}
+		return index;
+	}
+
+}
@@ -19,89 +19,113 @@ public class RepairPatterns extends Feature {
 		patternInstances.add(key, operations);
 	}
 
+	/**
+	 * Adds the counters, the operations and the pattern instances of a shard to this one. The operations and the
+	 * instances of the shard are appended after the existing ones, so merging the shards in a fixed order gives the
+	 * same result as detecting everything into a single instance in that order.
+	 */
+	public void merge(RepairPatterns shard) {
+		for (String key : shard.getFeatureNames()) {
+			int count = shard.getFeatureCounter(key);
+			if (count != 0) {
+				setFeatureCounter(key, getFeatureCounter(key) + count);
+			}
+		}
+		for (String key : shard.operationsPerFeature.keySet()) {
+			for (Operation operation : shard.operationsPerFeature.get(key)) {
+				operationsPerFeature.add(key, operation);
+			}
+		}
+		for (String key : shard.patternInstances.keySet()) {
+			for (PatternInstance instance : shard.patternInstances.get(key)) {
+				patternInstances.add(key, instance);
+			}
+		}
+	}
+
 	@FeatureAnnotation(key = "condBlockOthersAdd", name = "Conditional block addition")
-	private int condBlockOthersAdd = 0;
+	private static final int condBlockOthersAdd = 0;
 
 	@FeatureAnnotation(key = "condBlockRetAdd", name = "Conditional block addition with return statement")
-	private int condBlockRetAdd = 0;
+	private static final int condBlockRetAdd = 0;
 
 	@FeatureAnnotation(key = "condBlockExcAdd", name = "Conditional block addition with exception throwing")
-	private int condBlockExcAdd = 0;
+	private static final int condBlockExcAdd = 0;
 
 	@FeatureAnnotation(key = "condBlockRem", name = "Conditional block removal")
-	private int condBlockRem = 0;
+	private static final int condBlockRem = 0;
 
 	@FeatureAnnotation(key = "expLogicExpand", name = "Logic expression expansion")
-	private int expLogicExpand = 0;
+	private static final int expLogicExpand = 0;
 
 	@FeatureAnnotation(key = "expLogicReduce", name = "Logic expression reduction")
-	private int expLogicReduce = 0;
+	private static final int expLogicReduce = 0;
 
 	@FeatureAnnotation(key = "expLogicMod", name = "Logic expression modification")
-	private int expLogicMod = 0;
+	private static final int expLogicMod = 0;
 
 	@FeatureAnnotation(key = "expArithMod", name = "Arithmetic expression modification")
-	private int expArithMod = 0;
+	private static final int expArithMod = 0;
 
 	@FeatureAnnotation(key = "wrapsIf", name = "Wraps-with if statement")
-	private int wrapsIf = 0;
+	private static final int wrapsIf = 0;
 
 	@FeatureAnnotation(key = "wrapsIfElse", name = "Wraps-with if-else statement")
-	private int wrapsIfElse = 0;
+	private static final int wrapsIfElse = 0;
 
 	@FeatureAnnotation(key = "wrapsElse", name = "Wraps-with else statement")
-	private int wrapsElse = 0;
+	private static final int wrapsElse = 0;
 
 	@FeatureAnnotation(key = "wrapsTryCatch", name = "Wraps-with try-catch block")
-	private int wrapsTryCatch = 0;
+	private static final int wrapsTryCatch = 0;
 
 	@FeatureAnnotation(key = "wrapsMethod", name = "Wraps-with method call")
-	private int wrapsMethod = 0;
+	private static final int wrapsMethod = 0;
 
 	@FeatureAnnotation(key = "wrapsLoop", name = "Wraps-with loop")
-	private int wrapsLoop = 0;
+	private static final int wrapsLoop = 0;
 
 	@FeatureAnnotation(key = "unwrapIfElse", name = "Unwraps-from if-else statement")
-	private int unwrapIfElse = 0;
+	private static final int unwrapIfElse = 0;
 
 	@FeatureAnnotation(key = "unwrapMethod", name = "Unwraps-from method call")
-	private int unwrapMethod = 0;
+	private static final int unwrapMethod = 0;
 
 	@FeatureAnnotation(key = "unwrapTryCatch", name = "Unwraps-from try-catch block")
-	private int unwrapTryCatch = 0;
+	private static final int unwrapTryCatch = 0;
 
 	@FeatureAnnotation(key = "wrongVarRef", name = "Wrong Variable Reference")
-	private int wrongVarRef = 0;
+	private static final int wrongVarRef = 0;
 
 	@FeatureAnnotation(key = "wrongMethodRef", name = "Wrong Method Reference")
-	private int wrongMethodRef = 0;
+	private static final int wrongMethodRef = 0;
 
 	@FeatureAnnotation(key = "missNullCheckP", name = "Missing null check addition")
-	private int missNullCheckP = 0;
+	private static final int missNullCheckP = 0;
 
 	@FeatureAnnotation(key = "missNullCheckN", name = "Missing non-null check addition")
-	private int missNullCheckN = 0;
+	private static final int missNullCheckN = 0;
 
 	@FeatureAnnotation(key = "singleLine", name = "Single Line")
-	private int singleLine = 0;
+	private static final int singleLine = 0;
 
 	@FeatureAnnotation(key = "copyPaste", name = "Copy/Paste")
-	private int copyPaste = 0;
+	private static final int copyPaste = 0;
 
 	@FeatureAnnotation(key = "constChange", name = "Constant Change")
-	private int constChange = 0;
+	private static final int constChange = 0;
 
 	@FeatureAnnotation(key = "codeMove", name = "Code Moving")
-	private int codeMove = 0;
+	private static final int codeMove = 0;
 
 	@FeatureAnnotation(key = "notClassified", name = "undefined")
-	private int notClassified = 0;
+	private static final int notClassified = 0;
 
 	@FeatureAnnotation(key = "binOperatorModif", name = "Modify binary operator")
-	private int binOperatorModif = 0;
+	private static final int binOperatorModif = 0;
 
 	@FeatureAnnotation(key = "addassignment", name = "add assignment")
-	private int addassignment = 0;
+	private static final int addassignment = 0;
 
 	public MapList<String, Operation> getOperationsPerFeature() {
 		return operationsPerFeature;
@@ -0,0 +1,235 @@
+package add.features.codefeatures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.log4j.Logger;
+
+import spoon.reflect.code.CtAssignment;
+import spoon.reflect.code.CtBinaryOperator;
+import spoon.reflect.code.CtConstructorCall;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.code.CtLiteral;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.code.CtOperatorAssignment;
+import spoon.reflect.code.CtStatement;
+import spoon.reflect.code.CtTypeAccess;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtConstructor;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtEnum;
+import spoon.reflect.declaration.CtEnumValue;
+import spoon.reflect.declaration.CtField;
+import spoon.reflect.visitor.CtScanner;
+import spoon.reflect.visitor.filter.LineFilter;
+
+/**
+ * The elements of a class that the code analyzers look up for every faulty element of the class.
+ *
+ * The index is built in a single scan of the class and stored in the metadata of the {@link CtClass}, so it is
+ * computed once and lives as long as the model of the diff. The lists are in the order of
+ * {@link CtElement#getElements}, and must not be modified.
+ */
+@SuppressWarnings("rawtypes")
+public class ClassIndex {
+
+	public static final String METADATA_KEY = "add.classindex";
+
+	private static Logger log = Logger.getLogger(ClassIndex.class);
+
+	private final CtClass parentClass;
+
+	private final List<CtStatement> statements = new ArrayList<>();
+	private final List<CtInvocation> invocations = new ArrayList<>();
+	private final List<CtConstructorCall> constructorCalls = new ArrayList<>();
+	private final List<CtConstructor> constructors = new ArrayList<>();
+	private final List<CtLiteral> literals = new ArrayList<>();
+	private final List<CtTypeAccess> typeAccesses = new ArrayList<>();
+	private final List<CtBinaryOperator> binaryOperators = new ArrayList<>();
+	private final List<CtEnum> enums = new ArrayList<>();
+	private final List<CtLocalVariable> localVariables = new ArrayList<>();
+	// top-level assignments and fields: the ones that are not nested in another assignment or field
+	private final List<CtAssignment> assignments = new ArrayList<>();
+	private final List<CtField> fields = new ArrayList<>();
+
+	private List allMethods;
+
+	private final Map<String, Map<CtElement, Object>> facts = new HashMap<>();
+
+	/**
+	 * @return the index of the class, built on first use
+	 */
+	public static ClassIndex of(CtClass parentClass) {
+		synchronized (parentClass) {
+			ClassIndex index = (ClassIndex) parentClass.getMetadata(METADATA_KEY);
+			if (index == null) {
+				index = new ClassIndex(parentClass);
+				parentClass.putMetadata(METADATA_KEY, index);
+			}
+			return index;
+		}
+	}
+
+	private ClassIndex(CtClass parentClass) {
+		this.parentClass = parentClass;
+
+		LineFilter lineFilter = new LineFilter();
+		new CtScanner() {
+
+			int nestedInAssignmentOrField = 0;
+
+			@Override
+			public void scan(CtElement element) {
+				if (element == null) {
+					return;
+				}
+				if (element instanceof CtStatement && lineFilter.matches((CtStatement) element)) {
+					statements.add((CtStatement) element);
+				}
+				if (element instanceof CtInvocation) {
+					invocations.add((CtInvocation) element);
+				}
+				if (element instanceof CtConstructorCall) {
+					constructorCalls.add((CtConstructorCall) element);
+				}
+				if (element instanceof CtConstructor) {
+					constructors.add((CtConstructor) element);
+				}
+				if (element instanceof CtLiteral) {
+					literals.add((CtLiteral) element);
+				}
+				if (element instanceof CtTypeAccess) {
+					typeAccesses.add((CtTypeAccess) element);
+				}
+				if (element instanceof CtBinaryOperator) {
+					binaryOperators.add((CtBinaryOperator) element);
+				}
+				if (element instanceof CtEnum) {
+					enums.add((CtEnum) element);
+				}
+				if (element instanceof CtLocalVariable) {
+					localVariables.add((CtLocalVariable) element);
+				}
+
+				boolean isAssignment = element instanceof CtAssignment && !(element instanceof CtOperatorAssignment);
+				boolean isField = element instanceof CtField && !(element instanceof CtEnumValue);
+				if (isAssignment || isField) {
+					if (nestedInAssignmentOrField == 0) {
+						if (isAssignment) {
+							assignments.add((CtAssignment) element);
+						} else {
+							fields.add((CtField) element);
+						}
+					}
+					nestedInAssignmentOrField++;
+					super.scan(element);
+					nestedInAssignmentOrField--;
+				} else {
+					super.scan(element);
+				}
+			}
+		}.scan(parentClass);
+	}
+
+	public CtClass getParentClass() {
+		return parentClass;
+	}
+
+	/**
+	 * @return the statements of the class, as selected by {@link LineFilter}
+	 */
+	public List<CtStatement> getStatements() {
+		return Collections.unmodifiableList(statements);
+	}
+
+	/**
+	 * @return the methods of the class, including the inherited ones, and the ones of the enclosing class
+	 */
+	public synchronized List getAllMethods() {
+		if (allMethods == null) {
+			List methods = new ArrayList();
+			try {
+				methods.addAll(parentClass.getAllMethods());
+				if (parentClass.getParent() instanceof CtClass) {
+					CtClass parentParentClass = (CtClass) parentClass.getParent();
+					methods.addAll(parentParentClass.getAllMethods());
+				}
+			} catch (Exception e) {
+				log.error("could not list the methods of " + parentClass.getQualifiedName(), e);
+			}
+			allMethods = Collections.unmodifiableList(methods);
+		}
+		return allMethods;
+	}
+
+	/**
+	 * Memoizes a fact about an element of the class, such as whether it is guarded, so that the analyzers of the
+	 * different faulty elements of the class compute it once.
+	 *
+	 * @param fact the name of the fact
+	 * @param compute computes the fact for an element; it must only depend on the element
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T> T getFact(String fact, CtElement element, Function<CtElement, T> compute) {
+		Map<CtElement, Object> values = facts.computeIfAbsent(fact, k -> new IdentityHashMap<>());
+		if (values.containsKey(element)) {
+			return (T) values.get(element);
+		}
+		T value = compute.apply(element);
+		values.put(element, value);
+		return value;
+	}
+
+	public List<CtInvocation> getInvocations() {
+		return Collections.unmodifiableList(invocations);
+	}
+
+	public List<CtConstructorCall> getConstructorCalls() {
+		return Collections.unmodifiableList(constructorCalls);
+	}
+
+	public List<CtConstructor> getConstructors() {
+		return Collections.unmodifiableList(constructors);
+	}
+
+	public List<CtLiteral> getLiterals() {
+		return Collections.unmodifiableList(literals);
+	}
+
+	public List<CtTypeAccess> getTypeAccesses() {
+		return Collections.unmodifiableList(typeAccesses);
+	}
+
+	public List<CtBinaryOperator> getBinaryOperators() {
+		return Collections.unmodifiableList(binaryOperators);
+	}
+
+	public List<CtEnum> getEnums() {
+		return Collections.unmodifiableList(enums);
+	}
+
+	public List<CtLocalVariable> getLocalVariables() {
+		return Collections.unmodifiableList(localVariables);
+	}
+
+	/**
+	 * @return the assignments of the class that are not nested in another assignment or in a field
+	 */
+	public List<CtAssignment> getAssignments() {
+		return Collections.unmodifiableList(assignments);
+	}
+
+	/**
+	 * @return the fields of the class, including the ones of its nested classes that are not declared in a field
+	 *         initializer
+	 */
+	public List<CtField> getFields() {
+		return Collections.unmodifiableList(fields);
+	}
+
+}
@@ -22,7 +22,6 @@ import spoon.reflect.code.CtWhile;
 import spoon.reflect.declaration.CtClass;
 import spoon.reflect.declaration.CtElement;
 import spoon.reflect.declaration.CtVariable;
-import spoon.reflect.visitor.filter.LineFilter;
 
 public class CodeElementInfo {
 	
@@ -34,6 +33,8 @@ public class CodeElementInfo {
 	
 	public CtClass parentClass;
 	
+	public ClassIndex classIndex;
+	
 	public List<CtStatement> statements;
 	
 	public List allMethods;
@@ -117,6 +118,8 @@ public class CodeElementInfo {
 			parentClass = (CtClass) element;
 		else
 			parentClass = element.getParent(CtClass.class);
+		
+		classIndex = parentClass != null ? ClassIndex.of(parentClass) : null;
 	}
 	
 	private CtClass getParentClass () {
@@ -127,7 +130,7 @@ public class CodeElementInfo {
     private void setStatementList () {
     	
     	if(parentClass!=null)
-    		statements = parentClass.getElements(new LineFilter());
+    		statements = classIndex.getStatements();
     	else statements = null;
 	}
 	
@@ -139,26 +142,10 @@ public class CodeElementInfo {
     private void setMethodList () {
     	
     	if(parentClass!=null)
-    		allMethods = getAllMethodsFromClass(parentClass);
+    		allMethods = classIndex.getAllMethods();
     	else allMethods = null;
 	}
     
-    private List getAllMethodsFromClass(CtClass parentClass) {
-
-		List allMethods = new ArrayList();
-
-		try {
-			allMethods.addAll(parentClass.getAllMethods());
-			if (parentClass != null && parentClass.getParent() instanceof CtClass) {
-				CtClass parentParentClass = (CtClass) parentClass.getParent();
-				allMethods.addAll(parentParentClass.getAllMethods());
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-		return allMethods;
-	}
-	
     private List getMethodList() {
 		
     	return this.allMethods;
@@ -167,8 +154,7 @@ public class CodeElementInfo {
     private void setInvocationsFromClass () {
     	
     	if(parentClass!=null)
-    		invocationsFromClass = parentClass.getElements(e -> (e instanceof CtInvocation)).stream()
-			.map(CtInvocation.class::cast).collect(Collectors.toList());
+    		invocationsFromClass = classIndex.getInvocations();
     	else invocationsFromClass = null;
 	}
     
@@ -180,8 +166,7 @@ public class CodeElementInfo {
     private void setConstructorcallsFromClass () {
     	
     	if(parentClass!=null)
-    		constructorcallsFromClass = parentClass.getElements(e -> (e instanceof CtConstructorCall)).stream()
-			.map(CtConstructorCall.class::cast).collect(Collectors.toList());
+    		constructorcallsFromClass = classIndex.getConstructorCalls();
     	else constructorcallsFromClass = null;
 	}
     
@@ -12,6 +12,7 @@ import add.features.codefeatures.codeanalyze.MethodAnalyzer;
 import add.features.codefeatures.codeanalyze.TypeaccessAnalyzer;
 import add.features.codefeatures.codeanalyze.VariableAnalyzer;
 import add.features.codefeatures.codeanalyze.WholeStatementAnalyzer;
+import add.main.StageProfile;
 import spoon.reflect.code.CtBinaryOperator;
 import spoon.reflect.code.CtExpression;
 import spoon.reflect.declaration.CtElement;
@@ -45,7 +46,8 @@ public class CodeFeatureDetector {
 		analyzers.add(new WholeStatementAnalyzer(infoElementStudy));
 		
 		for(int index=0; index<analyzers.size(); index++) {
-			analyzers.get(index).analyze();
+			AbstractCodeAnalyzer analyzer = analyzers.get(index);
+			StageProfile.measure("codeAnalyzer." + analyzer.getClass().getSimpleName(), analyzer::analyze);
 		}
 
 		return infoElementStudy.context;
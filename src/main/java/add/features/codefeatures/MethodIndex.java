@@ -0,0 +1,120 @@
+package add.features.codefeatures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import spoon.reflect.code.CtAssignment;
+import spoon.reflect.code.CtFieldAccess;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.code.CtOperatorAssignment;
+import spoon.reflect.code.CtStatement;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.visitor.CtScanner;
+import spoon.reflect.visitor.filter.LineFilter;
+
+/**
+ * The elements of a method (or of any other executable) that the code analyzers look up for every faulty element
+ * of the method.
+ *
+ * Like {@link ClassIndex}, the index is built in a single scan and stored in the metadata of the method, and the
+ * lists are in the order of {@link CtElement#getElements}.
+ */
+@SuppressWarnings("rawtypes")
+public class MethodIndex {
+
+	public static final String METADATA_KEY = "add.methodindex";
+
+	private final List<CtStatement> statements = new ArrayList<>();
+	private final List<CtFieldAccess> fieldAccesses = new ArrayList<>();
+	// top-level assignments and local variables: the ones that are not nested in another assignment or local variable
+	private final List<CtAssignment> assignments = new ArrayList<>();
+	private final List<CtLocalVariable> localVariables = new ArrayList<>();
+	private final List<CtElement> assignmentsAndLocalVariables = new ArrayList<>();
+
+	/**
+	 * @return the index of the method, built on first use
+	 */
+	public static MethodIndex of(CtElement method) {
+		synchronized (method) {
+			MethodIndex index = (MethodIndex) method.getMetadata(METADATA_KEY);
+			if (index == null) {
+				index = new MethodIndex(method);
+				method.putMetadata(METADATA_KEY, index);
+			}
+			return index;
+		}
+	}
+
+	private MethodIndex(CtElement method) {
+		LineFilter lineFilter = new LineFilter();
+		new CtScanner() {
+
+			int nestedInAssignmentOrLocalVariable = 0;
+
+			@Override
+			public void scan(CtElement element) {
+				if (element == null) {
+					return;
+				}
+				if (element instanceof CtStatement && lineFilter.matches((CtStatement) element)) {
+					statements.add((CtStatement) element);
+				}
+				if (element instanceof CtFieldAccess) {
+					fieldAccesses.add((CtFieldAccess) element);
+				}
+
+				boolean isAssignment = element instanceof CtAssignment && !(element instanceof CtOperatorAssignment);
+				boolean isLocalVariable = element instanceof CtLocalVariable;
+				if (isAssignment || isLocalVariable) {
+					if (nestedInAssignmentOrLocalVariable == 0) {
+						if (isAssignment) {
+							assignments.add((CtAssignment) element);
+						} else {
+							localVariables.add((CtLocalVariable) element);
+						}
+						assignmentsAndLocalVariables.add(element);
+					}
+					nestedInAssignmentOrLocalVariable++;
+					super.scan(element);
+					nestedInAssignmentOrLocalVariable--;
+				} else {
+					super.scan(element);
+				}
+			}
+		}.scan(method);
+	}
+
+	/**
+	 * @return the statements of the method, as selected by {@link LineFilter}
+	 */
+	public List<CtStatement> getStatements() {
+		return Collections.unmodifiableList(statements);
+	}
+
+	public List<CtFieldAccess> getFieldAccesses() {
+		return Collections.unmodifiableList(fieldAccesses);
+	}
+
+	/**
+	 * @return the assignments of the method that are not nested in another assignment or in a local variable
+	 */
+	public List<CtAssignment> getAssignments() {
+		return Collections.unmodifiableList(assignments);
+	}
+
+	/**
+	 * @return the local variables of the method that are not nested in an assignment or in another local variable
+	 */
+	public List<CtLocalVariable> getLocalVariables() {
+		return Collections.unmodifiableList(localVariables);
+	}
+
+	/**
+	 * @return {@link #getAssignments()} and {@link #getLocalVariables()}, merged in the order of the method
+	 */
+	public List<CtElement> getAssignmentsAndLocalVariables() {
+		return Collections.unmodifiableList(assignmentsAndLocalVariables);
+	}
+
+}
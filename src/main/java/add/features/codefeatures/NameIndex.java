@@ -0,0 +1,215 @@
+package add.features.codefeatures;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import add.features.utils.StringDistance;
+import spoon.reflect.code.CtConstructorCall;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtConstructor;
+import spoon.reflect.declaration.CtMethod;
+
+/**
+ * The names of the members of a class that the code analyzers compare with the names of the faulty elements: the
+ * names of the invoked methods, of the methods of the class (see {@link ClassIndex#getAllMethods}), of the
+ * constructor calls and of the constructors.
+ *
+ * The names are stored in a BK-tree, so the names within an edit distance of a name are found by computing the
+ * distances to a few of them only, and their lower case suffixes are stored in a set, so whether a name ends with
+ * another one is a lookup. Like {@link ClassIndex}, the index is built on first use and stored in the metadata of the
+ * {@link CtClass}.
+ */
+@SuppressWarnings("rawtypes")
+public class NameIndex {
+
+	public static final String METADATA_KEY = "add.nameindex";
+
+	private static final String SEPARATOR = "\u0000";
+
+	private final Set<String> names = new LinkedHashSet<>();
+	private final Set<String> lowerCaseSuffixes = new HashSet<>();
+	private Node root;
+
+	private final Map<String, Set<String>> namesWithin = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the index of the class, built on first use
+	 */
+	public static NameIndex of(CtClass parentClass) {
+		synchronized (parentClass) {
+			NameIndex index = (NameIndex) parentClass.getMetadata(METADATA_KEY);
+			if (index == null) {
+				index = new NameIndex(ClassIndex.of(parentClass));
+				parentClass.putMetadata(METADATA_KEY, index);
+			}
+			return index;
+		}
+	}
+
+	private NameIndex(ClassIndex classIndex) {
+		for (CtInvocation invocation : classIndex.getInvocations()) {
+			add(invocation.getExecutable().getSimpleName());
+		}
+		for (Object method : classIndex.getAllMethods()) {
+			if (method instanceof CtMethod) {
+				add(((CtMethod) method).getSimpleName());
+			}
+		}
+		for (CtConstructorCall constructorCall : classIndex.getConstructorCalls()) {
+			// the name of a constructor call without type is unknown
+			if (constructorCall.getType() != null) {
+				add(getSimpleName(constructorCall));
+			}
+		}
+		for (CtConstructor constructor : classIndex.getConstructors()) {
+			add(constructor.getSimpleName());
+		}
+	}
+
+	/**
+	 * @return the simple name of the type created by the constructor call
+	 */
+	public static String getSimpleName(CtConstructorCall constructorCall) {
+		String[] namespace = constructorCall.getType().getQualifiedName().split("\\(")[0].split("\\.");
+		return namespace[namespace.length - 1];
+	}
+
+	private void add(String name) {
+		if (name == null || !names.add(name)) {
+			return;
+		}
+		String lowerCaseName = name.toLowerCase();
+		for (int i = 0; i <= lowerCaseName.length(); i++) {
+			lowerCaseSuffixes.add(lowerCaseName.substring(i));
+		}
+
+		if (root == null) {
+			root = new Node(name);
+			return;
+		}
+		Node node = root;
+		while (true) {
+			int distance = StringDistance.calculate(name, node.name);
+			Node child = node.children.get(distance);
+			if (child == null) {
+				node.children.put(distance, new Node(name));
+				node.maxChildDistance = Math.max(node.maxChildDistance, distance);
+				return;
+			}
+			node = child;
+		}
+	}
+
+	/**
+	 * @return the names of the members of the class
+	 */
+	public Set<String> getNames() {
+		return Collections.unmodifiableSet(names);
+	}
+
+	/**
+	 * @return true if the name of a member ends with the given name, ignoring the case
+	 */
+	public boolean hasNameEndingWith(String name) {
+		return lowerCaseSuffixes.contains(name.toLowerCase());
+	}
+
+	/**
+	 * @return the names of the members of the class at an edit distance of at most <code>maxDistance</code> from
+	 *         the name, including the name itself if it is the one of a member
+	 */
+	public Set<String> getNamesWithin(String name, int maxDistance) {
+		return namesWithin.computeIfAbsent(name + SEPARATOR + maxDistance,
+				k -> Collections.unmodifiableSet(searchNamesWithin(name, maxDistance)));
+	}
+
+	private Set<String> searchNamesWithin(String name, int maxDistance) {
+		Set<String> result = new HashSet<>();
+		if (root == null) {
+			return result;
+		}
+		StringDistance.Matcher matcher = StringDistance.forName(name);
+		Deque<Node> pending = new ArrayDeque<>();
+		pending.push(root);
+		while (!pending.isEmpty()) {
+			Node node = pending.pop();
+			// beyond this bound, the distance is too large for the node and for all its children
+			int bound = node.maxChildDistance + maxDistance;
+			int distance = matcher.distance(node.name, bound);
+			if (distance <= maxDistance) {
+				result.add(node.name);
+			}
+			if (distance > bound) {
+				continue;
+			}
+			// by the triangle inequality, only the children at a distance close to the one of the node can match
+			for (int childDistance = Math.max(0, distance - maxDistance); childDistance <= distance
+					+ maxDistance; childDistance++) {
+				Node child = node.children.get(childDistance);
+				if (child != null) {
+					pending.push(child);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the names at an edit distance of at most <code>maxDistance</code> from the name, among the names of
+	 *         the members of the class and any other name
+	 */
+	public Neighbors getNeighbors(String name, int maxDistance) {
+		return new Neighbors(name, maxDistance);
+	}
+
+	/**
+	 * The names close to a name. The names of the members of the class are looked up in the index, the distance to
+	 * the other ones is computed.
+	 */
+	public class Neighbors {
+
+		private final String name;
+		private final int maxDistance;
+		private final Set<String> namesWithinDistance;
+		private StringDistance.Matcher matcher;
+
+		private Neighbors(String name, int maxDistance) {
+			this.name = name;
+			this.maxDistance = maxDistance;
+			this.namesWithinDistance = getNamesWithin(name, maxDistance);
+		}
+
+		/**
+		 * @return true if the edit distance between the other name and the name is at most the maximum distance
+		 */
+		public boolean contains(String other) {
+			if (names.contains(other)) {
+				return namesWithinDistance.contains(other);
+			}
+			if (matcher == null) {
+				matcher = StringDistance.forName(name);
+			}
+			return matcher.distance(other, maxDistance) <= maxDistance;
+		}
+	}
+
+	private static class Node {
+
+		private final String name;
+		private final Map<Integer, Node> children = new HashMap<>();
+		private int maxChildDistance = 0;
+
+		Node(String name) {
+			this.name = name;
+		}
+	}
+
+}
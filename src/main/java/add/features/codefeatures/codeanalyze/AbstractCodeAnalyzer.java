@@ -2,13 +2,16 @@ package add.features.codefeatures.codeanalyze;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import com.github.gumtreediff.tree.ITree;
 
+import add.features.codefeatures.ClassIndex;
 import add.features.codefeatures.Cntx;
 import add.features.codefeatures.CodeElementInfo;
 import add.features.codefeatures.CodeFeatures;
+import add.features.codefeatures.MethodIndex;
+import add.features.codefeatures.NameIndex;
+import add.features.utils.TypeLattice;
 import add.features.utils.VariableResolver;
 import spoon.reflect.code.CtAssignment;
 import spoon.reflect.code.CtBinaryOperator;
@@ -37,7 +40,6 @@ import spoon.reflect.declaration.CtField;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtParameter;
 import spoon.reflect.reference.CtTypeReference;
-import spoon.reflect.visitor.CtScanner;
 import spoon.reflect.visitor.filter.LineFilter;
 import spoon.reflect.visitor.filter.TypeFilter;
 
@@ -88,22 +90,10 @@ public abstract class AbstractCodeAnalyzer {
 			List<CtLocalVariable> localsVariable = new ArrayList<>();
 
 			// Get all vars from variables
-			CtScanner assignmentScanner = new CtScanner() {
-
-				@Override
-				public <T, A extends T> void visitCtAssignment(CtAssignment<T, A> assignement) {
-
-					assignments.add(assignement);
-				}
-
-				@Override
-				public <T> void visitCtLocalVariable(CtLocalVariable<T> localVariable) {
-
-					localsVariable.add(localVariable);
-				}
-			};
-
-			assignmentScanner.scan(methodParent);
+			if (methodParent != null) {
+				assignments = MethodIndex.of(methodParent).getAssignments();
+				localsVariable = MethodIndex.of(methodParent).getLocalVariables();
+			}
 			int nrOfVarWithAssignment = 0;
 			int nrOfVarWithoutAssignment = 0;
 
@@ -364,7 +354,7 @@ public abstract class AbstractCodeAnalyzer {
 			if (methodParent == null)
 				// the element is not in a method.
 				return false;
-			statements=methodParent.getElements(new LineFilter());
+			statements=MethodIndex.of(methodParent).getStatements();
 
 			int usedObjects = 0;
 			int notUsedObjects = 0;
@@ -573,15 +563,7 @@ public abstract class AbstractCodeAnalyzer {
 	}
 	
 	public static boolean compareTypes(CtTypeReference t1, CtTypeReference t2) {
-		try {
-			
-			return t1 != null && t2 != null && (t1.toString().equals(t2.toString()) || 
-					t1.toString().toLowerCase().endsWith(t2.toString().toLowerCase()) ||
-					t2.toString().toLowerCase().endsWith(t1.toString().toLowerCase()) ||
-					t1.equals(t2) || t1.isSubtypeOf(t2) || t2.isSubtypeOf(t1));
-		} catch (Exception e) {
-			return false;
-		}
+		return TypeLattice.areComparable(t1, t2);
 	}
 	
 	/**
@@ -596,7 +578,7 @@ public abstract class AbstractCodeAnalyzer {
 			if (parentClass == null || methodParent == null)
 				return false;
 			
-			List<CtStatement> statements = methodParent.getElements(new LineFilter());
+			List<CtStatement> statements = MethodIndex.of(methodParent).getStatements();
 
 			boolean hasFieldNeverUsedOutside = false;
 			// For each variable affected in the faulty statement
@@ -625,7 +607,7 @@ public abstract class AbstractCodeAnalyzer {
 							continue;
 
 						// get all field access on the method
-						List<CtElement> fieldsaccsess = anotherMethod.getElements(e -> e instanceof CtFieldAccess);
+						List<CtFieldAccess> fieldsaccsess = MethodIndex.of(anotherMethod).getFieldAccesses();
 						for (CtElement ef : fieldsaccsess) {
 							// check is the access is the same from that one used in the faulty
 							CtFieldAccess faccess = (CtFieldAccess) ef;
@@ -694,28 +676,10 @@ public abstract class AbstractCodeAnalyzer {
 			if (parentClass == null || methodParent == null)
 				return false;
 			
-			List<CtStatement> statements = methodParent.getElements(new LineFilter());
+			List<CtStatement> statements = MethodIndex.of(methodParent).getStatements();
 			
-			List<CtAssignment> assignments = new ArrayList<>();
-			List<CtField> allfields = new ArrayList<>();
-
-			// Get all vars from variables
-			CtScanner assignmentScanner = new CtScanner() {
-
-				@Override
-				public <T, A extends T> void visitCtAssignment(CtAssignment<T, A> assignement) {
-
-					assignments.add(assignement);
-				}
-
-				@Override
-				public <T> void visitCtField(CtField<T> filed) {
-
-					allfields.add(filed);
-				}
-			};
-			
-			assignmentScanner.scan(parentClass);
+			List<CtAssignment> assignments = ClassIndex.of(parentClass).getAssignments();
+			List<CtField> allfields = ClassIndex.of(parentClass).getFields();
 			
 			boolean hasFieldNeverAssigned = false;
 			// For each variable affected in the faulty statement
@@ -804,7 +768,7 @@ public abstract class AbstractCodeAnalyzer {
  				// the element is not in a method.
  				return null;
  			
- 			statements=methodParent.getElements(new LineFilter());
+ 			statements=MethodIndex.of(methodParent).getStatements();
 
  			int objectsLastAssign = 0;
  			int objectsLastUse = 0;
@@ -903,6 +867,36 @@ public abstract class AbstractCodeAnalyzer {
  		return expressionfeaturesdefault;
  	}
  	
+	/**
+	 * The guards of the invocations and constructor calls of the class are looked up for every invocation of every
+	 * faulty element of the class: they are memoized in the {@link ClassIndex}.
+	 */
+	private boolean hasNormalGuard(CtElement element, CtClass parentClass) {
+		if (parentClass == null)
+			return isNormalGuard(element, element.getParent(new LineFilter()));
+		return ClassIndex.of(parentClass).getFact("normalGuard", element,
+				e -> isNormalGuard(e, e.getParent(new LineFilter())));
+	}
+
+	private boolean hasNullCheckGuard(CtElement element, CtClass parentClass) {
+		if (parentClass == null)
+			return isNullCheckGuard(element, element.getParent(new LineFilter()));
+		return ClassIndex.of(parentClass).getFact("nullCheckGuard", element,
+				e -> isNullCheckGuard(e, e.getParent(new LineFilter())));
+	}
+
+	private boolean hasEffectiveTryCatch(CtElement element, CtClass parentClass) {
+		if (parentClass == null)
+			return isInEffectiveTryCatch(element);
+		return ClassIndex.of(parentClass).getFact("effectiveTryCatch", element, e -> isInEffectiveTryCatch(e));
+	}
+
+	private static boolean isInEffectiveTryCatch(CtElement element) {
+		CtTry potentionalTryCatch = element.getParent(CtTry.class);
+		return potentionalTryCatch != null
+				&& whethereffectivetrycatch(potentionalTryCatch, element.getParent(new LineFilter()));
+	}
+
 	public boolean[] analyze_SamerMethodWithGuardOrTrywrap (CtElement element, CtClass parentClass,
 			List<CtInvocation> allinvocationsFromClass, List<CtInvocation> invocationstostudy, 
 		List<CtConstructorCall> allconstructorcallsFromClass, List<CtConstructorCall> constructorcallstostudy) {
@@ -928,12 +922,10 @@ public abstract class AbstractCodeAnalyzer {
 					if(invocation.getExecutable().getSimpleName().equals
 							(specificinvocation.getExecutable().getSimpleName())) {
 						
-						CtStatement specificparent = specificinvocation.getParent(new LineFilter());
-
-						if (isNormalGuard(specificinvocation, (specificparent)))
+						if (hasNormalGuard(specificinvocation, parentClass))
 							S9anyhasNormalGuard =true;
 						
-						if (isNullCheckGuard(specificinvocation, (specificparent)))
+						if (hasNullCheckGuard(specificinvocation, parentClass))
 							S10anyhasNULLGuard =true;
 					}
 					
@@ -962,12 +954,10 @@ public abstract class AbstractCodeAnalyzer {
 					if(getSimplenameForConstructorCall(constructorcall).equals
 							(getSimplenameForConstructorCall(specificconstructorcall))) {
 						
-						CtStatement specificparent = specificconstructorcall.getParent(new LineFilter());
-
-						if (isNormalGuard(specificconstructorcall, (specificparent)))
+						if (hasNormalGuard(specificconstructorcall, parentClass))
 							S9anyhasNormalGuard =true;
 						
-						if (isNullCheckGuard(specificconstructorcall, (specificparent)))
+						if (hasNullCheckGuard(specificconstructorcall, parentClass))
 							S10anyhasNULLGuard =true;
 					}
 					
@@ -1000,12 +990,7 @@ public abstract class AbstractCodeAnalyzer {
 					if(invocation.getExecutable().getSimpleName().equals
 							(specificinvocation.getExecutable().getSimpleName())) {
 						
-						CtStatement parentspecific = specificinvocation.getParent(new LineFilter());
-						
-						CtTry potentionalTryCatchspecific = specificinvocation.getParent(CtTry.class);
-						
-						if(potentionalTryCatchspecific != null && 
-								whethereffectivetrycatch (potentionalTryCatchspecific, parentspecific))
+						if (hasEffectiveTryCatch(specificinvocation, parentClass))
 							S12anyhasTryCatch = true;
 					}
 					
@@ -1121,9 +1106,7 @@ public abstract class AbstractCodeAnalyzer {
 	public CtInvocation checkInvocationWithParameterReturnCompatibleType(List<CtInvocation> invocationsFromClass,
 			CtTypeReference type, CtClass parentclass) {
 		
-		List<CtBinaryOperator> binaryOperatorInClass = parentclass.getElements(e -> 
-		(e instanceof CtBinaryOperator)).stream()
-				.map(CtBinaryOperator.class::cast).collect(Collectors.toList());
+		List<CtBinaryOperator> binaryOperatorInClass = ClassIndex.of(parentclass).getBinaryOperators();
 		
 		for (CtInvocation anInvocation : invocationsFromClass) {
 			
@@ -1260,9 +1243,7 @@ public abstract class AbstractCodeAnalyzer {
 			List<CtTypeReference> inferredpotentionaltypes = new ArrayList<CtTypeReference>();
 
 			try {
-				List<CtBinaryOperator> binaryOperatorInClass = parentclass.getElements(e -> 
-				(e instanceof CtBinaryOperator)).stream()
-						.map(CtBinaryOperator.class::cast).collect(Collectors.toList());		
+				List<CtBinaryOperator> binaryOperatorInClass = ClassIndex.of(parentclass).getBinaryOperators();		
 				
 				inferredpotentionaltypes.clear();
 	               
@@ -1312,8 +1293,6 @@ public abstract class AbstractCodeAnalyzer {
 	 
 	 public String getSimplenameForConstructorCall (CtConstructorCall call) {
 		 
-		   String[] namespace= call.getType().getQualifiedName().split("\\(")[0].split("\\.");
-		   String constructorname =namespace [namespace.length-1];	
-		   return constructorname;
+		   return NameIndex.getSimpleName(call);
 	 }
 }
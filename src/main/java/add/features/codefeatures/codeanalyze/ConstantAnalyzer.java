@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import add.features.codefeatures.ClassIndex;
 import add.features.codefeatures.CodeElementInfo;
 import add.features.codefeatures.CodeFeatures;
 import spoon.reflect.code.CtLiteral;
@@ -42,8 +43,7 @@ public class ConstantAnalyzer extends AbstractCodeAnalyzer {
 			
 			List<CtLiteral> literalsFromClass = new ArrayList();
 			if(parentClass!=null)
-			  literalsFromClass = parentClass.getElements(e -> (e instanceof CtLiteral)).stream()
-					.map(CtLiteral.class::cast).collect(Collectors.toList());
+			  literalsFromClass = ClassIndex.of(parentClass).getLiterals();
 			
 			List<CtVariable> constantVarsInScope = varsInScope.stream().filter(e -> isConstantVariable(e))
 								.map(CtVariable.class::cast).collect(Collectors.toList());
@@ -5,17 +5,18 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import add.features.codefeatures.ClassIndex;
 import add.features.codefeatures.Cntx;
 import add.features.codefeatures.CodeElementInfo;
 import add.features.codefeatures.CodeFeatures;
 import add.features.utils.StringDistance;
+import add.features.utils.TypeLattice;
 import spoon.reflect.code.CtConstructorCall;
 import spoon.reflect.code.CtExpression;
 import spoon.reflect.code.CtInvocation;
 import spoon.reflect.declaration.CtClass;
 import spoon.reflect.declaration.CtConstructor;
 import spoon.reflect.declaration.CtElement;
-import spoon.reflect.visitor.filter.TypeFilter;
 
 public class ConstructorAnalyzer extends AbstractCodeAnalyzer {
 	
@@ -58,32 +59,7 @@ public class ConstructorAnalyzer extends AbstractCodeAnalyzer {
 					
 					CtExpression certainexpression=invocationArguments.get(index);
 					
-					if (certainexpression.getType()!=null && (certainexpression.getType().isPrimitive() || 
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("string") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("long") || 
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("list") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().indexOf("string")!=-1 ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("boolean") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("double") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("byte")||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("short")||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("float") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("chart") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("character") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("integer")||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("string[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("long[]") || 
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("boolean[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("double[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("byte[]")||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("short[]")||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("float[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("chart[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("character[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("integer[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().startsWith("java.util.") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().startsWith("java.nio.") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().startsWith("java.io."))) {
+					if (certainexpression.getType()!=null && TypeLattice.isPrimitiveOrLibraryLike(certainexpression.getType())) {
 						
 						Con6ArgumentHasPrimitive = true;
 						break;
@@ -127,32 +103,7 @@ public class ConstructorAnalyzer extends AbstractCodeAnalyzer {
 				
 				boolean con4returnprimitive = false;
 				
-				if (conAffected.getType()!=null && (conAffected.getType().isPrimitive() || 
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("string") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("list") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().indexOf("string")!=-1 ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("long") || 
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("boolean") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("double") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("byte")||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("short")||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("float") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("chart") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("character") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("integer")||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("string[]") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("long[]") || 
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("boolean[]") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("double[]") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("byte[]")||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("short[]")||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("float[]") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("chart[]") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("character[]") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().endsWith("integer[]") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().startsWith("java.util.") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().startsWith("java.nio.") ||
-						conAffected.getType().getQualifiedName().toString().toLowerCase().startsWith("java.io."))) {
+				if (conAffected.getType()!=null && TypeLattice.isPrimitiveOrLibraryLike(conAffected.getType())) {
 					con4returnprimitive = true;
 				}
 				
@@ -276,7 +227,7 @@ public class ConstructorAnalyzer extends AbstractCodeAnalyzer {
 				
 				List<CtConstructor> allconstructorsinclass = new ArrayList();
 				if(parentClass!=null)
-				     allconstructorsinclass = parentClass.getElements(new TypeFilter<>(CtConstructor.class));
+				     allconstructorsinclass = ClassIndex.of(parentClass).getConstructors();
 	
 				for (CtConstructor certainconstructorinclass : allconstructorsinclass) {
 
@@ -296,7 +247,7 @@ public class ConstructorAnalyzer extends AbstractCodeAnalyzer {
 				List<CtConstructorCall> allconstructorcallsinclass = new ArrayList();
 
 				if(parentClass!=null)
-				     allconstructorcallsinclass = parentClass.getElements(new TypeFilter<>(CtConstructorCall.class));
+				     allconstructorcallsinclass = ClassIndex.of(parentClass).getConstructorCalls();
 
 			    if(!con1SpecificHasSameName) {
 			    	
@@ -330,10 +281,11 @@ public class ConstructorAnalyzer extends AbstractCodeAnalyzer {
 			for (CtConstructorCall constructorcall : constructorcalls) {
 
 				boolean con2SpecificHasSimilarName = false;
+				StringDistance.Matcher constructorCallName = StringDistance.forName(getSimplenameForConstructorCall(constructorcall));
 				
 				List<CtConstructor> allconstructorsinclass = new ArrayList();
                 if(parentClass!=null)
-				     allconstructorsinclass = parentClass.getElements(new TypeFilter<>(CtConstructor.class));
+				     allconstructorsinclass = ClassIndex.of(parentClass).getConstructors();
 	
 				for (CtConstructor certainconstructorinclass : allconstructorsinclass) {
 
@@ -344,8 +296,8 @@ public class ConstructorAnalyzer extends AbstractCodeAnalyzer {
 
 						if (!anotherConstructor.getSimpleName().equals(getSimplenameForConstructorCall(constructorcall))) {
 							
-							int dist = StringDistance.calculate(anotherConstructor.getSimpleName(),
-									getSimplenameForConstructorCall(constructorcall));
+							int dist = constructorCallName.distance(anotherConstructor.getSimpleName(),
+									StringDistance.MAX_SIMILAR_DISTANCE);
 							if ((dist > 0 && dist < 3) || anotherConstructor.getSimpleName().startsWith(getSimplenameForConstructorCall(constructorcall))
 									|| anotherConstructor.getSimpleName().endsWith(getSimplenameForConstructorCall(constructorcall))||
 									getSimplenameForConstructorCall(constructorcall).startsWith(anotherConstructor.getSimpleName()) ||
@@ -359,7 +311,7 @@ public class ConstructorAnalyzer extends AbstractCodeAnalyzer {
 				List<CtConstructorCall> allconstructorcallsinclass = new ArrayList();
 
 				if(parentClass!=null)
-				     allconstructorcallsinclass = parentClass.getElements(new TypeFilter<>(CtConstructorCall.class));
+				     allconstructorcallsinclass = ClassIndex.of(parentClass).getConstructorCalls();
 
 			    if(!con2SpecificHasSimilarName) {
 			    	
@@ -372,8 +324,8 @@ public class ConstructorAnalyzer extends AbstractCodeAnalyzer {
 
 						if (!getSimplenameForConstructorCall(anotherConstructorCall).equals(getSimplenameForConstructorCall(constructorcall))) {
 							
-							int dist = StringDistance.calculate(getSimplenameForConstructorCall(anotherConstructorCall),
-									getSimplenameForConstructorCall(constructorcall));
+							int dist = constructorCallName.distance(getSimplenameForConstructorCall(anotherConstructorCall),
+									StringDistance.MAX_SIMILAR_DISTANCE);
 							if ((dist > 0 && dist < 3) || getSimplenameForConstructorCall(anotherConstructorCall).startsWith(getSimplenameForConstructorCall(constructorcall))
 									|| getSimplenameForConstructorCall(anotherConstructorCall).endsWith(getSimplenameForConstructorCall(constructorcall))||
 									getSimplenameForConstructorCall(constructorcall).startsWith(getSimplenameForConstructorCall(anotherConstructorCall)) ||
@@ -6,9 +6,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import add.features.codefeatures.ClassIndex;
 import add.features.codefeatures.Cntx;
 import add.features.codefeatures.CodeElementInfo;
 import add.features.codefeatures.CodeFeatures;
+import add.features.utils.TypeLattice;
 import add.features.utils.VariableResolver;
 import spoon.reflect.code.BinaryOperatorKind;
 import spoon.reflect.code.CtBinaryOperator;
@@ -201,7 +203,7 @@ public class LogicalExpressionAnalyzer extends AbstractCodeAnalyzer {
 			CtExpression exper= (CtExpression) currentexpression;
 		   try {
 		      if (exper.getType() != null
-				&& exper.getType().unbox().toString().equals("boolean")) {
+				&& TypeLattice.isBoolean(exper.getType())) {
 			  return true;
 		     }
 		   } catch (Exception e) {
@@ -292,7 +294,7 @@ public class LogicalExpressionAnalyzer extends AbstractCodeAnalyzer {
 				CtParameter parameter = (CtParameter) oparameter;
 
 				if (compareTypes(varAffected.getType(), parameter.getType())) {
-					if (anotherMethodInBuggyClass.getType().unbox().toString().equals("boolean")) {
+					if (TypeLattice.isBoolean(anotherMethodInBuggyClass.getType())) {
 
 						return anotherMethodInBuggyClass;
 					}
@@ -311,9 +313,7 @@ public class LogicalExpressionAnalyzer extends AbstractCodeAnalyzer {
 			CtVariableAccess varAffected, CtClass parentclass) {
 
 		try {
-			List<CtBinaryOperator> binaryOperatorInClass = parentclass.getElements(e -> 
-			(e instanceof CtBinaryOperator)).stream()
-					.map(CtBinaryOperator.class::cast).collect(Collectors.toList());		
+			List<CtBinaryOperator> binaryOperatorInClass = ClassIndex.of(parentclass).getBinaryOperators();		
 			
 			for (CtInvocation anInvocation : invocationsFromClass) {
 				
@@ -349,7 +349,7 @@ public class LogicalExpressionAnalyzer extends AbstractCodeAnalyzer {
 				} else inferredtype=anInvocation.getType();			
 				
 				if (inferredtype != null && (inferredtype.getSimpleName().equals("Boolean")
-						|| inferredtype.unbox().toString().equals("boolean") || 
+						|| TypeLattice.isBoolean(inferredtype) || 
 						whetherpotentionalboolean(inferredpotentionaltypes))) {
 
 					for (Object anObjArgument : anInvocation.getArguments()) {
@@ -377,7 +377,7 @@ public class LogicalExpressionAnalyzer extends AbstractCodeAnalyzer {
 		for(int i=0; i<potentionaltypes.size(); i++) {
 			
 			if(potentionaltypes.get(i)!=null && (potentionaltypes.get(i).getSimpleName().equals("Boolean") ||
-					potentionaltypes.get(i).unbox().toString().equals("boolean")))
+					TypeLattice.isBoolean(potentionaltypes.get(i))))
 				return true;
 		}
 		
@@ -464,7 +464,7 @@ public class LogicalExpressionAnalyzer extends AbstractCodeAnalyzer {
 				
 				for (CtVariable aVarInScope : varsInScope) {
 
-					if (aVarInScope.getType() != null && aVarInScope.getType().unbox().toString().equals("boolean")) {
+					if (aVarInScope.getType() != null && TypeLattice.isBoolean(aVarInScope.getType())) {
 
 						boolean isPresentVar = varsAffected.stream()
 								.filter(e -> e.getVariable().getSimpleName().equals(aVarInScope.getSimpleName()))
@@ -2,13 +2,17 @@ package add.features.codefeatures.codeanalyze;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import add.features.codefeatures.Cntx;
 import add.features.codefeatures.CodeElementInfo;
 import add.features.codefeatures.CodeFeatures;
+import add.features.codefeatures.NameIndex;
 import add.features.utils.StringDistance;
+import add.features.utils.TypeLattice;
 import add.features.utils.VariableResolver;
 import spoon.reflect.code.CtConstructorCall;
 import spoon.reflect.code.CtExpression;
@@ -67,32 +71,7 @@ public class MethodAnalyzer extends AbstractCodeAnalyzer {
 					
 					CtExpression certainexpression=invocationArguments.get(index);
 					
-					if (certainexpression.getType()!=null && (certainexpression.getType().isPrimitive() || 
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("string") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("list") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().indexOf("string")!=-1 ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("long") || 
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("boolean") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("double") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("byte")||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("short")||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("float") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("chart") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("character") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("integer")||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("string[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("long[]") || 
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("boolean[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("double[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("byte[]")||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("short[]")||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("float[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("chart[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("character[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().endsWith("integer[]") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().startsWith("java.util.") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().startsWith("java.nio.") ||
-							certainexpression.getType().getQualifiedName().toString().toLowerCase().startsWith("java.io."))) {
+					if (certainexpression.getType()!=null && TypeLattice.isPrimitiveOrLibraryLike(certainexpression.getType())) {
 						
 						M13ArgumentHasPrimitive = true;
 						break;
@@ -132,21 +111,32 @@ public class MethodAnalyzer extends AbstractCodeAnalyzer {
 	private void analyzeVarMethodNameSimilarM12 (List<CtInvocation> invocationsaffected, List<CtVariable> scopevars, Cntx<Object> context) {
 		
 		 try {
+			 // the lower case names of the variables in scope that are long enough to be compared
+			 Set<String> varnames = new HashSet<>();
+			 for (CtVariable aVarInScope : scopevars) {
+				 
+				 String varname=aVarInScope.getSimpleName();
+				 varname=varname.replaceAll("[^a-zA-Z0-9]", "");
+				 if(varname.length()>3)
+					 varnames.add(varname.toLowerCase());
+			 }
+			 
 			 for (CtInvocation invAffected : invocationsaffected) {
 				
 				boolean M12hasvarsimiplarinname = false;
 				
-				String methodname=invAffected.getExecutable().getSimpleName(); 
+				String methodname=invAffected.getExecutable().getSimpleName().toLowerCase(); 
 				
-				for (CtVariable aVarInScope : scopevars) {
-					
-					String varname=aVarInScope.getSimpleName();
-					varname=varname.replaceAll("[^a-zA-Z0-9]", "");
-					if(varname.length()>3) {
-						if(methodname.toLowerCase().endsWith(varname.toLowerCase()) || methodname.toLowerCase().equals("length") ||
-								methodname.toLowerCase().contains("version") || methodname.toLowerCase().contains("clone")) {
-							M12hasvarsimiplarinname = true;
-							break;
+				if(!varnames.isEmpty()) {
+					if(methodname.equals("length") || methodname.contains("version") || methodname.contains("clone")) {
+						M12hasvarsimiplarinname = true;
+					} else {
+						// the method name ends with a variable name if one of its suffixes is a variable name
+						for (int i = 0; i < methodname.length(); i++) {
+							if(varnames.contains(methodname.substring(i))) {
+								M12hasvarsimiplarinname = true;
+								break;
+							}
 						}
 					}
 				}
@@ -386,33 +376,11 @@ public class MethodAnalyzer extends AbstractCodeAnalyzer {
 				boolean m4methodHasCompatibleParameterAndReturnSameMethod = false;
 				boolean m8methodprimitive = false;
 				boolean m9methodobjective = false;
+				String invocationName = invocation.getExecutable().getSimpleName();
+				NameIndex.Neighbors similarNames = NameIndex.of(parentClass).getNeighbors(invocationName,
+						StringDistance.MAX_SIMILAR_DISTANCE);
 				
-				if ((invocation.getType()!=null && (invocation.getType().isPrimitive() || 
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("string") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("list") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().indexOf("string")!=-1||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("long") || 
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("boolean") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("double") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("byte")||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("short")||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("float") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("chart") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("character") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("integer")||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("string[]") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("long[]") || 
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("boolean[]") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("double[]") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("byte[]")||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("short[]")||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("float[]") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("chart[]") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("character[]") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("integer[]") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("java.util.") ||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("java.nio.")||
-						invocation.getType().getQualifiedName().toString().toLowerCase().endsWith("java.io."))) || 
+				if ((invocation.getType()!=null && TypeLattice.isPrimitiveLike(invocation.getType())) || 
 						whetherhasprimitive(inferPotentionalTypes(invocation, parentClass))) {
 					
 					m8methodprimitive = true;
@@ -469,12 +437,7 @@ public class MethodAnalyzer extends AbstractCodeAnalyzer {
 								invocation.getType());
 						if (compatibleReturnTypes) {
 							// Check name similarity:
-							int dist = StringDistance.calculate(anotherMethod.getSimpleName(),
-									invocation.getExecutable().getSimpleName());
-							if ((dist > 0 && dist < 3) || anotherMethod.getSimpleName().startsWith(invocation.getExecutable().getSimpleName())
-									|| anotherMethod.getSimpleName().endsWith(invocation.getExecutable().getSimpleName())||
-									invocation.getExecutable().getSimpleName().startsWith(anotherMethod.getSimpleName()) ||
-									invocation.getExecutable().getSimpleName().endsWith(anotherMethod.getSimpleName())) {
+							if (isSimilarName(invocationName, anotherMethod.getSimpleName(), similarNames)) {
 								m2methodhasMinDist = true;
 							}
 
@@ -493,21 +456,17 @@ public class MethodAnalyzer extends AbstractCodeAnalyzer {
 								.collect(Collectors.toList());
 						
 						for (CtInvocation ctInvocation : invocationsFromAnotherMethod) {
+							// Check name similarity first: most names are pruned by the index
+							if (!isSimilarName(invocationName, ctInvocation.getExecutable().getSimpleName(), similarNames))
+								continue;
+							
 							boolean compatibleReturnTypes = compareTypes(invocation.getType(),
 									ctInvocation.getType());
 							
 							if (compatibleReturnTypes) {
-								// Check name similarity:
 								   if(!ctInvocation.getExecutable().getSignature().equals(invocation.getExecutable().getSignature())) {
-								      int dist = StringDistance.calculate(ctInvocation.getExecutable().getSimpleName(),
-										invocation.getExecutable().getSimpleName());
-								      if ((dist > 0 && dist < 3) || ctInvocation.getExecutable().getSimpleName().startsWith(invocation.getExecutable().getSimpleName())
-								    		  || ctInvocation.getExecutable().getSimpleName().endsWith(invocation.getExecutable().getSimpleName())||
-								    		  invocation.getExecutable().getSimpleName().startsWith(ctInvocation.getExecutable().getSimpleName())||
-								    		  invocation.getExecutable().getSimpleName().endsWith(ctInvocation.getExecutable().getSimpleName())) {
 									     m2methodhasMinDist = true;
 									     break;
-								      } 
 							     }
 							}
 						}
@@ -561,6 +520,14 @@ public class MethodAnalyzer extends AbstractCodeAnalyzer {
 		}
 	}
 	
+	/**
+	 * @return true if the names are at a small edit distance, or if one starts or ends with the other
+	 */
+	private boolean isSimilarName(String name, String otherName, NameIndex.Neighbors neighborsOfName) {
+		return otherName.startsWith(name) || otherName.endsWith(name) || name.startsWith(otherName)
+				|| name.endsWith(otherName) || neighborsOfName.contains(otherName);
+	}
+	
    private boolean whetherhasprimitive(List<CtTypeReference> inferredtypes) {
 		
 		for (int index=0; index<inferredtypes.size(); index++) {
@@ -3,13 +3,13 @@ package add.features.codefeatures.codeanalyze;
 import java.util.ArrayList;
 import java.util.List;
 
+import add.features.codefeatures.ClassIndex;
 import add.features.codefeatures.Cntx;
 import add.features.codefeatures.CodeElementInfo;
 import add.features.codefeatures.CodeFeatures;
 import spoon.reflect.code.CtTypeAccess;
 import spoon.reflect.declaration.CtClass;
 import spoon.reflect.declaration.CtElement;
-import spoon.reflect.visitor.filter.TypeFilter;
 
 public class TypeaccessAnalyzer extends AbstractCodeAnalyzer {
 	
@@ -31,7 +31,7 @@ public class TypeaccessAnalyzer extends AbstractCodeAnalyzer {
 		try {
 			List<CtTypeAccess> typeaccesss = new ArrayList();
 			if(parentClass!=null)
-			    typeaccesss = parentClass.getElements(new TypeFilter<>(CtTypeAccess.class));
+			    typeaccesss = ClassIndex.of(parentClass).getTypeAccesses();
 
 			for (CtTypeAccess virtualtypeaccess : typeaccessaaffected) {
 				
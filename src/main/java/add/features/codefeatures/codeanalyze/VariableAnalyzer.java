@@ -5,11 +5,15 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import add.features.codefeatures.ClassIndex;
 import add.features.codefeatures.Cntx;
 import add.features.codefeatures.CodeElementInfo;
 import add.features.codefeatures.CodeFeatures;
+import add.features.codefeatures.MethodIndex;
+import add.features.codefeatures.NameIndex;
 import add.features.utils.MapCounter;
 import add.features.utils.StringDistance;
+import add.features.utils.TypeLattice;
 import add.features.utils.VariableResolver;
 import spoon.reflect.code.CtAssignment;
 import spoon.reflect.code.CtBinaryOperator;
@@ -26,7 +30,6 @@ import spoon.reflect.code.CtStatement;
 import spoon.reflect.code.CtVariableAccess;
 import spoon.reflect.code.CtWhile;
 import spoon.reflect.declaration.CtClass;
-import spoon.reflect.declaration.CtConstructor;
 import spoon.reflect.declaration.CtElement;
 import spoon.reflect.declaration.CtEnum;
 import spoon.reflect.declaration.CtExecutable;
@@ -36,7 +39,6 @@ import spoon.reflect.reference.CtFieldReference;
 import spoon.reflect.reference.CtTypeReference;
 import spoon.reflect.visitor.CtScanner;
 import spoon.reflect.visitor.filter.LineFilter;
-import spoon.reflect.visitor.filter.TypeFilter;
 
 public class VariableAnalyzer extends AbstractCodeAnalyzer {
 
@@ -78,8 +80,7 @@ public class VariableAnalyzer extends AbstractCodeAnalyzer {
 		analyzeFeature_Extend(elementinfo.varsAffected, elementinfo.element, elementinfo.context, elementinfo.parentClass,
 				elementinfo.statements);
 		
-		analyzeV18_HasMethodSimilarInName (elementinfo.varsAffected, elementinfo.context, elementinfo.invocationsFromClass,
-				elementinfo.allMethods, elementinfo.constructorcallsFromClass, elementinfo.parentClass);
+		analyzeV18_HasMethodSimilarInName (elementinfo.varsAffected, elementinfo.context, elementinfo.parentClass);
 		
 		analyzeV19_VarWithSpecialName (elementinfo.varsAffected, elementinfo.context);
 
@@ -97,7 +98,7 @@ public class VariableAnalyzer extends AbstractCodeAnalyzer {
 						|| varname.endsWith("key") || varname.equals("class"))
 					V19WithSpecialName =true;
 				
-				if(!V19WithSpecialName && aVarAffected.getType()!=null && aVarAffected.getType().getSimpleName().toLowerCase().endsWith("exception"))
+				if(!V19WithSpecialName && aVarAffected.getType()!=null && TypeLattice.isExceptionLike(aVarAffected.getType()))
 					V19WithSpecialName =true;
 				
 			
@@ -111,75 +112,20 @@ public class VariableAnalyzer extends AbstractCodeAnalyzer {
 	}
 	
 	private void analyzeV18_HasMethodSimilarInName (List<CtVariableAccess> varsAffected, Cntx<Object> context, 
-			List<CtInvocation> invocationsFromClass, List allMethodsFromClass, 
-			List<CtConstructorCall> allconstructorcallsFromClass, CtClass parentClass) {
+			CtClass parentClass) {
 		
 		 try {
+			  // the names of the invocations, methods, constructor calls and constructors of the class
+			  NameIndex namesInClass = NameIndex.of(parentClass);
+			  
 			  for (CtVariableAccess aVarAffected : varsAffected) {
 				
 				boolean V18HasMethodSimilarInName = false;
 				String varname= aVarAffected.getVariable().getSimpleName();
 				varname=varname.replaceAll("[^a-zA-Z0-9]", "");
 
-				for (CtInvocation invInClass : invocationsFromClass) {
-					
-					String methodname=invInClass.getExecutable().getSimpleName(); 
-					if(varname.length()>3) {
-						if(methodname.toLowerCase().endsWith(varname.toLowerCase())) {
-							V18HasMethodSimilarInName = true;
-							break;
-						}
-					}
-				}
-				
-				if(!V18HasMethodSimilarInName) {
-					for (Object omethod : allMethodsFromClass) {
-
-						if (!(omethod instanceof CtMethod))
-							continue;
-
-						CtMethod anotherMethod = (CtMethod) omethod;	
-						String methodname=anotherMethod.getSimpleName(); 
-						
-						if(varname.length()>3) {
-							if(methodname.toLowerCase().endsWith(varname.toLowerCase())) {
-								V18HasMethodSimilarInName = true;
-								break;
-							}
-						}
-				    }
-				}
-				
-				if(!V18HasMethodSimilarInName) {
-					
-					for (CtConstructorCall certainconstructorcallinclass : allconstructorcallsFromClass) {
-					
-						String methodname=getSimplenameForConstructorCall(certainconstructorcallinclass); 
-						
-						if(varname.length()>3) {
-							if(methodname.toLowerCase().endsWith(varname.toLowerCase())) {
-								V18HasMethodSimilarInName = true;
-								break;
-							}
-						}	
-			         }
-			    }
-				
-				if(!V18HasMethodSimilarInName) {
-					
-					List<CtConstructor> allconstructorsinclass = parentClass.getElements(new TypeFilter<>(CtConstructor.class));
-					
-					for (CtConstructor certainconstructorinclass : allconstructorsinclass) {
-
-						String methodname=certainconstructorinclass.getSimpleName();
-
-						if(varname.length()>3) {
-							if(methodname.toLowerCase().endsWith(varname.toLowerCase())) {
-								V18HasMethodSimilarInName = true;
-								break;
-							}
-						}
-				    }
+				if(varname.length()>3) {
+					V18HasMethodSimilarInName = namesInClass.hasNameEndingWith(varname);
 				}
 			
 				writeGroupedInfo(context, adjustIdentifyInJson(aVarAffected),
@@ -327,8 +273,7 @@ public class VariableAnalyzer extends AbstractCodeAnalyzer {
 	public CtInvocation checkInvocationWithReturnCompatibleType(List<CtInvocation> invocationsFromClass,
 			CtTypeReference type, CtClass parentclass) {
 		
-		List<CtBinaryOperator> binaryOperatorInClass = parentclass.getElements(e -> 
-		(e instanceof CtBinaryOperator)).stream().map(CtBinaryOperator.class::cast).collect(Collectors.toList());
+		List<CtBinaryOperator> binaryOperatorInClass = ClassIndex.of(parentclass).getBinaryOperators();
 		
 		// For each invocation found in the class
 		for (CtInvocation anInvocation : invocationsFromClass) {
@@ -386,11 +331,12 @@ public class VariableAnalyzer extends AbstractCodeAnalyzer {
 
 				boolean v2VarSimilarNameCompatibleType = false;
 				boolean v2VarSimilarName = false;
+				StringDistance.Matcher affectedName = StringDistance.forName(aVarAffected.getVariable().getSimpleName());
 
 				for (CtVariable aVarInScope : varsInScope) {
 					if (!aVarInScope.getSimpleName().equals(aVarAffected.getVariable().getSimpleName())) {
-						int dist = StringDistance.calculate(aVarInScope.getSimpleName(),
-								aVarAffected.getVariable().getSimpleName());
+						int dist = affectedName.distance(aVarInScope.getSimpleName(),
+								StringDistance.MAX_SIMILAR_DISTANCE);
 						if ((dist > 0 && dist < 3) || nameStartEndWithOther (aVarInScope.getSimpleName(), 
 								aVarAffected.getVariable().getSimpleName())) {
 							v2VarSimilarName=true;
@@ -522,22 +468,15 @@ public class VariableAnalyzer extends AbstractCodeAnalyzer {
 
 			List<CtExpression> assignments = new ArrayList<>();
 
-			CtScanner assignmentScanner = new CtScanner() {
-
-				@Override
-				public <T, A extends T> void visitCtAssignment(CtAssignment<T, A> assignement) {
-					if (assignement.getAssignment() != null)
-						assignments.add(assignement.getAssignment());
+			if (methodParent != null) {
+				for (CtElement assignmentOrLocalVariable : MethodIndex.of(methodParent).getAssignmentsAndLocalVariables()) {
+					CtExpression assigned = assignmentOrLocalVariable instanceof CtAssignment
+							? ((CtAssignment) assignmentOrLocalVariable).getAssignment()
+							: ((CtLocalVariable) assignmentOrLocalVariable).getAssignment();
+					if (assigned != null)
+						assignments.add(assigned);
 				}
-
-				@Override
-				public <T> void visitCtLocalVariable(CtLocalVariable<T> localVariable) {
-					if (localVariable.getAssignment() != null)
-						assignments.add(localVariable.getAssignment());
-				}
-
-			};
-			assignmentScanner.scan(methodParent);
+			}
 
 			for (CtVariableAccess variableAffected : varsAffected) {
 
@@ -583,32 +522,7 @@ public class VariableAnalyzer extends AbstractCodeAnalyzer {
 				
 				if (ctVariable != null && ctVariable.getReference() != null
 						&& ctVariable.getReference().getType() != null) {
-					if (ctVariable.getReference().getType().isPrimitive() ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("string") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("list") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().indexOf("string")!=-1||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("long") || 
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("boolean") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("double") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("byte")||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("short")||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("float") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("chart") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("character") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("integer")||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("string[]") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("long[]") || 
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("boolean[]") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("double[]") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("byte[]")||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("short[]")||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("float[]") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("chart[]") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("character[]") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("integer[]") ||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("java.util.")||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("java.nio.")||
-					ctVariable.getReference().getType().getQualifiedName().toString().toLowerCase().endsWith("java.io.")) {
+					if (TypeLattice.isPrimitiveLike(ctVariable.getReference().getType())) {
 						isPrimitive = true;
 					} 
 				}
@@ -634,8 +548,7 @@ public class VariableAnalyzer extends AbstractCodeAnalyzer {
 		try {
 			List<CtLiteral> allliteralsFromClass = new ArrayList();
 			if(parentClass!=null)
-			    allliteralsFromClass = parentClass.getElements(e -> (e instanceof CtLiteral)).stream()
-					.map(CtLiteral.class::cast).collect(Collectors.toList());
+			    allliteralsFromClass = ClassIndex.of(parentClass).getLiterals();
 			
 			for (CtVariableAccess varAffected : varsAffected) {
 
@@ -957,7 +870,7 @@ public class VariableAnalyzer extends AbstractCodeAnalyzer {
 					// the element is not in a method.
 					return;
 				
-				List<CtStatement> statements=methodParent.getElements(new LineFilter());
+				List<CtStatement> statements=MethodIndex.of(methodParent).getStatements();
 
 				// For each variable affected
 				for (CtVariableAccess variableAffected : varsAffected) {
@@ -1021,7 +934,7 @@ public class VariableAnalyzer extends AbstractCodeAnalyzer {
 				if (parentClass == null)
 					return;
 				// Get all enums
-				List<CtEnum> enums = parentClass.getElements(new TypeFilter<>(CtEnum.class));
+				List<CtEnum> enums = ClassIndex.of(parentClass).getEnums();
 
 				// For each var access
 				for (CtVariableAccess varAccess : varsAffected) {
@@ -9,8 +9,9 @@ import com.github.gumtreediff.tree.ITree;
 import add.features.FeatureAnalyzer;
 import add.features.detector.repairpatterns.MappingAnalysis;
 import add.features.detector.spoon.SpoonHelper;
-import add.features.diffanalyzer.JGitBasedDiffAnalyzer;
+import add.features.diffanalyzer.PatchContext;
 import add.main.Config;
+import add.main.StageProfile;
 import gumtree.spoon.AstComparator;
 import gumtree.spoon.diff.Diff;
 import gumtree.spoon.diff.operations.DeleteOperation;
@@ -18,7 +19,6 @@ import gumtree.spoon.diff.operations.InsertOperation;
 import gumtree.spoon.diff.operations.MoveOperation;
 import gumtree.spoon.diff.operations.Operation;
 import gumtree.spoon.diff.operations.UpdateOperation;
-import spoon.Launcher;
 import spoon.reflect.declaration.CtElement;
 
 public abstract class EditScriptBasedDetector extends FeatureAnalyzer {
@@ -43,18 +43,13 @@ public abstract class EditScriptBasedDetector extends FeatureAnalyzer {
 		System.setProperty("gumtree.match.gt.minh", "1");
 		System.setProperty("gumtree.match.bu.sim", "0.5");
 
-		JGitBasedDiffAnalyzer jgitDiffAnalyzer = new JGitBasedDiffAnalyzer(this.config.getDiffPath());
+		PatchContext patchContext = this.config.getPatchContext();
 
-		Map<String, List<String>> originalFiles = jgitDiffAnalyzer
-				.getOriginalFiles(this.config.getBuggySourceDirectoryPath());
-		Map<String, List<String>> patchedFiles = jgitDiffAnalyzer
-				.getPatchedFiles(this.config.getBuggySourceDirectoryPath());
+		Map<String, List<String>> originalFiles = patchContext.getOriginalFiles();
+		Map<String, List<String>> patchedFiles = patchContext.getPatchedFiles();
 
-		Launcher oldSpoon = SpoonHelper.initSpoon(originalFiles);
-		Launcher newSpoon = SpoonHelper.initSpoon(patchedFiles);
-
-		Diff editScript = SpoonHelper.getAstDiff(oldSpoon, newSpoon);
-		this.preprocessEditScript(editScript);
+		Diff editScript = SpoonHelper.getAstDiff(originalFiles, patchedFiles);
+		StageProfile.measure("preprocessing", () -> preprocessEditScript(editScript));
 
 		return editScript;
 	}
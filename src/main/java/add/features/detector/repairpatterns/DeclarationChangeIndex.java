@@ -0,0 +1,288 @@
+package add.features.detector.repairpatterns;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import gumtree.spoon.diff.operations.DeleteOperation;
+import gumtree.spoon.diff.operations.InsertOperation;
+import gumtree.spoon.diff.operations.Operation;
+import gumtree.spoon.diff.operations.UpdateOperation;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.code.CtVariableAccess;
+import spoon.reflect.declaration.CtConstructor;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtField;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtParameter;
+import spoon.reflect.declaration.CtVariable;
+
+/**
+ * The declarations inserted, deleted and updated by a list of operations, and the inserted nodes grouped by the
+ * parent they are inserted into.
+ *
+ * The index is built in a single pass over the operations, so that {@link WrongReferenceDetector} answers whether a
+ * variable or a method is newly declared without scanning all the operations for every candidate. The enclosing
+ * method and constructor of each declaration are resolved once, and are still compared with
+ * {@link CtElement#equals}, within the declarations of the same name.
+ */
+@SuppressWarnings("rawtypes")
+public class DeclarationChangeIndex {
+
+	private final Set<String> insertedMethodSignatures = new HashSet<>();
+	// parameters and local variables, by simple name
+	private final Map<String, List<Declaration>> insertedVariables = new HashMap<>();
+	private final Map<String, List<Declaration>> deletedVariables = new HashMap<>();
+	private final Set<String> insertedFields = new HashSet<>();
+	private final Set<String> deletedFields = new HashSet<>();
+	// by simple name of the original declaration, then by simple name of the new one
+	private final Map<String, Map<String, List<UpdatedDeclaration>>> updatedDeclarations = new HashMap<>();
+	// inserted and deleted parameters, by simple name of the method or constructor of the original version
+	private final Map<String, List<Operation>> parameterChanges = new HashMap<>();
+	private final Map<CtElement, List<InsertOperation>> insertionsByParent = new IdentityHashMap<>();
+
+	public DeclarationChangeIndex(List<Operation> operations) {
+		for (Operation operation : operations) {
+			if (operation instanceof InsertOperation) {
+				indexInsertion((InsertOperation) operation);
+			} else if (operation instanceof DeleteOperation) {
+				indexDeletion(operation);
+			} else if (operation instanceof UpdateOperation) {
+				indexUpdate(operation);
+			}
+		}
+	}
+
+	private void indexInsertion(InsertOperation operation) {
+		CtElement insertedNode = operation.getSrcNode();
+		insertionsByParent.computeIfAbsent(operation.getParent(), k -> new ArrayList<>()).add(operation);
+
+		if (insertedNode instanceof CtMethod) {
+			insertedMethodSignatures.add(((CtMethod) insertedNode).getSignature());
+		}
+		if (insertedNode instanceof CtParameter || insertedNode instanceof CtLocalVariable) {
+			add(insertedVariables, ((CtVariable) insertedNode).getSimpleName(), new Declaration(insertedNode));
+		}
+		if (insertedNode instanceof CtField) {
+			insertedFields.add(((CtField) insertedNode).getSimpleName());
+		}
+		if (insertedNode instanceof CtParameter) {
+			CtElement oldExecutable = operation.getParent();
+			if (oldExecutable instanceof CtMethod) {
+				add(parameterChanges, ((CtMethod) oldExecutable).getSimpleName(), operation);
+			}
+			if (oldExecutable instanceof CtConstructor) {
+				add(parameterChanges, ((CtConstructor) oldExecutable).getSimpleName(), operation);
+			}
+		}
+	}
+
+	private void indexDeletion(Operation operation) {
+		CtElement deletedNode = operation.getSrcNode();
+		if (deletedNode instanceof CtParameter || deletedNode instanceof CtLocalVariable) {
+			add(deletedVariables, ((CtVariable) deletedNode).getSimpleName(), new Declaration(deletedNode));
+		}
+		if (deletedNode instanceof CtField) {
+			deletedFields.add(((CtField) deletedNode).getSimpleName());
+		}
+		if (deletedNode instanceof CtParameter) {
+			CtMethod oldMethod = deletedNode.getParent(CtMethod.class);
+			CtConstructor oldConstructor = deletedNode.getParent(CtConstructor.class);
+			if (oldMethod != null) {
+				add(parameterChanges, oldMethod.getSimpleName(), operation);
+			}
+			if (oldConstructor != null
+					&& (oldMethod == null || !oldMethod.getSimpleName().equals(oldConstructor.getSimpleName()))) {
+				add(parameterChanges, oldConstructor.getSimpleName(), operation);
+			}
+		}
+	}
+
+	private void indexUpdate(Operation operation) {
+		CtElement originalDeclaration = getVarDeclaration(operation.getSrcNode());
+		CtElement newDeclaration = getVarDeclaration(operation.getDstNode());
+		if (originalDeclaration == null || newDeclaration == null) {
+			return;
+		}
+		boolean sameKind = (originalDeclaration instanceof CtParameter && newDeclaration instanceof CtParameter)
+				|| (originalDeclaration instanceof CtLocalVariable && newDeclaration instanceof CtLocalVariable)
+				|| (originalDeclaration instanceof CtField && newDeclaration instanceof CtField);
+		if (!sameKind) {
+			return;
+		}
+		add(updatedDeclarations
+				.computeIfAbsent(((CtVariable) originalDeclaration).getSimpleName(), k -> new HashMap<>()),
+				((CtVariable) newDeclaration).getSimpleName(),
+				new UpdatedDeclaration(originalDeclaration, newDeclaration));
+	}
+
+	private static <K, V> void add(Map<K, List<V>> map, K key, V value) {
+		map.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+	}
+
+	/**
+	 * @return the closest parameter, local variable or field containing the element (the element itself included),
+	 *         null if there is none
+	 */
+	public static CtElement getVarDeclaration(CtElement input) {
+		CtElement varparent = input;
+		while (varparent != null) {
+			if (varparent instanceof CtParameter || varparent instanceof CtLocalVariable
+					|| varparent instanceof CtField) {
+				return varparent;
+			}
+			varparent = varparent.getParent();
+		}
+		return null;
+	}
+
+	/**
+	 * @return true if a method with the signature of the invoked executable is inserted
+	 */
+	public boolean isMethodInserted(CtInvocation methodcall) {
+		if (insertedMethodSignatures.isEmpty()) {
+			return false;
+		}
+		return insertedMethodSignatures.contains(methodcall.getExecutable().getSignature());
+	}
+
+	/**
+	 * @return true if a field with the name of the variable, or a parameter or local variable with the name of the
+	 *         variable in the method or constructor of the access, is inserted
+	 */
+	public boolean isVariableInserted(CtVariableAccess variableaccess) {
+		return isVariableDeclared(variableaccess, insertedVariables, insertedFields);
+	}
+
+	/**
+	 * @return true if a field with the name of the variable, or a parameter or local variable with the name of the
+	 *         variable in the method or constructor of the access, is deleted
+	 */
+	public boolean isVariableDeleted(CtVariableAccess variableaccess) {
+		return isVariableDeclared(variableaccess, deletedVariables, deletedFields);
+	}
+
+	private static boolean isVariableDeclared(CtVariableAccess variableaccess,
+			Map<String, List<Declaration>> variables, Set<String> fields) {
+		if (variables.isEmpty() && fields.isEmpty()) {
+			return false;
+		}
+		String name = variableaccess.getVariable().getSimpleName();
+		if (fields.contains(name)) {
+			return true;
+		}
+		List<Declaration> declarations = variables.get(name);
+		if (declarations == null) {
+			return false;
+		}
+		CtMethod accessMethod = variableaccess.getParent(CtMethod.class);
+		CtConstructor accessConstructor = variableaccess.getParent(CtConstructor.class);
+		for (Declaration declaration : declarations) {
+			if (declaration.isIn(accessMethod, accessConstructor)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if the declaration of the original variable is updated to the declaration of the new one: two
+	 *         fields, or two parameters or local variables of the methods or constructors of the accesses
+	 */
+	public boolean isDeclarationUpdated(CtVariableAccess varaccessoriginal, CtVariableAccess varaccessnew) {
+		if (updatedDeclarations.isEmpty()) {
+			return false;
+		}
+		Map<String, List<UpdatedDeclaration>> byNewName = updatedDeclarations
+				.get(varaccessoriginal.getVariable().getSimpleName());
+		if (byNewName == null) {
+			return false;
+		}
+		List<UpdatedDeclaration> updates = byNewName.get(varaccessnew.getVariable().getSimpleName());
+		if (updates == null) {
+			return false;
+		}
+		for (UpdatedDeclaration update : updates) {
+			if (update.isField) {
+				return true;
+			}
+		}
+		CtMethod originalMethod = varaccessoriginal.getParent(CtMethod.class);
+		CtConstructor originalConstructor = varaccessoriginal.getParent(CtConstructor.class);
+		CtMethod newMethod = varaccessnew.getParent(CtMethod.class);
+		CtConstructor newConstructor = varaccessnew.getParent(CtConstructor.class);
+		for (UpdatedDeclaration update : updates) {
+			if (update.original.isInMethod(originalMethod) && update.updated.isInMethod(newMethod)) {
+				return true;
+			}
+			if (update.original.isInConstructor(originalConstructor)
+					&& update.updated.isInConstructor(newConstructor)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the insertions and deletions of parameters of a method or constructor with the given name in the
+	 *         original version, in the order of the operations
+	 */
+	public List<Operation> getParameterChanges(String oldExecutableName) {
+		List<Operation> changes = parameterChanges.get(oldExecutableName);
+		return changes == null ? Collections.emptyList() : Collections.unmodifiableList(changes);
+	}
+
+	/**
+	 * @return the insertions into the given parent (compared by identity), in the order of the operations
+	 */
+	public List<InsertOperation> getInsertions(CtElement parent) {
+		List<InsertOperation> insertions = insertionsByParent.get(parent);
+		return insertions == null ? Collections.emptyList() : Collections.unmodifiableList(insertions);
+	}
+
+	/**
+	 * A parameter or local variable, with its enclosing method and constructor.
+	 */
+	private static class Declaration {
+
+		private final CtMethod method;
+		private final CtConstructor constructor;
+
+		Declaration(CtElement declaration) {
+			this.method = declaration.getParent(CtMethod.class);
+			this.constructor = declaration.getParent(CtConstructor.class);
+		}
+
+		boolean isInMethod(CtMethod other) {
+			return method != null && other != null && method.equals(other);
+		}
+
+		boolean isInConstructor(CtConstructor other) {
+			return constructor != null && other != null && constructor.equals(other);
+		}
+
+		boolean isIn(CtMethod otherMethod, CtConstructor otherConstructor) {
+			return isInMethod(otherMethod) || isInConstructor(otherConstructor);
+		}
+	}
+
+	private static class UpdatedDeclaration {
+
+		private final boolean isField;
+		private final Declaration original;
+		private final Declaration updated;
+
+		UpdatedDeclaration(CtElement original, CtElement updated) {
+			this.isField = original instanceof CtField;
+			this.original = isField ? null : new Declaration(original);
+			this.updated = isField ? null : new Declaration(updated);
+		}
+	}
+
+}
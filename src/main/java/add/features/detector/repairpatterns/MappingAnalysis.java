@@ -8,6 +8,7 @@ import com.github.gumtreediff.actions.model.Action;
 import com.github.gumtreediff.actions.model.Addition;
 import com.github.gumtreediff.actions.model.Insert;
 import com.github.gumtreediff.matchers.Mapping;
+import com.github.gumtreediff.matchers.MappingStore;
 import com.github.gumtreediff.tree.ITree;
 
 import gumtree.spoon.builder.SpoonGumTreeBuilder;
@@ -340,26 +341,18 @@ public class MappingAnalysis {
 
 	private static boolean isRightNodeMapped(Diff diff, ITree iTree) {
 
-		for (Mapping map : diff.getMappingsComp().asSet()) {
-			if (map.getSecond().equals(iTree)) {
-				return true;
-			}
-		}
-
-		return false;
+		return diff.getMappingsComp().hasDst(iTree);
 	}
 
 	private static boolean isRightNodeMappedANDallChildren(Diff diff, ITree iTree) {
 
-		for (Mapping map : diff.getMappingsComp().asSet()) {
-			if (map.getSecond().equals(iTree)) {
+		if (diff.getMappingsComp().hasDst(iTree)) {
 
-				for (ITree tc : iTree.getChildren()) {
-					if (!isRightNodeMappedANDallChildren(diff, tc))
-						return false;
-				}
-				return true;
+			for (ITree tc : iTree.getChildren()) {
+				if (!isRightNodeMappedANDallChildren(diff, tc))
+					return false;
 			}
+			return true;
 		}
 
 		return false;
@@ -374,15 +367,15 @@ public class MappingAnalysis {
 
 	public static ITree getLeftFromRightNodeMapped(Diff diff, ITree iTree) {
 
-		for (Mapping map : diff.getMappingsComp().asSet()) {
-			if (map.getSecond().equals(iTree)) {
-				return map.getFirst();
-			}
+		MappingStore mappings = diff.getMappingsComp();
+		ITree left = mappings.getSrc(iTree);
+		if (left != null) {
+			return left;
+		}
 
-			// if it's in left, we return it
-			if (map.getFirst().equals(iTree)) {
-				return iTree;
-			}
+		// if it's in left, we return it
+		if (mappings.hasSrc(iTree)) {
+			return iTree;
 		}
 
 		return null;
@@ -397,15 +390,15 @@ public class MappingAnalysis {
 
 	public static ITree getRightFromLeftNodeMapped(Diff diff, ITree iTree) {
 
-		for (Mapping map : diff.getMappingsComp().asSet()) {
-			if (map.getFirst().equals(iTree)) {
-				return map.getSecond();
-			}
-			// if its in right, we return it
-			if (map.getSecond().equals(iTree)) {
-				return iTree;
-			}
+		MappingStore mappings = diff.getMappingsComp();
+		ITree right = mappings.getDst(iTree);
+		if (right != null) {
+			return right;
+		}
 
+		// if its in right, we return it
+		if (mappings.hasDst(iTree)) {
+			return iTree;
 		}
 
 		return null;
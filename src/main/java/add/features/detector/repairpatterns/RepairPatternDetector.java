@@ -2,17 +2,33 @@ package add.features.detector.repairpatterns;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import add.entities.RepairPatterns;
 import add.features.detector.EditScriptBasedDetector;
+import add.features.detector.spoon.SpoonHelper;
 import add.main.Config;
+import add.main.ExtractorProperties;
+import add.main.StageProfile;
 import gumtree.spoon.diff.Diff;
 import gumtree.spoon.diff.operations.Operation;
 
 public class RepairPatternDetector extends EditScriptBasedDetector {
 
+	public static final String CONCURRENT_DETECTION_PROPERTY = "concurrent_pattern_detection";
+
+	/**
+	 * Runs the pattern detectors of the concurrent detection, all but the first one. It is bounded, so that concurrent
+	 * analyses queue up their detectors instead of starting a thread for each.
+	 */
+	private static final ExecutorService DETECTORS = SpoonHelper.newPool("repair-pattern-detector");
+
 	private RepairPatterns repairPatterns;
 
+	private boolean concurrentDetection = ExtractorProperties.getPropertyBoolean(CONCURRENT_DETECTION_PROPERTY);
+
 	public RepairPatternDetector(Config config, Diff editScript) {
 		super(config, editScript);
 		this.repairPatterns = new RepairPatterns();
@@ -36,10 +52,77 @@ public class RepairPatternDetector extends EditScriptBasedDetector {
 
 		for (AbstractPatternDetector detector : detectors) {
 			detector.setDiff(editScript);
-			detector.detect(this.repairPatterns);
+		}
+
+		if (this.concurrentDetection) {
+			detectConcurrently(detectors);
+		} else {
+			for (AbstractPatternDetector detector : detectors) {
+				StageProfile.measure(getStage(detector), () -> detector.detect(this.repairPatterns));
+			}
 		}
 
 		return this.repairPatterns;
 	}
 
+	/**
+	 * Runs the detectors in parallel, the first one on the calling thread and the others on helper threads.
+	 *
+	 * The detectors only read the edit script and the models, so they can share them; each one writes into its own
+	 * shard of repair patterns, and the shards are merged in the order of the detectors, which gives the same
+	 * counters and the same pattern instances, in the same order, as running the detectors one after the other.
+	 */
+	private void detectConcurrently(List<AbstractPatternDetector> detectors) {
+		List<RepairPatterns> shards = new ArrayList<>();
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 1; i < detectors.size(); i++) {
+			AbstractPatternDetector detector = detectors.get(i);
+			RepairPatterns shard = new RepairPatterns();
+			shards.add(shard);
+			futures.add(DETECTORS.submit(StageProfile.propagate(
+					() -> StageProfile.measure(getStage(detector), () -> detector.detect(shard)))));
+		}
+
+		RepairPatterns firstShard = new RepairPatterns();
+		try {
+			AbstractPatternDetector firstDetector = detectors.get(0);
+			StageProfile.measure(getStage(firstDetector), () -> firstDetector.detect(firstShard));
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while detecting the repair patterns", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			for (Future<?> future : futures) {
+				future.cancel(true);
+			}
+		}
+
+		this.repairPatterns.merge(firstShard);
+		for (RepairPatterns shard : shards) {
+			this.repairPatterns.merge(shard);
+		}
+	}
+
+	private static String getStage(AbstractPatternDetector detector) {
+		return "detector." + detector.getClass().getSimpleName();
+	}
+
+	public boolean isConcurrentDetection() {
+		return concurrentDetection;
+	}
+
+	public void setConcurrentDetection(boolean concurrentDetection) {
+		this.concurrentDetection = concurrentDetection;
+	}
+
 }
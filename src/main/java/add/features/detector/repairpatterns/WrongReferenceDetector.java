@@ -28,7 +28,6 @@ import spoon.reflect.code.CtFieldRead;
 import spoon.reflect.code.CtFieldWrite;
 import spoon.reflect.code.CtInvocation;
 import spoon.reflect.code.CtLiteral;
-import spoon.reflect.code.CtLocalVariable;
 import spoon.reflect.code.CtStatement;
 import spoon.reflect.code.CtTargetedExpression;
 import spoon.reflect.code.CtTypeAccess;
@@ -37,10 +36,8 @@ import spoon.reflect.code.CtVariableRead;
 import spoon.reflect.code.CtVariableWrite;
 import spoon.reflect.declaration.CtConstructor;
 import spoon.reflect.declaration.CtElement;
-import spoon.reflect.declaration.CtField;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtParameter;
-import spoon.reflect.declaration.CtVariable;
 import spoon.reflect.reference.CtTypeReference;
 import spoon.reflect.visitor.filter.LineFilter;
 import spoon.reflect.visitor.filter.TypeFilter;
@@ -59,11 +56,23 @@ public class WrongReferenceDetector extends AbstractPatternDetector {
 
 	private Config config;
 
+	private DeclarationChangeIndex declarationChanges;
+
 	public WrongReferenceDetector(Config config, List<Operation> operations) {
 		super(operations);
 		this.config = config;
 	}
 
+	/**
+	 * @return the declarations changed by the operations, indexed on first use
+	 */
+	private DeclarationChangeIndex getDeclarationChanges() {
+		if (declarationChanges == null) {
+			declarationChanges = new DeclarationChangeIndex(operations);
+		}
+		return declarationChanges;
+	}
+
 	@Override
 	public void detect(RepairPatterns repairPatterns) {
 
@@ -84,46 +93,36 @@ public class WrongReferenceDetector extends AbstractPatternDetector {
 							CtElement newElementReplacementOfTheVar = null;
 							boolean wasVariableWrapped = false;
 							boolean wasVarUnWrapted = false;
-							for (int j = 0; j < operations.size(); j++) {
-								Operation operation2 = operations.get(j);
-								if (operation2 instanceof InsertOperation) {
+							// the insertions into the parent of the deleted node
+							List<InsertOperation> insertionsInParent = getDeclarationChanges()
+									.getInsertions(srcNode.getParent());
+							if (srcNode.getParent() != null) {
+								for (InsertOperation operation2 : insertionsInParent) {
 									CtElement node2 = operation2.getSrcNode();
 									if (node2 instanceof CtInvocation || node2 instanceof CtConstructorCall) {
-										if (((InsertOperation) operation2).getParent() != null) {
-											if (srcNode.getParent() == ((InsertOperation) operation2).getParent()) {
-												wasVariableWrapped = whethervarwrapped(srcNode, node2);
-												if(wasVariableWrapped)
-													alreadyconsidered.add(node2);
-											}
-										}
+										wasVariableWrapped = whethervarwrapped(srcNode, node2);
+										if(wasVariableWrapped)
+											alreadyconsidered.add(node2);
 									}
 
 									if (node2 instanceof CtVariableAccess || node2 instanceof CtTypeAccess ||
 											node2 instanceof CtInvocation || node2 instanceof CtConstructorCall) {
 										if(srcNode instanceof CtInvocation || srcNode instanceof CtConstructorCall) {
-											if (((InsertOperation) operation2).getParent() != null) {
-												if (srcNode.getParent() == ((InsertOperation) operation2).getParent()) {
-													wasVarUnWrapted = whethervarunwrapped(srcNode, node2);
-													if(wasVarUnWrapted)
-														alreadyconsidered.add(node2);
-												}
-											}
+											wasVarUnWrapted = whethervarunwrapped(srcNode, node2);
+											if(wasVarUnWrapted)
+												alreadyconsidered.add(node2);
 										}
 									}
 								}
 							}
 
-							for (int j = 0; j < operations.size(); j++) {
-								Operation operation2 = operations.get(j);
-								if (operation2 instanceof InsertOperation) {
-									CtElement node2 = operation2.getSrcNode();
+							for (InsertOperation operation2 : insertionsInParent) {
+								CtElement node2 = operation2.getSrcNode();
 
-									if (srcNode.getParent() == ((InsertOperation) operation2).getParent()
-											&& !alreadyconsidered.contains(node2)) {
-										newElementReplacementOfTheVar = node2;
-										alreadyconsidered.add(node2);
-										break;
-									}
+								if (!alreadyconsidered.contains(node2)) {
+									newElementReplacementOfTheVar = node2;
+									alreadyconsidered.add(node2);
+									break;
 								}
 							}
 
@@ -1331,7 +1330,7 @@ public class WrongReferenceDetector extends AbstractPatternDetector {
 			dstInvocation = (CtTargetedExpression) dstNode;
 		}
 
-		for (Operation operation2 : operations) {
+		for (Operation operation2 : getDeclarationChanges().getParameterChanges(srcCallMethodName)) {
 			if (operation2 instanceof InsertOperation) {
 				CtElement insertedNode = operation2.getSrcNode();
 				if (insertedNode instanceof CtParameter) {
@@ -1544,238 +1543,23 @@ public class WrongReferenceDetector extends AbstractPatternDetector {
 	}
 
 	public boolean whethermethodnewlydeclared(CtInvocation methodcall) {
-
-		for (Operation operation2 : operations) {
-			if (operation2 instanceof InsertOperation) {
-				CtElement insertedNode = operation2.getSrcNode();
-
-				if (insertedNode instanceof CtMethod) {
-
-					if(((CtMethod) insertedNode).getSignature().equals(methodcall.getExecutable().getSignature()))
-						return true;
-				}
-			}
-		}
-
-		return false;
+		return getDeclarationChanges().isMethodInserted(methodcall);
 	}
 
 	public boolean whethervariablenewlydeclared(CtVariableAccess variableaccess) {
-
-		for (Operation operation2 : operations) {
-			if (operation2 instanceof InsertOperation) {
-				CtElement insertedNode = operation2.getSrcNode();
-				// See whether a method signature was modified
-				if (insertedNode instanceof CtParameter) {
-
-					if(((CtParameter)insertedNode).getSimpleName().equals(variableaccess.getVariable().getSimpleName())) {
-
-						CtMethod parentParameter = ((CtParameter)insertedNode).getParent(CtMethod.class);
-
-						CtMethod parentVarAccess = variableaccess.getParent(CtMethod.class);
-
-						if(parentParameter!=null && parentVarAccess!=null && parentParameter.equals(parentVarAccess))
-							return true;
-
-						CtConstructor parentParameterConstructor = ((CtParameter)insertedNode).getParent(CtConstructor.class);
-
-						CtConstructor parentVarAccessConstructor = variableaccess.getParent(CtConstructor.class);
-
-						if(parentParameterConstructor!=null && parentVarAccessConstructor!=null &&
-								parentParameterConstructor.equals(parentVarAccessConstructor))
-							return true;
-					}
-				}
-
-				if (insertedNode instanceof CtLocalVariable) {
-
-					if(((CtLocalVariable) insertedNode).getSimpleName().equals(variableaccess.getVariable().getSimpleName())) {
-
-						CtMethod parentLocalVariable = ((CtLocalVariable)insertedNode).getParent(CtMethod.class);
-
-						CtMethod parentVarAccess = variableaccess.getParent(CtMethod.class);
-
-						if(parentLocalVariable!=null && parentVarAccess!=null && parentLocalVariable.equals(parentVarAccess))
-							return true;
-
-						CtConstructor parentLocalVariableConstructor = ((CtLocalVariable)insertedNode).getParent(CtConstructor.class);
-
-						CtConstructor parentVarAccessConstructor = variableaccess.getParent(CtConstructor.class);
-
-						if(parentLocalVariableConstructor!=null && parentVarAccessConstructor!=null &&
-								parentLocalVariableConstructor.equals(parentVarAccessConstructor))
-							return true;
-					}
-				}
-
-				if (insertedNode instanceof CtField) {
-
-					if(((CtField) insertedNode).getSimpleName().equals(variableaccess.getVariable().getSimpleName()))
-						return true;
-				}
-			}
-		}
-
-		return false;
+		return getDeclarationChanges().isVariableInserted(variableaccess);
 	}
 
 	public boolean whethervariabledecalarationdeleted(CtVariableAccess variableaccess) {
-
-		for (Operation operation2 : operations) {
-			if (operation2 instanceof DeleteOperation) {
-				CtElement deleteNode = operation2.getSrcNode();
-				// See whether a method signature was modified
-				if (deleteNode instanceof CtParameter) {
-
-					if(((CtParameter)deleteNode).getSimpleName().equals(variableaccess.getVariable().getSimpleName())) {
-
-						CtMethod parentParameter = ((CtParameter)deleteNode).getParent(CtMethod.class);
-
-						CtMethod parentVarAccess = variableaccess.getParent(CtMethod.class);
-
-						if(parentParameter!=null && parentVarAccess!=null && parentParameter.equals(parentVarAccess))
-							return true;
-
-						CtConstructor parentParameterConstructor = ((CtParameter)deleteNode).getParent(CtConstructor.class);
-
-						CtConstructor parentVarAccessConstructor = variableaccess.getParent(CtConstructor.class);
-
-						if(parentParameterConstructor!=null && parentVarAccessConstructor!=null &&
-								parentParameterConstructor.equals(parentVarAccessConstructor))
-							return true;
-					}
-				}
-
-				if (deleteNode instanceof CtLocalVariable) {
-
-					if(((CtLocalVariable) deleteNode).getSimpleName().equals(variableaccess.getVariable().getSimpleName())) {
-
-						CtMethod parentLocalVariable = ((CtLocalVariable)deleteNode).getParent(CtMethod.class);
-
-						CtMethod parentVarAccess = variableaccess.getParent(CtMethod.class);
-
-						if(parentLocalVariable!=null && parentVarAccess!=null && parentLocalVariable.equals(parentVarAccess))
-							return true;
-
-						CtConstructor parentLocalVariableConstructor = ((CtLocalVariable)deleteNode).getParent(CtConstructor.class);
-
-						CtConstructor parentVarAccessConstructor = variableaccess.getParent(CtConstructor.class);
-
-						if(parentLocalVariableConstructor!=null && parentVarAccessConstructor!=null &&
-								parentLocalVariableConstructor.equals(parentVarAccessConstructor))
-							return true;
-					}
-				}
-
-				if (deleteNode instanceof CtField) {
-
-					if(((CtField) deleteNode).getSimpleName().equals(variableaccess.getVariable().getSimpleName()))
-						return true;
-				}
-			}
-		}
-
-		return false;
+		return getDeclarationChanges().isVariableDeleted(variableaccess);
 	}
 
 	public boolean whethervariableDeclarationUpdated (CtVariableAccess varaccessoriginal, CtVariableAccess varaccessnew) {
-
-		for (Operation operation2 : operations) {
-
-			if (operation2 instanceof UpdateOperation) {
-
-				CtElement srcNode = operation2.getSrcNode();
-				CtElement dstNode = operation2.getDstNode();
-
-				CtElement originalparent=getVarDeclaration(srcNode);
-				CtElement newparent=getVarDeclaration(dstNode);
-
-				if(originalparent!=null && newparent!=null) {
-					if(((CtVariable)originalparent).getSimpleName().equals(varaccessoriginal.getVariable().getSimpleName())
-							&& ((CtVariable)newparent).getSimpleName().equals(varaccessnew.getVariable().getSimpleName())) {
-
-						if(originalparent instanceof CtParameter) {
-							if(newparent instanceof CtParameter) {
-								CtMethod parentParameterOriginal = originalparent.getParent(CtMethod.class);
-
-								CtMethod parentVarAccessOriginal = varaccessoriginal.getParent(CtMethod.class);
-
-								CtMethod parentParameterNew = newparent.getParent(CtMethod.class);
-
-								CtMethod parentVarAccessNew = varaccessnew.getParent(CtMethod.class);
-
-								if(parentParameterOriginal!=null && parentVarAccessOriginal!=null && parentParameterOriginal.equals(parentVarAccessOriginal) &&
-										parentParameterNew!=null && parentVarAccessNew!=null && parentParameterNew.equals(parentVarAccessNew))
-									return true;
-
-								CtConstructor parentParameterOriginalCon = originalparent.getParent(CtConstructor.class);
-
-								CtConstructor parentVarAccessOriginalCon = varaccessoriginal.getParent(CtConstructor.class);
-
-								CtConstructor parentParameterNewCon = newparent.getParent(CtConstructor.class);
-
-								CtConstructor parentVarAccessNewCon = varaccessnew.getParent(CtConstructor.class);
-
-								if(parentParameterOriginalCon!=null && parentVarAccessOriginalCon!=null && parentParameterOriginalCon.equals(parentVarAccessOriginalCon) &&
-										parentParameterNewCon!=null && parentVarAccessNewCon!=null && parentParameterNewCon.equals(parentVarAccessNewCon))
-									return true;
-							}
-						}
-
-						if(originalparent instanceof CtLocalVariable) {
-							if(newparent instanceof CtLocalVariable) {
-								CtMethod parentLocalVariableOriginal = originalparent.getParent(CtMethod.class);
-
-								CtMethod parentVarAccessOriginal = varaccessoriginal.getParent(CtMethod.class);
-
-								CtMethod parentLocalVariableNew = newparent.getParent(CtMethod.class);
-
-								CtMethod parentVarAccessNew = varaccessnew.getParent(CtMethod.class);
-
-								if(parentLocalVariableOriginal!=null && parentVarAccessOriginal!=null && parentLocalVariableOriginal.equals(parentVarAccessOriginal) &&
-										parentLocalVariableNew!=null && parentVarAccessNew!=null && parentLocalVariableNew.equals(parentVarAccessNew))
-									return true;
-
-								CtConstructor parentLocalVariableOriginalCon = originalparent.getParent(CtConstructor.class);
-
-								CtConstructor parentVarAccessOriginalCon = varaccessoriginal.getParent(CtConstructor.class);
-
-								CtConstructor parentLocalVariableNewCon = newparent.getParent(CtConstructor.class);
-
-								CtConstructor parentVarAccessNewCon = varaccessnew.getParent(CtConstructor.class);
-
-								if(parentLocalVariableOriginalCon!=null && parentVarAccessOriginalCon!=null && parentLocalVariableOriginalCon.equals(parentVarAccessOriginalCon) &&
-										parentLocalVariableNewCon!=null && parentVarAccessNewCon!=null && parentLocalVariableNewCon.equals(parentVarAccessNewCon))
-									return true;
-							}
-						}
-
-						if(originalparent instanceof CtField) {
-							if(newparent instanceof CtField) {
-								return true;
-							}
-						}
-
-					}
-				}
-			}
-		}
-
-		return false;
+		return getDeclarationChanges().isDeclarationUpdated(varaccessoriginal, varaccessnew);
 	}
 
 	public CtElement getVarDeclaration (CtElement input) {
-
-		CtElement varparent=input;
-
-		while(varparent!=null) {
-			if(varparent instanceof CtParameter || varparent instanceof CtLocalVariable || varparent instanceof CtField) {
-				return varparent;
-			}
-			else varparent = varparent.getParent();
-		}
-
-		return null;
+		return DeclarationChangeIndex.getVarDeclaration(input);
 	}
 
 	private boolean whethervarwrapped(CtElement srcNode, CtElement node2) {
@@ -0,0 +1,437 @@
+package add.features.detector.spoon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.gumtreediff.actions.ActionGenerator;
+import com.github.gumtreediff.actions.model.Action;
+import com.github.gumtreediff.actions.model.Delete;
+import com.github.gumtreediff.actions.model.Insert;
+import com.github.gumtreediff.actions.model.Move;
+import com.github.gumtreediff.actions.model.Update;
+import com.github.gumtreediff.matchers.Mapping;
+import com.github.gumtreediff.matchers.MappingStore;
+import com.github.gumtreediff.tree.ITree;
+import com.github.gumtreediff.tree.TreeContext;
+import com.github.gumtreediff.tree.TreeUtils;
+
+import add.main.Constants;
+import add.main.ExtractorProperties;
+import gumtree.spoon.builder.SpoonGumTreeBuilder;
+import gumtree.spoon.diff.ActionClassifier;
+import gumtree.spoon.diff.Diff;
+import gumtree.spoon.diff.DiffImpl;
+import gumtree.spoon.diff.operations.DeleteOperation;
+import gumtree.spoon.diff.operations.InsertOperation;
+import gumtree.spoon.diff.operations.MoveOperation;
+import gumtree.spoon.diff.operations.Operation;
+import gumtree.spoon.diff.operations.OperationKind;
+import gumtree.spoon.diff.operations.UpdateOperation;
+import spoon.reflect.declaration.CtElement;
+
+/**
+ * On-disk cache of the GumTree matchings between two versions of a set of sources.
+ *
+ * An entry is keyed by a hash of the content of both versions and of the GumTree settings
+ * (<code>gumtree.match.gt.minh</code> and <code>gumtree.match.bu.sim</code>). It stores the mappings as pairs of
+ * pre-order node indexes, so that they can be reattached to the trees of a freshly built Spoon model. The edit
+ * script is then regenerated from the mappings, as GumTree does after the matching, which is deterministic and cheap
+ * compared to the matching. Since the key covers everything the matching depends on, a miss is computed once by
+ * GumTree and stored as is.
+ *
+ * The cache is enabled by setting the <code>editscript_cache_dir</code> property.
+ */
+public class EditScriptCache {
+	private static Logger LOGGER = LoggerFactory.getLogger(EditScriptCache.class);
+
+	public static final String CACHE_DIRECTORY_PROPERTY = "editscript_cache_dir";
+
+	private static final int MAGIC = 0xADDCAC4E;
+	private static final int FORMAT_VERSION = 1;
+	private static final String FILE_EXTENSION = ".mappings";
+
+	private final File directory;
+
+	public EditScriptCache(File directory) {
+		this.directory = directory;
+		this.directory.mkdirs();
+	}
+
+	/**
+	 * Returns the cache configured in the extractor properties, or null if the cache is disabled.
+	 */
+	public static EditScriptCache fromProperties() {
+		String directory = ExtractorProperties.getProperty(CACHE_DIRECTORY_PROPERTY);
+		if (directory == null || directory.trim().isEmpty()) {
+			return null;
+		}
+		return new EditScriptCache(new File(directory.trim()));
+	}
+
+	public static String computeKey(Map<String, List<String>> originalFiles, Map<String, List<String>> patchedFiles) {
+		MessageDigest digest = newDigest();
+		update(digest, String.valueOf(FORMAT_VERSION));
+		update(digest, System.getProperty("gumtree.match.gt.minh"));
+		update(digest, System.getProperty("gumtree.match.bu.sim"));
+		for (Map<String, List<String>> files : new Map[] { originalFiles, patchedFiles }) {
+			update(digest, String.valueOf(files.size()));
+			for (Map.Entry<String, List<String>> file : new TreeMap<>(files).entrySet()) {
+				update(digest, file.getKey());
+				update(digest, String.valueOf(file.getValue().size()));
+				for (String line : file.getValue()) {
+					update(digest, line);
+				}
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	public static String computeKey(File left, File right) throws IOException {
+		MessageDigest digest = newDigest();
+		update(digest, String.valueOf(FORMAT_VERSION));
+		update(digest, System.getProperty("gumtree.match.gt.minh"));
+		update(digest, System.getProperty("gumtree.match.bu.sim"));
+		for (File file : new File[] { left, right }) {
+			byte[] content = Files.readAllBytes(file.toPath());
+			update(digest, String.valueOf(content.length));
+			digest.update(content);
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Computes the AST diff between the two elements, reusing the cached matching of the key if any.
+	 */
+	public Diff compare(String key, CtElement left, CtElement right) {
+		SpoonGumTreeBuilder scanner = new SpoonGumTreeBuilder();
+		ITree leftTree = scanner.getTree(left);
+		ITree rightTree = scanner.getTree(right);
+		List<ITree> leftNodes = preOrder(leftTree);
+		List<ITree> rightNodes = preOrder(rightTree);
+
+		File entry = new File(this.directory, key + FILE_EXTENSION);
+		if (entry.isFile()) {
+			MappingStore mappings = this.read(entry, leftNodes, rightNodes);
+			if (mappings != null) {
+				// the action generator identifies the nodes by id, as numbered by GumTree before the matching
+				for (ITree tree : new ITree[] { leftTree, rightTree }) {
+					tree.refresh();
+					TreeUtils.postOrderNumbering(tree);
+				}
+				return new CachedDiff(scanner.getTreeContext(), leftTree, rightTree, mappings);
+			}
+		}
+
+		DiffImpl diff = new DiffImpl(scanner.getTreeContext(), leftTree, rightTree);
+		this.write(entry, diff.getMappingsComp(), leftNodes, rightNodes);
+		return diff;
+	}
+
+	/**
+	 * @return the tree context of a diff, whether it was matched by GumTree or read from the cache
+	 */
+	public static TreeContext getContext(Diff diff) {
+		if (diff instanceof CachedDiff) {
+			return ((CachedDiff) diff).getContext();
+		}
+		return ((DiffImpl) diff).getContext();
+	}
+
+	private MappingStore read(File entry, List<ITree> leftNodes, List<ITree> rightNodes) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(entry)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+			// the trees must have the same shape as the ones the mappings were computed on
+			if (in.readInt() != leftNodes.size() || in.readInt() != rightNodes.size()) {
+				return null;
+			}
+			MappingStore mappings = new MappingStore();
+			int nbMappings = in.readInt();
+			for (int i = 0; i < nbMappings; i++) {
+				int leftIndex = in.readInt();
+				int rightIndex = in.readInt();
+				if (leftIndex < 0 || leftIndex >= leftNodes.size() || rightIndex < 0 || rightIndex >= rightNodes.size()) {
+					return null;
+				}
+				mappings.link(leftNodes.get(leftIndex), rightNodes.get(rightIndex));
+			}
+			return mappings;
+		} catch (IOException e) {
+			LOGGER.warn("Ignoring unreadable cache entry " + entry + ": " + e.toString());
+			return null;
+		}
+	}
+
+	private void write(File entry, MappingStore mappings, List<ITree> leftNodes, List<ITree> rightNodes) {
+		Map<ITree, Integer> leftIndexes = indexes(leftNodes);
+		Map<ITree, Integer> rightIndexes = indexes(rightNodes);
+		List<int[]> pairs = new ArrayList<>();
+		for (Mapping mapping : mappings.asSet()) {
+			Integer leftIndex = leftIndexes.get(mapping.getFirst());
+			Integer rightIndex = rightIndexes.get(mapping.getSecond());
+			if (leftIndex == null || rightIndex == null) {
+				// mapping on a node outside of the Spoon trees, the matching cannot be reattached
+				return;
+			}
+			pairs.add(new int[] { leftIndex, rightIndex });
+		}
+
+		try {
+			// write then rename, so that concurrent readers never see a partial entry
+			File tmp = File.createTempFile(entry.getName(), ".tmp", this.directory);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(leftNodes.size());
+				out.writeInt(rightNodes.size());
+				out.writeInt(pairs.size());
+				for (int[] pair : pairs) {
+					out.writeInt(pair[0]);
+					out.writeInt(pair[1]);
+				}
+			}
+			Files.move(tmp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOGGER.warn("Cannot write cache entry " + entry + ": " + e.toString());
+		}
+	}
+
+	private static List<ITree> preOrder(ITree root) {
+		List<ITree> nodes = new ArrayList<>();
+		List<ITree> stack = new ArrayList<>();
+		stack.add(root);
+		while (!stack.isEmpty()) {
+			ITree node = stack.remove(stack.size() - 1);
+			nodes.add(node);
+			List<ITree> children = node.getChildren();
+			for (int i = children.size() - 1; i >= 0; i--) {
+				stack.add(children.get(i));
+			}
+		}
+		return nodes;
+	}
+
+	private static Map<ITree, Integer> indexes(List<ITree> nodes) {
+		Map<ITree, Integer> indexes = new IdentityHashMap<>(nodes.size());
+		for (int i = 0; i < nodes.size(); i++) {
+			indexes.put(nodes.get(i), i);
+		}
+		return indexes;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+		digest.update(Constants.LINE_BREAK.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder output = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			output.append(String.format("%02x", b));
+		}
+		return output.toString();
+	}
+
+	/**
+	 * A diff whose edit script is generated from known mappings instead of being matched by GumTree. It only holds
+	 * what ADD reads from a diff: the operations, the mappings and the tree context. The other queries of
+	 * {@link Diff} are answered from them as {@link DiffImpl} does.
+	 */
+	static class CachedDiff implements Diff {
+
+		private final TreeContext context;
+		private final MappingStore mappings;
+		private final List<Operation> allOperations;
+		private final List<Operation> rootOperations;
+
+		CachedDiff(TreeContext context, ITree leftTree, ITree rightTree, MappingStore mappings) {
+			this.context = context;
+			this.mappings = mappings;
+
+			ActionGenerator actionGenerator = new ActionGenerator(leftTree, rightTree, mappings);
+			actionGenerator.generate();
+			// the classifier writes the destination nodes in the metadata: it must run before the conversion
+			ActionClassifier actionClassifier = new ActionClassifier(mappings.asSet(), actionGenerator.getActions());
+			this.rootOperations = convertToSpoon(actionClassifier.getRootActions());
+			this.allOperations = convertToSpoon(actionGenerator.getActions());
+		}
+
+		private static List<Operation> convertToSpoon(List<Action> actions) {
+			List<Operation> operations = new ArrayList<>(actions.size());
+			for (Action action : actions) {
+				if (action instanceof Insert) {
+					operations.add(new InsertOperation((Insert) action));
+				} else if (action instanceof Delete) {
+					operations.add(new DeleteOperation((Delete) action));
+				} else if (action instanceof Update) {
+					operations.add(new UpdateOperation((Update) action));
+				} else if (action instanceof Move) {
+					operations.add(new MoveOperation((Move) action));
+				} else {
+					throw new IllegalArgumentException("Unsupported action " + action.getClass());
+				}
+			}
+			return operations;
+		}
+
+		@Override
+		public List<Operation> getAllOperations() {
+			return allOperations;
+		}
+
+		@Override
+		public List<Operation> getRootOperations() {
+			return rootOperations;
+		}
+
+		@Override
+		public MappingStore getMappingsComp() {
+			return mappings;
+		}
+
+		public TreeContext getContext() {
+			return context;
+		}
+
+		@Override
+		public List<Operation> getOperationChildren(Operation operationParent, List<Operation> rootOperations) {
+			return rootOperations.stream()
+					.filter(operation -> operation.getNode().getParent().equals(operationParent.getNode()))
+					.collect(Collectors.toList());
+		}
+
+		@Override
+		public CtElement changedNode() {
+			if (rootOperations.size() != 1) {
+				throw new IllegalArgumentException("Should have only one root action.");
+			}
+			return commonAncestor();
+		}
+
+		@Override
+		public CtElement changedNode(Class<? extends Operation> operationWanted) {
+			return rootOperations.stream().filter(operation -> operationWanted.isAssignableFrom(operation.getClass()))
+					.findFirst().orElseThrow(NoSuchElementException::new).getNode();
+		}
+
+		@Override
+		public CtElement commonAncestor() {
+			List<CtElement> ancestors = new ArrayList<>();
+			for (Operation operation : rootOperations) {
+				CtElement node = operation.getNode();
+				if (operation instanceof InsertOperation) {
+					// an inserted node is not in the original model: start from the source of its parent
+					node = (CtElement) mappings.getSrc(operation.getAction().getNode().getParent())
+							.getMetadata(SpoonGumTreeBuilder.SPOON_OBJECT);
+				}
+				ancestors.add(node);
+			}
+			while (ancestors.size() >= 2) {
+				CtElement first = ancestors.remove(0);
+				CtElement second = ancestors.remove(0);
+				ancestors.add(commonAncestor(first, second));
+			}
+			return ancestors.get(0);
+		}
+
+		private static CtElement commonAncestor(CtElement first, CtElement second) {
+			for (CtElement ancestor = first; ancestor != null; ancestor = ancestor.getParent()) {
+				for (CtElement other = second; other != null; other = other.getParent()) {
+					if (ancestor == other) {
+						return ancestor;
+					}
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public boolean containsOperation(OperationKind kind, String nodeKind) {
+			return containsOperations(rootOperations, kind, nodeKind);
+		}
+
+		@Override
+		public boolean containsOperation(OperationKind kind, String nodeKind, String nodeLabel) {
+			return containsOperations(rootOperations, kind, nodeKind, nodeLabel);
+		}
+
+		public boolean containsOperation(OperationKind kind, String nodeKind, String nodeLabel, String newLabel) {
+			return rootOperations.stream().anyMatch(operation -> isOperation(operation, kind, nodeKind)
+					&& operation.getAction().getNode().getLabel().equals(nodeLabel)
+					&& operation.getAction() instanceof Update
+					&& ((Update) operation.getAction()).getValue().equals(newLabel));
+		}
+
+		@Override
+		public boolean containsOperations(List<Operation> operations, OperationKind kind, String nodeKind,
+				String nodeLabel) {
+			return operations.stream().anyMatch(operation -> isOperation(operation, kind, nodeKind)
+					&& operation.getAction().getNode().getLabel().equals(nodeLabel));
+		}
+
+		public boolean containsOperations(List<Operation> operations, OperationKind kind, String nodeKind) {
+			return operations.stream().anyMatch(operation -> isOperation(operation, kind, nodeKind));
+		}
+
+		private boolean isOperation(Operation operation, OperationKind kind, String nodeKind) {
+			return operation.getAction().getClass().getSimpleName().equals(kind.name())
+					&& context.getTypeLabel(operation.getAction().getNode()).equals(nodeKind);
+		}
+
+		@Override
+		public void debugInformation() {
+			StringBuilder output = new StringBuilder();
+			for (Operation operation : rootOperations) {
+				ITree node = operation.getAction().getNode();
+				String label = "\"" + node.getLabel() + "\"";
+				if (operation instanceof UpdateOperation) {
+					label += " to \"" + ((Update) operation.getAction()).getValue() + "\"";
+				}
+				String nodeType = context.getTypeLabel(node.getType());
+				if (operation.getNode() != null) {
+					nodeType += "(" + operation.getNode().getClass().getSimpleName() + ")";
+				}
+				output.append("\"").append(operation.getAction().getClass().getSimpleName()).append("\", \"")
+						.append(nodeType).append("\", ").append(label).append(" (size: ")
+						.append(node.getDescendants().size()).append(")").append(node.toTreeString());
+			}
+			System.err.println(output);
+		}
+
+		@Override
+		public String toString() {
+			return rootOperations.toString();
+		}
+	}
+
+}
@@ -5,6 +5,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import add.features.utils.TypeLattice;
+
 import spoon.reflect.code.BinaryOperatorKind;
 import spoon.reflect.code.CtArrayRead;
 import spoon.reflect.code.CtBinaryOperator;
@@ -145,7 +147,7 @@ public class LogicalExpressionAnalyzer {
 		   CtExpression exper= (CtExpression) currentexpression;
 		   try {
 		      if (exper.getType() != null
-				&& exper.getType().unbox().toString().equals("boolean")) {
+				&& TypeLattice.isBoolean(exper.getType())) {
 			  return true;
 		     }
 		   } catch (Exception e) {
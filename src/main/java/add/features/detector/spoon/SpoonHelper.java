@@ -3,11 +3,19 @@ package add.features.detector.spoon;
 import java.io.File;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import add.main.Constants;
+import add.main.SourceLoader;
+import add.main.StageProfile;
 import gumtree.spoon.AstComparator;
 import gumtree.spoon.diff.Diff;
 import gumtree.spoon.diff.operations.Operation;
@@ -21,15 +29,19 @@ import spoon.support.compiler.VirtualFile;
 public class SpoonHelper {
 	private static Logger LOGGER = LoggerFactory.getLogger(SpoonHelper.class);
 
+	/**
+	 * Builds the original models while the calling threads build the patched ones. It is bounded, so that concurrent
+	 * callers queue up instead of building more models than there are processors.
+	 */
+	private static final ExecutorService MODEL_BUILDER = newPool("spoon-model-builder");
+
 	public static Launcher initSpoon(Map<String, List<String>> files) {
 		Launcher spoon = new Launcher();
 		spoon.getEnvironment().setNoClasspath(true);
 		spoon.getEnvironment().setAutoImports(false);
 		spoon.getEnvironment().setCommentEnabled(false);
 		for (String path : files.keySet()) {
-			String fileContent = String.join(Constants.LINE_BREAK, files.get(path))
-					.replace("import javax.annotation.Nullable", "// import javax.annotation.Nullable")
-					.replace("import javax.annotation.CheckForNull", "// import javax.annotation.CheckForNull");
+			String fileContent = SourceLoader.toSpoonSource(files.get(path));
 			VirtualFile virtualFile = new VirtualFile(fileContent, new File(path).getAbsolutePath());
 			spoon.getModelBuilder().addInputSource(virtualFile);
 		}
@@ -38,6 +50,47 @@ public class SpoonHelper {
 		return spoon;
 	}
 
+	/**
+	 * Builds the models of the original and of the patched files in parallel, the original one on a helper
+	 * thread and the patched one on the calling thread, and returns their AST diff.
+	 *
+	 * Both models only contain the files touched by the patch, so no compilation unit can be shared between them;
+	 * building them concurrently halves the model building latency of a bug instead.
+	 */
+	public static Diff getAstDiff(Map<String, List<String>> originalFiles, Map<String, List<String>> patchedFiles) {
+		Future<Launcher> oldSpoonFuture = MODEL_BUILDER.submit(StageProfile.propagate(
+				() -> StageProfile.measure("modelBuild.old", () -> initSpoon(originalFiles))));
+		Launcher newSpoon;
+		try {
+			newSpoon = StageProfile.measure("modelBuild.new", () -> initSpoon(patchedFiles));
+		} catch (RuntimeException e) {
+			oldSpoonFuture.cancel(true);
+			throw e;
+		}
+		Launcher oldSpoon;
+		try {
+			oldSpoon = oldSpoonFuture.get();
+		} catch (InterruptedException e) {
+			oldSpoonFuture.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while building the original model", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		EditScriptCache cache = EditScriptCache.fromProperties();
+		if (cache != null) {
+			return StageProfile.measure("astDiff", () -> cache.compare(EditScriptCache.computeKey(originalFiles, patchedFiles),
+					oldSpoon.getFactory().getModel().getRootPackage(), newSpoon.getFactory().getModel().getRootPackage()));
+		}
+		return StageProfile.measure("astDiff", () -> getAstDiff(oldSpoon, newSpoon));
+	}
+
 	public static Diff getAstDiff(Launcher oldSpoon, Launcher newSpoon) {
 		AstComparator diff = new AstComparator();
 		return diff.compare(oldSpoon.getFactory().getModel().getRootPackage(),
@@ -70,4 +123,20 @@ public class SpoonHelper {
 		}
 	}
 
+	/**
+	 * @return a pool of one daemon thread per processor, numbered after the given prefix, whose idle threads stop
+	 */
+	public static ExecutorService newPool(String name) {
+		int nbThreads = Runtime.getRuntime().availableProcessors();
+		AtomicInteger threadCounter = new AtomicInteger();
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(nbThreads, nbThreads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, name + "-" + threadCounter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
 }
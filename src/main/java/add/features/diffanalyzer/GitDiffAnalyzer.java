@@ -0,0 +1,167 @@
+package add.features.diffanalyzer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.patch.Patch;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+
+import add.main.SourceLoader;
+import add.main.Utils;
+
+/**
+ * Computes the {@link PatchContext} of a commit straight from the object database of a Git repository, without any
+ * checkout nor diff file.
+ *
+ * The diff between the commit and its parent is formatted in memory and parsed by {@link JGitBasedDiffAnalyzer}, so
+ * the changes are the same as the ones of a diff file produced by <code>git diff</code>. The original and the patched
+ * files are read from the blobs of the two commits. Like for the diff files, only the modified and deleted
+ * <code>.java</code> files are analyzed, and they are named after their path in the repository, under the path of
+ * the repository.
+ */
+public class GitDiffAnalyzer implements AutoCloseable {
+
+    private static final String JAVA_SUFFIX = ".java";
+
+    private final Repository repository;
+    private final String projectRoot;
+    private final boolean closeRepository;
+
+    /**
+     * Opens the repository containing the given directory, which may be a working tree or a bare repository.
+     */
+    public GitDiffAnalyzer(String repositoryPath) throws IOException {
+        this(openRepository(repositoryPath), repositoryPath, true);
+    }
+
+    /**
+     * Analyzes the commits of an already opened repository, which is not closed by {@link #close()}.
+     */
+    public GitDiffAnalyzer(Repository repository, String repositoryPath) {
+        this(repository, repositoryPath, false);
+    }
+
+    private GitDiffAnalyzer(Repository repository, String repositoryPath, boolean closeRepository) {
+        this.repository = repository;
+        this.projectRoot = new File(repositoryPath).getAbsolutePath();
+        this.closeRepository = closeRepository;
+    }
+
+    private static Repository openRepository(String repositoryPath) throws IOException {
+        FileRepositoryBuilder builder = new FileRepositoryBuilder().findGitDir(new File(repositoryPath));
+        if (builder.getGitDir() == null) {
+            throw new RepositoryNotFoundException(repositoryPath);
+        }
+        return builder.setMustExist(true).build();
+    }
+
+    public Repository getRepository() {
+        return repository;
+    }
+
+    public String getProjectRoot() {
+        return projectRoot;
+    }
+
+    /**
+     * @param oldRevision the revision the commit is compared to, its first parent when null
+     */
+    public PatchContext getPatchContext(String oldRevision, String newRevision) throws IOException {
+        try (RevWalk walk = new RevWalk(repository)) {
+            RevCommit newCommit = walk.parseCommit(resolve(newRevision));
+            RevCommit oldCommit;
+            if (oldRevision != null) {
+                oldCommit = walk.parseCommit(resolve(oldRevision));
+            } else if (newCommit.getParentCount() > 0) {
+                oldCommit = walk.parseCommit(newCommit.getParent(0));
+            } else {
+                oldCommit = null;
+            }
+            return getPatchContext(oldCommit, newCommit);
+        }
+    }
+
+    private ObjectId resolve(String revision) throws IOException {
+        ObjectId id = repository.resolve(revision + "^{commit}");
+        if (id == null) {
+            throw new IOException("Unknown revision " + revision + " in " + repository.getDirectory());
+        }
+        return id;
+    }
+
+    /**
+     * @param oldCommit the commit the new one is compared to, null for the empty tree
+     */
+    public PatchContext getPatchContext(RevCommit oldCommit, RevCommit newCommit) throws IOException {
+        Map<String, List<String>> originalFiles = new HashMap<>();
+        Map<String, List<String>> patchedFiles = new HashMap<>();
+        ByteArrayOutputStream diff = new ByteArrayOutputStream();
+
+        try (ObjectReader reader = repository.newObjectReader();
+                DiffFormatter formatter = new DiffFormatter(diff)) {
+            formatter.setRepository(repository);
+            formatter.setDetectRenames(false);
+            formatter.setPathFilter(PathSuffixFilter.create(JAVA_SUFFIX));
+
+            AbstractTreeIterator oldTree = oldCommit == null ? new EmptyTreeIterator()
+                    : new CanonicalTreeParser(null, reader, oldCommit.getTree());
+            AbstractTreeIterator newTree = new CanonicalTreeParser(null, reader, newCommit.getTree());
+            List<DiffEntry> entries = formatter.scan(oldTree, newTree);
+            formatter.format(entries);
+
+            for (DiffEntry entry : entries) {
+                // the added files have no original version, so they are ignored, like in a diff file
+                if (entry.getChangeType() == DiffEntry.ChangeType.ADD) {
+                    continue;
+                }
+                String fileName = Utils.getFullPath(projectRoot, entry.getOldPath());
+                originalFiles.put(fileName, readLines(reader, entry.getOldId()));
+                if (entry.getChangeType() == DiffEntry.ChangeType.DELETE) {
+                    patchedFiles.put(fileName, LineStore.of(""));
+                } else {
+                    patchedFiles.put(fileName, readLines(reader, entry.getNewId()));
+                }
+            }
+        }
+
+        Patch patch = new Patch();
+        patch.parse(new ByteArrayInputStream(diff.toByteArray()));
+        JGitBasedDiffAnalyzer jgitDiffAnalyzer = new JGitBasedDiffAnalyzer(patch);
+        Changes changes = jgitDiffAnalyzer.analyze();
+
+        String description = (oldCommit == null ? "" : oldCommit.name()) + ".." + newCommit.name();
+        return new PatchContext(description, projectRoot, changes, jgitDiffAnalyzer.getNbFiles(), originalFiles,
+                patchedFiles);
+    }
+
+    private static LineStore readLines(ObjectReader reader, AbbreviatedObjectId id) throws IOException {
+        byte[] content = reader.open(id.toObjectId()).getCachedBytes(Integer.MAX_VALUE);
+        return LineStore.of(SourceLoader.decode(content));
+    }
+
+    @Override
+    public void close() {
+        if (closeRepository) {
+            repository.close();
+        }
+    }
+
+}
@@ -0,0 +1,15 @@
+package add.features.diffanalyzer;
+
+/**
+ * Thrown when a diff does not apply on the original files, i.e. when a context or a removed line of a hunk does not
+ * match the original file.
+ */
+public class InvalidDiffException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidDiffException() {
+        super("Invalid diff");
+    }
+
+}
@@ -2,17 +2,17 @@ package add.features.diffanalyzer;
 
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.eclipse.jgit.diff.Edit;
 import org.eclipse.jgit.diff.EditList;
-import org.eclipse.jgit.diff.RawText;
 import org.eclipse.jgit.patch.FileHeader;
 import org.eclipse.jgit.patch.HunkHeader;
 import org.eclipse.jgit.patch.Patch;
+import org.eclipse.jgit.util.RawParseUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,13 +26,20 @@ public class JGitBasedDiffAnalyzer {
 
     public JGitBasedDiffAnalyzer(String diffPath) {
         this.patch = new Patch();
-        try {
-            patch.parse(new FileInputStream(diffPath));
+        try (InputStream diff = new FileInputStream(diffPath)) {
+            patch.parse(diff);
         } catch (IOException e) {
             LOGGER.error(e.toString());
         }
     }
 
+    /**
+     * Analyzes an already parsed patch, such as the one of a commit computed in memory (see {@link GitDiffAnalyzer}).
+     */
+    public JGitBasedDiffAnalyzer(Patch patch) {
+        this.patch = patch;
+    }
+
     public Changes analyze() {
         Changes changes = new Changes();
         this.nbFiles = patch.getFiles().size();
@@ -79,61 +86,90 @@ public class JGitBasedDiffAnalyzer {
     }
 
     public Map<String, List<String>> getPatchedFiles(String projectRoot) {
-        Map<String, List<String>> output = getOriginalFiles(projectRoot);
+        return getPatchedFiles(getOriginalFiles(projectRoot), projectRoot);
+    }
+
+    /**
+     * Applies the patch on already loaded original files, which are left untouched.
+     *
+     * The patched files are {@link PatchedLines} sharing the lines of the original files, which must not be modified
+     * afterwards, and the lines added by the patch are read from its buffer.
+     */
+    public Map<String, List<String>> getPatchedFiles(Map<String, List<String>> originalFiles, String projectRoot) {
+        Map<String, List<String>> output = new HashMap<>(originalFiles);
         for (int i = 0; i < patch.getFiles().size(); i++) {
             FileHeader fileHeader = patch.getFiles().get(i);
             String fileName = Utils.getFullPath(projectRoot, fileHeader.getOldPath().trim());
             if (!output.containsKey(fileName)) {
                 continue;
             }
+            PatchedLines.Builder patchedFile = new PatchedLines.Builder(output.get(fileName), fileHeader.getBuffer());
             for (HunkHeader hh : fileHeader.getHunks()) {
-                byte[] b = new byte[hh.getEndOffset() - hh.getStartOffset()];
-                System.arraycopy(hh.getBuffer(), hh.getStartOffset(), b, 0, b.length);
-                RawText hrt = new RawText(b);
-                List<String> hunkLines = new ArrayList(hrt.size());
-
+                applyHunk(hh, patchedFile);
+            }
+            output.put(fileName, patchedFile.build());
+        }
+        return output;
+    }
 
-                for (int pos = 0; pos < hrt.size(); ++pos) {
-                    hunkLines.add(hrt.getString(pos));
-                }
+    private void applyHunk(HunkHeader hh, PatchedLines.Builder patchedFile) {
+        byte[] buffer = hh.getBuffer();
+        int end = hh.getEndOffset();
+        if (hh.getNewStartLine() != 0) {
+            // a hunk without new lines starts after its new start line
+            int newStart = hh.getNewLineCount() == 0 ? hh.getNewStartLine() : hh.getNewStartLine() - 1;
+            patchedFile.copyUntil(newStart);
+        }
 
-                int pos = 0;
-                for (int j = 1; j < hunkLines.size(); ++j) {
-                    String hunkLine = hunkLines.get(j).replace("\r", "");
-                    if (hunkLine.isEmpty()) {
-                        ++pos;
-                        continue;
-                    }
-                    switch (hunkLine.charAt(0)) {
-                        case ' ':
-                            if (!hunkLine.substring(1).equals(output.get(fileName).get(hh.getNewStartLine() - 1 + pos))) {
-                                throw new RuntimeException("Invalid diff");
-                            }
-                            ++pos;
-                            break;
-                        case '+':
-                            int index = hh.getNewStartLine() - 1 + pos;
-                            output.get(fileName).add(index, hunkLine.substring(1));
-                            ++pos;
-                            break;
-                        case '-':
-                            if (hh.getNewStartLine() == 0) {
-                                output.get(fileName).clear();
-                            } else {
-                                index = hh.getNewStartLine() - 1 + pos;
-                                if (pos == 0 && hh.getNewLineCount() == 0) {
-                                    index++;
-                                }
-                                if (!hunkLine.substring(1).equals(output.get(fileName).get(index))) {
-                                    throw new RuntimeException("Invalid diff");
-                                }
-                                output.get(fileName).remove(index);
-                            }
-                    }
+        // the first line is the header of the hunk
+        int lineStart = nextLine(buffer, hh.getStartOffset(), end);
+        while (lineStart < end) {
+            int lineEnd = endOfLine(buffer, lineStart, end);
+            // the carriage returns are ignored
+            int tag = lineStart;
+            while (tag < lineEnd && buffer[tag] == '\r') {
+                ++tag;
+            }
+            if (tag == lineEnd) {
+                patchedFile.copy(1);
+            } else {
+                switch (buffer[tag]) {
+                    case ' ':
+                        checkLine(buffer, tag + 1, lineEnd, patchedFile.nextOriginalLine());
+                        patchedFile.copy(1);
+                        break;
+                    case '+':
+                        patchedFile.add(tag + 1, lineEnd);
+                        break;
+                    case '-':
+                        if (hh.getNewStartLine() == 0) {
+                            patchedFile.clear();
+                        } else {
+                            checkLine(buffer, tag + 1, lineEnd, patchedFile.nextOriginalLine());
+                            patchedFile.skip(1);
+                        }
                 }
             }
+            lineStart = lineEnd + 1;
         }
-        return output;
+    }
+
+    private static void checkLine(byte[] buffer, int start, int end, String expectedLine) {
+        if (!RawParseUtils.decode(buffer, start, end).replace("\r", "").equals(expectedLine)) {
+            throw new InvalidDiffException();
+        }
+    }
+
+    private static int endOfLine(byte[] buffer, int start, int end) {
+        int lineEnd = start;
+        while (lineEnd < end && buffer[lineEnd] != '\n') {
+            ++lineEnd;
+        }
+        return lineEnd;
+    }
+
+    private static int nextLine(byte[] buffer, int start, int end) {
+        return Math.min(endOfLine(buffer, start, end) + 1, end);
     }
 
     public int getNbFiles() {
@@ -0,0 +1,163 @@
+package add.features.diffanalyzer;
+
+import java.nio.CharBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The lines of a file, as an immutable list over a single char buffer.
+ *
+ * The buffer holds the whole content of the file, and the lines are the ranges of the buffer between the line
+ * terminators, recorded in an offset array when the store is created. The strings of the lines are only created when
+ * they are read, and {@link #join} copies the ranges into the result without creating them.
+ */
+public final class LineStore extends AbstractList<String> implements RandomAccess {
+
+    private final char[] buffer;
+    // the start and the end of the line i are at 2 * i and 2 * i + 1
+    private final int[] offsets;
+    private final int size;
+
+    private LineStore(char[] buffer, int[] offsets, int size) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    /**
+     * Splits the content into lines like {@link java.io.BufferedReader#readLine()}: the lines are terminated by
+     * "\n", "\r" or "\r\n", and the terminators are not part of the lines. The buffer is not copied, and must not be
+     * modified afterwards.
+     */
+    public static LineStore of(char[] buffer, int offset, int length) {
+        int end = offset + length;
+        int[] offsets = new int[16];
+        int size = 0;
+        int start = offset;
+        int i = offset;
+        while (i < end) {
+            char c = buffer[i];
+            if (c != '\n' && c != '\r') {
+                i++;
+                continue;
+            }
+            if (2 * size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[2 * size] = start;
+            offsets[2 * size + 1] = i;
+            size++;
+            i += (c == '\r' && i + 1 < end && buffer[i + 1] == '\n') ? 2 : 1;
+            start = i;
+        }
+        if (start < end) {
+            if (2 * size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length + 2);
+            }
+            offsets[2 * size] = start;
+            offsets[2 * size + 1] = end;
+            size++;
+        }
+        return new LineStore(buffer, offsets, size);
+    }
+
+    /**
+     * @return the lines of the remaining content of the buffer, which must be backed by an array
+     */
+    public static LineStore of(CharBuffer content) {
+        return of(content.array(), content.arrayOffset() + content.position(), content.remaining());
+    }
+
+    public static LineStore of(String content) {
+        char[] buffer = content.toCharArray();
+        return of(buffer, 0, buffer.length);
+    }
+
+    @Override
+    public String get(int index) {
+        checkIndex(index);
+        return new String(buffer, offsets[2 * index], offsets[2 * index + 1] - offsets[2 * index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of characters of the line
+     */
+    public int length(int index) {
+        checkIndex(index);
+        return offsets[2 * index + 1] - offsets[2 * index];
+    }
+
+    /**
+     * Appends the line to the builder, without creating its string.
+     */
+    public void appendTo(StringBuilder builder, int index) {
+        checkIndex(index);
+        builder.append(buffer, offsets[2 * index], offsets[2 * index + 1] - offsets[2 * index]);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * @return the lines joined with the separator, like {@link String#join}, but copying the lines of the line stores
+     *         and of the patched files directly from their buffers
+     */
+    public static String join(String separator, List<String> lines) {
+        if (!(lines instanceof LineStore) && !(lines instanceof PatchedLines)) {
+            return String.join(separator, lines);
+        }
+        StringBuilder builder = new StringBuilder(estimateLength(separator, lines));
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) {
+                builder.append(separator);
+            }
+            appendLine(builder, lines, i);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Appends a line of the list to the builder, copying it directly from its buffer if the list is a line store or
+     * a patched file.
+     */
+    public static void appendLine(StringBuilder builder, List<String> lines, int index) {
+        if (lines instanceof LineStore) {
+            ((LineStore) lines).appendTo(builder, index);
+        } else if (lines instanceof PatchedLines) {
+            ((PatchedLines) lines).appendTo(builder, index);
+        } else {
+            builder.append(lines.get(index));
+        }
+    }
+
+    /**
+     * @return a capacity for the builder of the lines joined with the separator
+     */
+    public static int estimateLength(String separator, List<String> lines) {
+        if (lines instanceof PatchedLines) {
+            return ((PatchedLines) lines).estimateLength(separator);
+        }
+        if (!(lines instanceof LineStore)) {
+            return 16;
+        }
+        LineStore store = (LineStore) lines;
+        if (store.size == 0) {
+            return 0;
+        }
+        // the terminators of the lines are replaced by the separator
+        long length = store.offsets[2 * store.size - 1] - store.offsets[0]
+                + (long) separator.length() * (store.size - 1);
+        return (int) Math.min(length, Integer.MAX_VALUE - 8);
+    }
+
+}
@@ -0,0 +1,95 @@
+package add.features.diffanalyzer;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import add.main.StageProfile;
+
+/**
+ * The parsed diff of one bug, together with the content of the files it touches before and after the patch.
+ *
+ * The diff is parsed, the original files are read and the hunks are applied exactly once, when the context is
+ * created; all the analyzers of the bug then share the same read-only view (see {@link add.main.Config#getPatchContext()}).
+ */
+public class PatchContext {
+
+    private final String diffPath;
+    private final String projectRoot;
+    private final Changes changes;
+    private final int nbFiles;
+    private final Map<String, List<String>> originalFiles;
+    private final Map<String, List<String>> patchedFiles;
+
+    public PatchContext(String diffPath, String projectRoot) {
+        this.diffPath = diffPath;
+        this.projectRoot = projectRoot;
+
+        JGitBasedDiffAnalyzer jgitDiffAnalyzer = StageProfile.measure("diffParse",
+                () -> new JGitBasedDiffAnalyzer(diffPath));
+        this.changes = StageProfile.measure("diffChanges", jgitDiffAnalyzer::analyze);
+        this.nbFiles = jgitDiffAnalyzer.getNbFiles();
+
+        Map<String, List<String>> originalFiles = StageProfile.measure("sourceLoad",
+                () -> jgitDiffAnalyzer.getOriginalFiles(projectRoot));
+        Map<String, List<String>> patchedFiles = StageProfile.measure("patchApply",
+                () -> jgitDiffAnalyzer.getPatchedFiles(originalFiles, projectRoot));
+        this.originalFiles = unmodifiable(originalFiles);
+        this.patchedFiles = unmodifiable(patchedFiles);
+    }
+
+    /**
+     * Creates the context of a diff computed elsewhere, such as the one of a commit read from a Git repository (see
+     * {@link GitDiffAnalyzer}).
+     *
+     * @param diffPath a description of the diff, since there is no diff file
+     */
+    public PatchContext(String diffPath, String projectRoot, Changes changes, int nbFiles,
+            Map<String, List<String>> originalFiles, Map<String, List<String>> patchedFiles) {
+        this.diffPath = diffPath;
+        this.projectRoot = projectRoot;
+        this.changes = changes;
+        this.nbFiles = nbFiles;
+        this.originalFiles = unmodifiable(originalFiles);
+        this.patchedFiles = unmodifiable(patchedFiles);
+    }
+
+    private static Map<String, List<String>> unmodifiable(Map<String, List<String>> files) {
+        Map<String, List<String>> output = new LinkedHashMap<>(files.size());
+        for (Map.Entry<String, List<String>> entry : files.entrySet()) {
+            List<String> lines = entry.getValue();
+            // the line stores and the patched files are immutable already
+            if (!(lines instanceof LineStore) && !(lines instanceof PatchedLines)) {
+                lines = Collections.unmodifiableList(lines);
+            }
+            output.put(entry.getKey(), lines);
+        }
+        return Collections.unmodifiableMap(output);
+    }
+
+    public String getDiffPath() {
+        return diffPath;
+    }
+
+    public String getProjectRoot() {
+        return projectRoot;
+    }
+
+    public Changes getChanges() {
+        return changes;
+    }
+
+    public int getNbFiles() {
+        return nbFiles;
+    }
+
+    public Map<String, List<String>> getOriginalFiles() {
+        return originalFiles;
+    }
+
+    public Map<String, List<String>> getPatchedFiles() {
+        return patchedFiles;
+    }
+
+}
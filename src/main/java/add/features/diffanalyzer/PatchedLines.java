@@ -0,0 +1,236 @@
+package add.features.diffanalyzer;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.eclipse.jgit.util.RawParseUtils;
+
+/**
+ * The lines of a patched file, as an immutable piece table.
+ *
+ * The patched file is a sequence of pieces, each one being a range of lines of the original file or a range of the
+ * lines added by the hunks of the patch. The original lines are referenced, not copied, and the added lines are
+ * ranges of the buffer of the patch, decoded when they are read. Building the table is linear in the size of the
+ * patch, and reading a line is a binary search on the pieces.
+ */
+public final class PatchedLines extends AbstractList<String> implements RandomAccess {
+
+    private final List<String> original;
+    private final AddedLines added;
+    // the piece i holds the lines from starts[i] to starts[i + 1] - 1, from the line sourceStarts[i] of its source
+    private final int[] starts;
+    private final int[] sourceStarts;
+    private final boolean[] fromOriginal;
+    private final int pieces;
+
+    private PatchedLines(Builder builder) {
+        this.original = builder.original;
+        this.added = builder.added;
+        this.pieces = builder.pieces;
+        this.starts = Arrays.copyOf(builder.starts, pieces + 1);
+        this.starts[pieces] = builder.size;
+        this.sourceStarts = Arrays.copyOf(builder.sourceStarts, pieces);
+        this.fromOriginal = Arrays.copyOf(builder.fromOriginal, pieces);
+    }
+
+    @Override
+    public String get(int index) {
+        int piece = pieceOf(index);
+        int sourceIndex = sourceStarts[piece] + index - starts[piece];
+        return fromOriginal[piece] ? original.get(sourceIndex) : added.get(sourceIndex);
+    }
+
+    @Override
+    public int size() {
+        return starts[pieces];
+    }
+
+    /**
+     * Appends the line to the builder, without creating its string if it is a line of an original {@link LineStore}.
+     */
+    public void appendTo(StringBuilder builder, int index) {
+        int piece = pieceOf(index);
+        int sourceIndex = sourceStarts[piece] + index - starts[piece];
+        if (fromOriginal[piece] && original instanceof LineStore) {
+            ((LineStore) original).appendTo(builder, sourceIndex);
+        } else {
+            builder.append(get(index));
+        }
+    }
+
+    /**
+     * @return a capacity for the builder of the lines joined with the separator, assuming the added lines are as long
+     *         as the original ones
+     */
+    int estimateLength(String separator) {
+        if (original.isEmpty()) {
+            return 16;
+        }
+        long length = (long) LineStore.estimateLength(separator, original) * size() / original.size();
+        return (int) Math.min(length, Integer.MAX_VALUE - 8);
+    }
+
+    private int pieceOf(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        int piece = Arrays.binarySearch(starts, 0, pieces, index);
+        // the pieces are never empty, so their starts are distinct
+        return piece >= 0 ? piece : -piece - 2;
+    }
+
+    /**
+     * The lines added by the hunks, as ranges of the buffer of the patch.
+     */
+    private static final class AddedLines {
+
+        private final byte[] buffer;
+        // the start and the end of the line i are at 2 * i and 2 * i + 1
+        private int[] offsets = new int[16];
+        private int size;
+
+        AddedLines(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int add(int start, int end) {
+            if (2 * size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[2 * size] = start;
+            offsets[2 * size + 1] = end;
+            return size++;
+        }
+
+        String get(int index) {
+            return RawParseUtils.decode(buffer, offsets[2 * index], offsets[2 * index + 1]).replace("\r", "");
+        }
+    }
+
+    /**
+     * Builds the patched file by walking the original file once: the lines before the position of each hunk are
+     * copied, then the lines of the hunk are copied, added or skipped in order.
+     */
+    static final class Builder {
+
+        private final List<String> original;
+        private final AddedLines added;
+        private int[] starts = new int[16];
+        private int[] sourceStarts = new int[16];
+        private boolean[] fromOriginal = new boolean[16];
+        private int pieces;
+        private int size;
+        // the next line of the original file
+        private int position;
+
+        /**
+         * @param original the lines of the original file; they must not be modified afterwards
+         * @param patchBuffer the buffer of the patch, holding the added lines
+         */
+        Builder(List<String> original, byte[] patchBuffer) {
+            this.original = original instanceof RandomAccess ? original : new ArrayList<>(original);
+            this.added = new AddedLines(patchBuffer);
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return the next line of the original file, the one a context or a removed line of a hunk must match
+         */
+        String nextOriginalLine() {
+            if (position >= original.size()) {
+                throw new InvalidDiffException();
+            }
+            return original.get(position);
+        }
+
+        /**
+         * Copies the next lines of the original file until the patched file has the given number of lines.
+         */
+        void copyUntil(int newSize) {
+            if (newSize < size) {
+                throw new InvalidDiffException();
+            }
+            copy(newSize - size);
+        }
+
+        /**
+         * Copies the next lines of the original file.
+         */
+        void copy(int count) {
+            if (count == 0) {
+                return;
+            }
+            if (position + count > original.size()) {
+                throw new InvalidDiffException();
+            }
+            if (pieces > 0 && fromOriginal[pieces - 1]
+                    && sourceStarts[pieces - 1] + size - starts[pieces - 1] == position) {
+                // the lines follow the last piece in the original file
+                size += count;
+            } else {
+                addPiece(true, position, count);
+            }
+            position += count;
+        }
+
+        /**
+         * Skips the next lines of the original file.
+         */
+        void skip(int count) {
+            if (position + count > original.size()) {
+                throw new InvalidDiffException();
+            }
+            position += count;
+        }
+
+        /**
+         * Adds the line held by the given range of the patch buffer.
+         */
+        void add(int start, int end) {
+            int index = added.add(start, end);
+            if (pieces > 0 && !fromOriginal[pieces - 1]
+                    && sourceStarts[pieces - 1] + size - starts[pieces - 1] == index) {
+                size++;
+            } else {
+                addPiece(false, index, 1);
+            }
+        }
+
+        /**
+         * Removes all the lines of the patched file, and skips the rest of the original file.
+         */
+        void clear() {
+            pieces = 0;
+            size = 0;
+            position = original.size();
+        }
+
+        private void addPiece(boolean isOriginal, int sourceStart, int count) {
+            if (pieces == starts.length) {
+                starts = Arrays.copyOf(starts, pieces * 2);
+                sourceStarts = Arrays.copyOf(sourceStarts, pieces * 2);
+                fromOriginal = Arrays.copyOf(fromOriginal, pieces * 2);
+            }
+            starts[pieces] = size;
+            sourceStarts[pieces] = sourceStart;
+            fromOriginal[pieces] = isOriginal;
+            pieces++;
+            size += count;
+        }
+
+        /**
+         * @return the patched file, with the rest of the original file after the last hunk
+         */
+        PatchedLines build() {
+            copy(original.size() - position);
+            return new PatchedLines(this);
+        }
+    }
+
+}
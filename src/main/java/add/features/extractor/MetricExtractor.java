@@ -13,7 +13,7 @@ import add.entities.Metrics;
 import add.features.FeatureAnalyzer;
 import add.features.diffanalyzer.Change;
 import add.features.diffanalyzer.Changes;
-import add.features.diffanalyzer.JGitBasedDiffAnalyzer;
+import add.features.diffanalyzer.PatchContext;
 import add.main.Config;
 
 import java.util.ArrayList;
@@ -39,26 +39,26 @@ public class MetricExtractor extends FeatureAnalyzer {
 
     @Override
     public Metrics analyze() {
-        JGitBasedDiffAnalyzer jgitDiffAnalyzer = new JGitBasedDiffAnalyzer(this.config.getDiffPath());
+        PatchContext patchContext = this.config.getPatchContext();
 
-        Changes changes = jgitDiffAnalyzer.analyze();
+        Changes changes = patchContext.getChanges();
 
-        this.metrics.setFeatureCounter("nbFiles", jgitDiffAnalyzer.getNbFiles());
+        this.metrics.setFeatureCounter("nbFiles", patchContext.getNbFiles());
 
-        this.computeNbModifiedClassesAndMethods(changes, jgitDiffAnalyzer);
+        this.computeNbModifiedClassesAndMethods(changes, patchContext);
 
-        this.computePatchSize(changes, jgitDiffAnalyzer, false);
+        this.computePatchSize(changes, patchContext, false);
 
-        this.computePatchSize(changes, jgitDiffAnalyzer, true);
+        this.computePatchSize(changes, patchContext, true);
 
         this.computeNbChunks(changes);
 
-        this.computeSpreading(changes, jgitDiffAnalyzer);
+        this.computeSpreading(changes, patchContext);
 
         return metrics;
     }
 
-    public void computeNbModifiedClassesAndMethods(Changes changes, JGitBasedDiffAnalyzer jgitDiffAnalyzer) {
+    public void computeNbModifiedClassesAndMethods(Changes changes, PatchContext patchContext) {
         int nbModifiedClasses = 0;
         int nbModifiedMethods = 0;
 
@@ -68,7 +68,7 @@ public class MetricExtractor extends FeatureAnalyzer {
 
         Map<String, List<String>> modifiedClassesAndMethods = new HashMap<>();
 
-        Map<String, List<String>> patchedFiles = jgitDiffAnalyzer.getPatchedFiles(this.config.getBuggySourceDirectoryPath());
+        Map<String, List<String>> patchedFiles = patchContext.getPatchedFiles();
 
         for (Change change : changes.getNewChanges()) {
             String changedFile = change.getFile();
@@ -140,13 +140,13 @@ public class MetricExtractor extends FeatureAnalyzer {
     /**
      * Count the number of lines added, removed and modified in the patch
      */
-    public void computePatchSize(Changes changes, JGitBasedDiffAnalyzer jgitDiffAnalyzer, boolean codeOnly) {
+    public void computePatchSize(Changes changes, PatchContext patchContext, boolean codeOnly) {
         int patchAddedLines = 0;
         int patchRemovedLines = 0;
         int patchModifiedLines = 0;
 
-        Map<String, List<String>> originalFiles = jgitDiffAnalyzer.getOriginalFiles(this.config.getBuggySourceDirectoryPath());
-        Map<String, List<String>> patchedFiles = jgitDiffAnalyzer.getPatchedFiles(this.config.getBuggySourceDirectoryPath());
+        Map<String, List<String>> originalFiles = patchContext.getOriginalFiles();
+        Map<String, List<String>> patchedFiles = patchContext.getPatchedFiles();
 
         for (Change change : changes.getNewChanges()) {
             int addedLines = change.getLength();
@@ -213,13 +213,13 @@ public class MetricExtractor extends FeatureAnalyzer {
         this.metrics.setFeatureCounter("nbChunks", nbChunks);
     }
 
-    public void computeSpreading(Changes changes, JGitBasedDiffAnalyzer jgitDiffAnalyzer) {
+    public void computeSpreading(Changes changes, PatchContext patchContext) {
         int spreadingAllLines = 0;
         int spreadingCodeOnly = 0;
 
         Set<String> files = new HashSet<>();
-        Map<String, List<String>> originalFiles = jgitDiffAnalyzer.getOriginalFiles(this.config.getBuggySourceDirectoryPath());
-        Map<String, List<String>> patchedFiles = jgitDiffAnalyzer.getPatchedFiles(this.config.getBuggySourceDirectoryPath());
+        Map<String, List<String>> originalFiles = patchContext.getOriginalFiles();
+        Map<String, List<String>> patchedFiles = patchContext.getPatchedFiles();
         files.addAll(originalFiles.keySet());
         files.addAll(patchedFiles.keySet());
 
@@ -0,0 +1,162 @@
+package add.features.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import spoon.reflect.code.CtBlock;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.code.CtStatement;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtVariable;
+import spoon.reflect.declaration.ModifierKind;
+import spoon.reflect.reference.CtFieldReference;
+
+/**
+ * The variables in scope in a class and in its blocks, as returned by
+ * {@link VariableResolver#searchVariablesInScope}.
+ *
+ * The fields visible in a class are resolved once per class, and the local variables of a block are indexed once
+ * per block, with their positions in the block and the local variables visible from its enclosing blocks. Both are
+ * stored in the metadata of the model, so they are shared by all the analyzers of the elements of a class; the
+ * local variables declared before a statement are then found by a binary search on the positions.
+ */
+@SuppressWarnings("rawtypes")
+public class ScopeIndex {
+
+	public static final String FIELDS_METADATA_KEY = "add.scopeindex.fields";
+
+	public static final String BLOCK_METADATA_KEY = "add.scopeindex.block";
+
+	/**
+	 * @return the fields visible in the class: its fields and the non-private fields of its super classes, except
+	 *         <code>serialVersionUID</code>
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<CtVariable> getFieldsInScope(CtClass ctclass) {
+		synchronized (ctclass) {
+			List<CtVariable> fields = (List<CtVariable>) ctclass.getMetadata(FIELDS_METADATA_KEY);
+			if (fields == null) {
+				fields = Collections.unmodifiableList(collectFieldsInScope(ctclass));
+				ctclass.putMetadata(FIELDS_METADATA_KEY, fields);
+			}
+			return fields;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<CtVariable> collectFieldsInScope(CtClass ctclass) {
+		List<CtVariable> variables = new ArrayList<>();
+		Collection<CtFieldReference<?>> vars = ctclass.getAllFields();
+		for (CtFieldReference<?> ctFieldReference : vars) {
+			// We dont add private fields from parent classes
+			if ((!ctFieldReference.getModifiers().contains(ModifierKind.PRIVATE)
+					|| ctclass.getFields().contains(ctFieldReference.getDeclaration()))) {
+
+				// We ignore "serialVersionUID'
+				if ((ctFieldReference.getDeclaration() != null)
+						&& !"serialVersionUID".equals(ctFieldReference.getDeclaration().getSimpleName()))
+					variables.add(ctFieldReference.getDeclaration());
+			}
+		}
+		return variables;
+	}
+
+	/**
+	 * @return the local variables declared in the block before the element, followed by the ones declared in the
+	 *         enclosing blocks before the statement containing the block. The local variables of the block itself
+	 *         are only considered when the element is one of its statements.
+	 */
+	public static List<CtLocalVariable> getLocalVariablesBefore(CtElement element, CtBlock block) {
+		BlockScope scope = BlockScope.of(block);
+		List<CtLocalVariable> before = scope.getLocalVariablesBefore(scope.positionOf(element));
+		List<CtLocalVariable> variables = new ArrayList<>(before.size() + scope.outerLocalVariables.size());
+		variables.addAll(before);
+		variables.addAll(scope.outerLocalVariables);
+		return variables;
+	}
+
+	/**
+	 * The local variables of a block, with their positions, and the local variables visible from its enclosing
+	 * blocks.
+	 */
+	private static class BlockScope {
+
+		// the positions of the statements, by identity
+		private final Map<CtElement, Integer> positions = new IdentityHashMap<>();
+		private final List<CtLocalVariable> localVariables = new ArrayList<>();
+		private final int[] localVariablePositions;
+		private final List<CtLocalVariable> outerLocalVariables;
+
+		static BlockScope of(CtBlock block) {
+			synchronized (block) {
+				BlockScope scope = (BlockScope) block.getMetadata(BLOCK_METADATA_KEY);
+				if (scope == null) {
+					scope = new BlockScope(block);
+					block.putMetadata(BLOCK_METADATA_KEY, scope);
+				}
+				return scope;
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private BlockScope(CtBlock block) {
+			List<CtStatement> statements = block.getStatements();
+			int[] localPositions = new int[statements.size()];
+			for (int i = 0; i < statements.size(); i++) {
+				CtStatement statement = statements.get(i);
+				positions.putIfAbsent(statement, i);
+				if (statement instanceof CtLocalVariable) {
+					localPositions[localVariables.size()] = i;
+					localVariables.add((CtLocalVariable) statement);
+				}
+			}
+			this.localVariablePositions = Arrays.copyOf(localPositions, localVariables.size());
+
+			// We find the parent block
+			CtElement beforei = block;
+			CtElement parenti = block.getParent();
+			while (parenti != null && !(parenti instanceof CtBlock)) {
+				beforei = parenti;
+				parenti = parenti.getParent();
+			}
+			if (parenti != null) {
+				BlockScope parentScope = BlockScope.of((CtBlock) parenti);
+				List<CtLocalVariable> outer = new ArrayList<>(
+						parentScope.getLocalVariablesBefore(parentScope.positionOf(beforei)));
+				outer.addAll(parentScope.outerLocalVariables);
+				this.outerLocalVariables = Collections.unmodifiableList(outer);
+			} else {
+				this.outerLocalVariables = Collections.emptyList();
+			}
+		}
+
+		/**
+		 * @return the position of the element in the statements of the block, -1 if it is not one of them
+		 */
+		int positionOf(CtElement element) {
+			Integer position = positions.get(element);
+			return position == null ? -1 : position;
+		}
+
+		/**
+		 * @return the local variables declared by the statements of the block before the given position
+		 */
+		List<CtLocalVariable> getLocalVariablesBefore(int position) {
+			if (position <= 0) {
+				return Collections.emptyList();
+			}
+			int count = Arrays.binarySearch(localVariablePositions, position);
+			if (count < 0) {
+				count = -count - 1;
+			}
+			return Collections.unmodifiableList(localVariables.subList(0, count));
+		}
+	}
+
+}
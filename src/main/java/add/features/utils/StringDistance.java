@@ -1,25 +1,207 @@
 package add.features.utils;
 
 import java.util.Arrays;
+import java.util.List;
 
+/**
+ * The Levenshtein distance between two strings.
+ *
+ * The distance is computed with the bit-parallel algorithm of Myers (in the formulation of Hyyrö) when the shorter
+ * string has at most 64 characters, which is the case of the identifiers the analyzers compare: each character of the
+ * longer string costs a few operations on a <code>long</code>, and nothing is allocated. Longer strings fall back to
+ * the dynamic programming algorithm, on two rows.
+ *
+ * The analyzers only need to know whether two names are at a small distance, so the bounded variants stop as soon as
+ * the distance is known to exceed the bound, and {@link #forName} compares one name against many.
+ */
 public class StringDistance {
+
+	/**
+	 * The largest distance at which the analyzers consider two different names similar.
+	 */
+	public static final int MAX_SIMILAR_DISTANCE = 2;
+
+	private static final int WORD_SIZE = 64;
+
+	private static final int ASCII = 128;
+
+	// the match masks of the current pattern, for the ASCII characters; they are cleared after each use
+	private static final ThreadLocal<long[]> PEQ = ThreadLocal.withInitial(() -> new long[ASCII]);
+
 	public static int calculate(String x, String y) {
-		int[][] dp = new int[x.length() + 1][y.length() + 1];
+		return calculate(x, y, Integer.MAX_VALUE - 1);
+	}
+
+	/**
+	 * @return the distance between the strings if it is at most <code>maxDistance</code>, otherwise
+	 *         <code>maxDistance + 1</code>
+	 */
+	public static int calculate(String x, String y, int maxDistance) {
+		String pattern = x.length() <= y.length() ? x : y;
+		String text = pattern == x ? y : x;
+		if (text.length() - pattern.length() > maxDistance) {
+			return maxDistance + 1;
+		}
+		if (pattern.isEmpty()) {
+			return text.length();
+		}
+		if (pattern.length() > WORD_SIZE) {
+			return Math.min(calculateWithRows(pattern, text), maxDistance + 1);
+		}
+
+		long[] peq = PEQ.get();
+		fillPeq(pattern, peq);
+		try {
+			return calculateBitParallel(pattern, peq, text, maxDistance);
+		} finally {
+			clearPeq(pattern, peq);
+		}
+	}
+
+	/**
+	 * @return a matcher that compares the name against many others, computing its match masks once
+	 */
+	public static Matcher forName(String name) {
+		return new Matcher(name);
+	}
+
+	/**
+	 * @return the bounded distances between the name and each of the others, as computed by
+	 *         {@link #calculate(String, String, int)}
+	 */
+	public static int[] calculate(String name, List<String> others, int maxDistance) {
+		Matcher matcher = forName(name);
+		int[] distances = new int[others.size()];
+		for (int i = 0; i < distances.length; i++) {
+			distances[i] = matcher.distance(others.get(i), maxDistance);
+		}
+		return distances;
+	}
+
+	/**
+	 * Compares a name against other names.
+	 */
+	public static final class Matcher {
+
+		private final String name;
+		// null if the name is too long for the bit-parallel algorithm
+		private final long[] peq;
+
+		private Matcher(String name) {
+			this.name = name;
+			if (!name.isEmpty() && name.length() <= WORD_SIZE) {
+				this.peq = new long[ASCII];
+				fillPeq(name, this.peq);
+			} else {
+				this.peq = null;
+			}
+		}
+
+		public int distance(String other) {
+			return distance(other, Integer.MAX_VALUE - 1);
+		}
 
-		for (int i = 0; i <= x.length(); i++) {
-			for (int j = 0; j <= y.length(); j++) {
-				if (i == 0) {
-					dp[i][j] = j;
-				} else if (j == 0) {
-					dp[i][j] = i;
-				} else {
-					dp[i][j] = min(dp[i - 1][j - 1] + costOfSubstitution(x.charAt(i - 1), y.charAt(j - 1)),
-							dp[i - 1][j] + 1, dp[i][j - 1] + 1);
-				}
+		/**
+		 * @return the distance between the names if it is at most <code>maxDistance</code>, otherwise
+		 *         <code>maxDistance + 1</code>
+		 */
+		public int distance(String other, int maxDistance) {
+			if (Math.abs(other.length() - name.length()) > maxDistance) {
+				return maxDistance + 1;
 			}
+			if (peq == null) {
+				return calculate(name, other, maxDistance);
+			}
+			return calculateBitParallel(name, peq, other, maxDistance);
 		}
+	}
 
-		return dp[x.length()][y.length()];
+	private static void fillPeq(String pattern, long[] peq) {
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (c < ASCII) {
+				peq[c] |= 1L << i;
+			}
+		}
+	}
+
+	private static void clearPeq(String pattern, long[] peq) {
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (c < ASCII) {
+				peq[c] = 0;
+			}
+		}
+	}
+
+	private static long getPeq(String pattern, long[] peq, char c) {
+		if (c < ASCII) {
+			return peq[c];
+		}
+		long eq = 0;
+		for (int i = 0; i < pattern.length(); i++) {
+			if (pattern.charAt(i) == c) {
+				eq |= 1L << i;
+			}
+		}
+		return eq;
+	}
+
+	/**
+	 * The bit-parallel computation of the distance, with the pattern in the bits of the vertical deltas of a column
+	 * of the dynamic programming matrix, and one column per character of the text.
+	 */
+	private static int calculateBitParallel(String pattern, long[] peq, String text, int maxDistance) {
+		int m = pattern.length();
+		int n = text.length();
+		long last = 1L << (m - 1);
+		long pv = -1L;
+		long mv = 0L;
+		int score = m;
+
+		for (int j = 0; j < n; j++) {
+			long eq = getPeq(pattern, peq, text.charAt(j));
+			long xv = eq | mv;
+			long xh = (((eq & pv) + pv) ^ pv) | eq;
+			long ph = mv | ~(xh | pv);
+			long mh = pv & xh;
+			if ((ph & last) != 0) {
+				score++;
+			} else if ((mh & last) != 0) {
+				score--;
+			}
+			// the first row of the matrix increases by one at each column
+			ph = (ph << 1) | 1L;
+			mh = mh << 1;
+			pv = mh | ~(xv | ph);
+			mv = ph & xv;
+
+			// the score decreases by at most one per remaining column
+			if (score - (n - j - 1) > maxDistance) {
+				return maxDistance + 1;
+			}
+		}
+		return Math.min(score, maxDistance + 1);
+	}
+
+	private static int calculateWithRows(String x, String y) {
+		int[] previous = new int[y.length() + 1];
+		int[] current = new int[y.length() + 1];
+		for (int j = 0; j <= y.length(); j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= x.length(); i++) {
+			current[0] = i;
+			char a = x.charAt(i - 1);
+			for (int j = 1; j <= y.length(); j++) {
+				current[j] = Math.min(previous[j - 1] + costOfSubstitution(a, y.charAt(j - 1)),
+						Math.min(previous[j] + 1, current[j - 1] + 1));
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[y.length()];
 	}
 
 	public static int costOfSubstitution(char a, char b) {
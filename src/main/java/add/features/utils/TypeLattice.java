@@ -0,0 +1,217 @@
+package add.features.utils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.apache.log4j.Logger;
+
+import spoon.reflect.factory.Factory;
+import spoon.reflect.reference.CtArrayTypeReference;
+import spoon.reflect.reference.CtIntersectionTypeReference;
+import spoon.reflect.reference.CtTypeParameterReference;
+import spoon.reflect.reference.CtTypeReference;
+
+/**
+ * Memoized answers to the questions the analyzers ask about the types of a model: whether a type is a subtype of
+ * another one, whether two types are comparable, and the categories of a type (boolean, primitive-like, exception).
+ *
+ * There is one lattice per model. The answers are cached by the qualified names of the types, including their type
+ * arguments for the subtyping, so the same pair of types is resolved by Spoon once, and the failed resolutions, which
+ * are frequent in noclasspath mode, are cached as well. Type parameters, wildcards, intersections and annotated
+ * types, and the arrays of those, depend on their context more than on their name: they are never cached.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class TypeLattice {
+
+	private static Logger logger = Logger.getLogger(TypeLattice.class.getName());
+
+	private static final Map<Factory, TypeLattice> LATTICES = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private static final String SEPARATOR = "\u0000";
+
+	private static final String[] PRIMITIVE_LIKE_SUFFIXES = { "list", "long", "boolean", "double", "byte", "short",
+			"float", "chart", "character", "integer", "long[]", "boolean[]", "double[]", "byte[]", "short[]",
+			"float[]", "chart[]", "character[]", "integer[]" };
+
+	private enum Subtyping {
+		SUBTYPE, NOT_SUBTYPE, UNRESOLVED
+	}
+
+	private final Map<String, Subtyping> subtypes = new ConcurrentHashMap<>();
+	private final Map<String, Boolean> comparables = new ConcurrentHashMap<>();
+	private final Map<String, Boolean> booleans = new ConcurrentHashMap<>();
+	private final Map<String, Boolean> primitiveLikes = new ConcurrentHashMap<>();
+	private final Map<String, Boolean> primitiveOrLibraryLikes = new ConcurrentHashMap<>();
+	private final Map<String, Boolean> exceptionLikes = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the lattice of the model of the type
+	 */
+	public static TypeLattice of(CtTypeReference type) {
+		return LATTICES.computeIfAbsent(type.getFactory(), factory -> new TypeLattice());
+	}
+
+	/**
+	 * @return the key of the type in the caches, null if the type must not be cached
+	 */
+	static String getKey(CtTypeReference type) {
+		if (type == null || dependsOnContext(type)) {
+			return null;
+		}
+		if (type instanceof CtArrayTypeReference) {
+			String componentKey = getKey(((CtArrayTypeReference) type).getComponentType());
+			return componentKey == null ? null : componentKey + "[]";
+		}
+		if (type.getActualTypeArguments().isEmpty()) {
+			return type.getQualifiedName();
+		}
+		StringBuilder key = new StringBuilder(type.getQualifiedName()).append('<');
+		for (Object argument : type.getActualTypeArguments()) {
+			String argumentKey = getKey((CtTypeReference) argument);
+			if (argumentKey == null) {
+				return null;
+			}
+			if (key.charAt(key.length() - 1) != '<') {
+				key.append(',');
+			}
+			key.append(argumentKey);
+		}
+		return key.append('>').toString();
+	}
+
+	private static boolean dependsOnContext(CtTypeReference type) {
+		if (type instanceof CtArrayTypeReference) {
+			return dependsOnContext(((CtArrayTypeReference) type).getComponentType());
+		}
+		return type instanceof CtTypeParameterReference || type instanceof CtIntersectionTypeReference
+				|| !type.getAnnotations().isEmpty();
+	}
+
+	/**
+	 * @return the category of the type, cached by its qualified name unless the type depends on its context
+	 */
+	private static boolean getCategory(Map<String, Boolean> categories, CtTypeReference type,
+			Function<String, Boolean> compute) {
+		String key = type.getQualifiedName();
+		if (dependsOnContext(type)) {
+			return compute.apply(key);
+		}
+		return categories.computeIfAbsent(key, compute);
+	}
+
+	/**
+	 * @param whenUnresolved the answer when Spoon fails to resolve the types
+	 * @return true if <code>subtype</code> is a subtype of <code>supertype</code>
+	 */
+	public boolean isSubtypeOf(CtTypeReference subtype, CtTypeReference supertype, boolean whenUnresolved) {
+		Subtyping subtyping = getSubtyping(subtype, supertype);
+		return subtyping == Subtyping.UNRESOLVED ? whenUnresolved : subtyping == Subtyping.SUBTYPE;
+	}
+
+	private Subtyping getSubtyping(CtTypeReference subtype, CtTypeReference supertype) {
+		String subtypeKey = getKey(subtype);
+		String supertypeKey = getKey(supertype);
+		if (subtypeKey == null || supertypeKey == null) {
+			return computeSubtyping(subtype, supertype);
+		}
+		return subtypes.computeIfAbsent(subtypeKey + SEPARATOR + supertypeKey,
+				k -> computeSubtyping(subtype, supertype));
+	}
+
+	private static Subtyping computeSubtyping(CtTypeReference subtype, CtTypeReference supertype) {
+		try {
+			return subtype.isSubtypeOf(supertype) ? Subtyping.SUBTYPE : Subtyping.NOT_SUBTYPE;
+		} catch (Exception e) {
+			logger.debug("cannot resolve whether " + subtype + " is a subtype of " + supertype + ": " + e);
+			return Subtyping.UNRESOLVED;
+		}
+	}
+
+	/**
+	 * @return true if the types have the same name, if the name of one ends with the name of the other, ignoring
+	 *         the case, or if one is a subtype of the other. The types are not comparable when a resolution fails.
+	 */
+	public static boolean areComparable(CtTypeReference t1, CtTypeReference t2) {
+		try {
+			if (t1 == null || t2 == null) {
+				return false;
+			}
+			TypeLattice lattice = of(t1);
+			String key1 = getKey(t1);
+			String key2 = getKey(t2);
+			if (key1 == null || key2 == null) {
+				return lattice.computeComparable(t1, t2);
+			}
+			return lattice.comparables.computeIfAbsent(key1 + SEPARATOR + key2, k -> lattice.computeComparable(t1, t2));
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	private boolean computeComparable(CtTypeReference t1, CtTypeReference t2) {
+		String name1 = t1.toString();
+		String name2 = t2.toString();
+		if (name1.equals(name2) || name1.toLowerCase().endsWith(name2.toLowerCase())
+				|| name2.toLowerCase().endsWith(name1.toLowerCase()) || t1.equals(t2)) {
+			return true;
+		}
+		// a failed resolution makes the types not comparable, even if the other direction would succeed
+		Subtyping forward = getSubtyping(t1, t2);
+		if (forward != Subtyping.NOT_SUBTYPE) {
+			return forward == Subtyping.SUBTYPE;
+		}
+		return getSubtyping(t2, t1) == Subtyping.SUBTYPE;
+	}
+
+	/**
+	 * @return true if the type is <code>boolean</code> or <code>java.lang.Boolean</code>
+	 */
+	public static boolean isBoolean(CtTypeReference type) {
+		return getCategory(of(type).booleans, type, k -> type.unbox().toString().equals("boolean"));
+	}
+
+	/**
+	 * @return true if the type is a primitive type, or its name looks like the one of a boxed type, of a string, of
+	 *         a list, or of an array of those
+	 */
+	public static boolean isPrimitiveLike(CtTypeReference type) {
+		return getCategory(of(type).primitiveLikes, type, k -> type.isPrimitive() || hasPrimitiveLikeName(k));
+	}
+
+	/**
+	 * @return true if the type is {@link #isPrimitiveLike primitive-like}, or if it belongs to
+	 *         <code>java.util</code>, <code>java.nio</code> or <code>java.io</code>
+	 */
+	public static boolean isPrimitiveOrLibraryLike(CtTypeReference type) {
+		return getCategory(of(type).primitiveOrLibraryLikes, type, k -> {
+			String name = k.toLowerCase();
+			return type.isPrimitive() || hasPrimitiveLikeName(k) || name.startsWith("java.util.")
+					|| name.startsWith("java.nio.") || name.startsWith("java.io.");
+		});
+	}
+
+	/**
+	 * @return true if the simple name of the type ends with "exception", ignoring the case
+	 */
+	public static boolean isExceptionLike(CtTypeReference type) {
+		return getCategory(of(type).exceptionLikes, type,
+				k -> type.getSimpleName().toLowerCase().endsWith("exception"));
+	}
+
+	private static boolean hasPrimitiveLikeName(String qualifiedName) {
+		String name = qualifiedName.toLowerCase();
+		if (name.contains("string")) {
+			return true;
+		}
+		for (String suffix : PRIMITIVE_LIKE_SUFFIXES) {
+			if (name.endsWith(suffix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -1,7 +1,6 @@
 package add.features.utils;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,7 +26,6 @@ import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtPackage;
 import spoon.reflect.declaration.CtParameter;
 import spoon.reflect.declaration.CtVariable;
-import spoon.reflect.declaration.ModifierKind;
 import spoon.reflect.reference.CtArrayTypeReference;
 import spoon.reflect.reference.CtFieldReference;
 import spoon.reflect.reference.CtLocalVariableReference;
@@ -94,7 +92,7 @@ public class VariableResolver {
 
 			CtTypeReference typeref_i = ctVariable_i.getType();
 			try {
-				if (typeref_i.isSubtypeOf(typeToFind)) {
+				if (TypeLattice.of(typeref_i).isSubtypeOf(typeref_i, typeToFind, true)) {
 					result.add(ctVariable_i);
 				}
 			} catch (Exception e) {
@@ -430,7 +428,7 @@ public class VariableResolver {
 			if (notCompatible)
 				return false;
 
-			if (type1.isSubtypeOf(type2)) {
+			if (TypeLattice.of(type1).isSubtypeOf(type1, type2, false)) {
 				return true;
 			}
 		} catch (Exception e) {
@@ -608,7 +606,8 @@ public class VariableResolver {
 
 	/**
 	 * Returns all variables in scope, reachable from the ctelement passes as
-	 * argument
+	 * argument. The fields of the class and the local variables of the blocks are
+	 * looked up in their {@link ScopeIndex}.
 	 * 
 	 * @param element
 	 * @return
@@ -627,19 +626,7 @@ public class VariableResolver {
 		// We find the CtClass and returns the fields
 		CtClass ctclass = element.getParent(CtClass.class);
 		if (ctclass != null) {
-			Collection<CtFieldReference<?>> vars = ctclass.getAllFields();
-			for (CtFieldReference<?> ctFieldReference : vars) {
-				// We dont add private fields from parent classes
-				if ((!ctFieldReference.getModifiers().contains(ModifierKind.PRIVATE)
-						|| ctclass.getFields().contains(ctFieldReference.getDeclaration()))) {
-
-					// We ignore "serialVersionUID'
-					if ((ctFieldReference.getDeclaration() != null)
-							&& !"serialVersionUID".equals(ctFieldReference.getDeclaration().getSimpleName()))
-						variables.add(ctFieldReference.getDeclaration());
-				}
-			}
-
+			variables.addAll(ScopeIndex.getFieldsInScope(ctclass));
 		}
 
 		// We find the parent method and we extract the parameters
@@ -655,8 +642,7 @@ public class VariableResolver {
 		// the element under analysis
 		CtBlock parentblock = element.getParent(CtBlock.class);
 		if (parentblock != null) {
-			int positionEl = parentblock.getStatements().indexOf(element);
-			variables.addAll(VariableResolver.retrieveLocalVariables(positionEl, parentblock));
+			variables.addAll(ScopeIndex.getLocalVariablesBefore(element, parentblock));
 		}
 
 		return variables;
@@ -0,0 +1,298 @@
+package add.main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPException;
+import com.martiansoftware.jsap.JSAPResult;
+import com.martiansoftware.jsap.stringparsers.EnumeratedStringParser;
+import com.martiansoftware.jsap.stringparsers.FileStringParser;
+
+import add.entities.FeatureList;
+
+/**
+ * Extracts the features of a whole bug corpus in a single JVM.
+ *
+ * The bugs are either listed in a manifest (one bug per line: bugId, buggy source directory and diff path,
+ * separated by {@link Constants#CSV_SEPARATOR}) or found in a corpus directory laid out as
+ * <code>&lt;bugId&gt;/buggy-version</code> and <code>&lt;bugId&gt;/path.diff</code>.
+ * All the bugs are submitted to a {@link TimeLimitedExecutor}, which analyzes them on its threads and gives up a bug
+ * exceeding the timeout without holding a worker. Their results are collected in the order of the bugs, and one JSON
+ * object per bug is appended to the output file (JSON Lines).
+ */
+public class BatchLauncher {
+    private static Logger LOGGER = LoggerFactory.getLogger(BatchLauncher.class);
+
+    public static final String BUGGY_VERSION_DIRECTORY = "buggy-version";
+    public static final String DIFF_FILE = "path.diff";
+
+    public static final String STATUS_OK = "ok";
+    public static final String STATUS_FAILED = "failed";
+    public static final String STATUS_TIMEOUT = "timeout";
+    public static final String STATUS_SKIPPED = "skipped";
+
+    private LauncherMode launcherMode;
+    private File corpusDirectory;
+    private File manifest;
+    private File outputFile;
+    private int nbThreads;
+    private long timeoutInSeconds;
+
+    public BatchLauncher(String[] args) throws JSAPException {
+        JSAP jsap = this.initJSAP();
+        JSAPResult arguments = jsap.parse(args);
+        requirePositive(arguments, "threads", "timeout");
+        if (!arguments.success() || (arguments.getFile("corpus") == null) == (arguments.getFile("manifest") == null)) {
+            System.err.println();
+            for (Iterator<?> errs = arguments.getErrorMessageIterator(); errs.hasNext(); ) {
+                System.err.println("Error: " + errs.next());
+            }
+            System.err.println("Provide either --corpus or --manifest.");
+            System.err.println();
+            System.err.println("Usage: java -cp automatic-diff-dissection.jar add.main.BatchLauncher <arguments>");
+            System.err.println();
+            System.err.println(jsap.getHelp());
+            System.exit(-1);
+        }
+        this.launcherMode = LauncherMode.valueOf(arguments.getString("launcherMode").toUpperCase());
+        this.corpusDirectory = arguments.getFile("corpus");
+        this.manifest = arguments.getFile("manifest");
+        this.outputFile = arguments.getFile("output");
+        this.nbThreads = arguments.getInt("threads");
+        this.timeoutInSeconds = arguments.getLong("timeout");
+    }
+
+    private JSAP initJSAP() throws JSAPException {
+        JSAP jsap = new JSAP();
+
+        String launcherModeValues = "";
+        for (LauncherMode mode : LauncherMode.values()) {
+            launcherModeValues += mode.name() + ";";
+        }
+        launcherModeValues = launcherModeValues.substring(0, launcherModeValues.length() - 1);
+
+        FlaggedOption opt = new FlaggedOption("launcherMode");
+        opt.setShortFlag('m');
+        opt.setLongFlag("launcherMode");
+        opt.setRequired(true);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setUsageName(launcherModeValues);
+        opt.setStringParser(EnumeratedStringParser.getParser(launcherModeValues));
+        opt.setHelp("Provide the launcher mode, which is the type of the features that will be extracted.");
+        jsap.registerParameter(opt);
+
+        opt = new FlaggedOption("corpus");
+        opt.setLongFlag("corpus");
+        opt.setRequired(false);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setStringParser(FileStringParser.getParser().setMustBeDirectory(true).setMustExist(true));
+        opt.setHelp("Provide a directory containing one <bugId>/{buggy-version,path.diff} entry per bug.");
+        jsap.registerParameter(opt);
+
+        opt = new FlaggedOption("manifest");
+        opt.setLongFlag("manifest");
+        opt.setRequired(false);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setStringParser(FileStringParser.getParser().setMustBeFile(true).setMustExist(true));
+        opt.setHelp("Provide a file listing one bug per line: <bugId> <buggySourceDirectory> <diffPath>, tab separated.");
+        jsap.registerParameter(opt);
+
+        opt = new FlaggedOption("output");
+        opt.setShortFlag('o');
+        opt.setLongFlag("output");
+        opt.setRequired(true);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setStringParser(FileStringParser.getParser());
+        opt.setHelp("Provide the path of the JSON Lines file where the results are written.");
+        jsap.registerParameter(opt);
+
+        opt = new FlaggedOption("threads");
+        opt.setShortFlag('t');
+        opt.setLongFlag("threads");
+        opt.setRequired(false);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setStringParser(JSAP.INTEGER_PARSER);
+        opt.setDefault(String.valueOf(Runtime.getRuntime().availableProcessors()));
+        opt.setHelp("Provide the number of bugs analyzed in parallel (default: number of cores).");
+        jsap.registerParameter(opt);
+
+        opt = new FlaggedOption("timeout");
+        opt.setLongFlag("timeout");
+        opt.setRequired(false);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setStringParser(JSAP.LONG_PARSER);
+        opt.setDefault("600");
+        opt.setHelp("Provide the maximum time in seconds spent on one bug (default: 600).");
+        jsap.registerParameter(opt);
+
+        return jsap;
+    }
+
+    /**
+     * Reports the numeric options that are not strictly positive as errors of the arguments.
+     */
+    static void requirePositive(JSAPResult arguments, String... ids) {
+        for (String id : ids) {
+            Number value = (Number) arguments.getObject(id);
+            if (value != null && value.longValue() <= 0) {
+                arguments.addException(id, new JSAPException("--" + id + " must be strictly positive, got " + value));
+            }
+        }
+    }
+
+    public List<Config> loadBugs() throws IOException {
+        List<Config> bugs = new ArrayList<>();
+        if (this.manifest != null) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(this.manifest), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    String[] columns = line.split(Constants.CSV_SEPARATOR);
+                    if (columns.length < 3) {
+                        LOGGER.warn("Ignoring malformed manifest line: " + line);
+                        continue;
+                    }
+                    bugs.add(this.createConfig(columns[0].trim(), columns[1].trim(), columns[2].trim()));
+                }
+            }
+        } else {
+            File[] bugDirectories = this.corpusDirectory.listFiles(File::isDirectory);
+            if (bugDirectories == null) {
+                return bugs;
+            }
+            Arrays.sort(bugDirectories);
+            for (File bugDirectory : bugDirectories) {
+                File buggyVersion = new File(bugDirectory, BUGGY_VERSION_DIRECTORY);
+                File diff = new File(bugDirectory, DIFF_FILE);
+                if (!buggyVersion.isDirectory() || !diff.isFile()) {
+                    continue;
+                }
+                bugs.add(this.createConfig(bugDirectory.getName(), buggyVersion.getAbsolutePath(), diff.getAbsolutePath()));
+            }
+        }
+        return bugs;
+    }
+
+    private Config createConfig(String bugId, String buggySourceDirectoryPath, String diffPath) {
+        Config config = new Config();
+        config.setLauncherMode(this.launcherMode);
+        config.setBugId(bugId);
+        config.setBuggySourceDirectoryPath(buggySourceDirectoryPath);
+        config.setDiffPath(diffPath);
+        return config;
+    }
+
+    /**
+     * Analyzes all the bugs and writes one line per bug in the output file.
+     *
+     * @return the number of bugs that were analyzed successfully
+     */
+    public int execute() throws IOException, InterruptedException {
+        List<Config> bugs = this.loadBugs();
+        LOGGER.info("Analyzing " + bugs.size() + " bugs with " + this.nbThreads + " threads");
+
+        int nbSuccess = 0;
+        try (TimeLimitedExecutor executor = new TimeLimitedExecutor("batch-launcher", this.nbThreads);
+                Writer writer = new OutputStreamWriter(new FileOutputStream(this.outputFile), StandardCharsets.UTF_8)) {
+            List<TimeLimitedExecutor.TimedTask<FeatureList>> tasks = new ArrayList<>(bugs.size());
+            for (Config bug : bugs) {
+                tasks.add(executor.submit(() -> Launcher.extractFeatures(bug), this.timeoutInSeconds,
+                        TimeUnit.SECONDS));
+            }
+            for (int i = 0; i < bugs.size(); i++) {
+                JSONObject result = getResult(bugs.get(i), tasks.get(i), executor);
+                if (STATUS_OK.equals(result.getString("status"))) {
+                    nbSuccess++;
+                }
+                write(writer, result);
+            }
+        }
+
+        LOGGER.info(nbSuccess + "/" + bugs.size() + " bugs analyzed successfully");
+        return nbSuccess;
+    }
+
+    /**
+     * Runs the analyzers on one bug, on the given executor, and waits for its result.
+     *
+     * @param extraction extracts the features of the bug, or returns null when the bug has nothing to analyze
+     * @param timeoutInSeconds the time limit of the extraction, from the moment it starts running
+     * @see #getResult(Config, TimeLimitedExecutor.TimedTask, TimeLimitedExecutor)
+     */
+    static JSONObject analyze(Config bug, Callable<FeatureList> extraction, TimeLimitedExecutor executor,
+            long timeoutInSeconds) throws InterruptedException {
+        return getResult(bug, executor.submit(extraction, timeoutInSeconds, TimeUnit.SECONDS), executor);
+    }
+
+    /**
+     * Waits for the extraction of the features of one bug. A failure or a timeout never propagates: it is reported
+     * in the returned result instead, so that one pathological bug does not stop the batch.
+     */
+    static JSONObject getResult(Config bug, TimeLimitedExecutor.TimedTask<FeatureList> task,
+            TimeLimitedExecutor executor) throws InterruptedException {
+        JSONObject result = new JSONObject();
+        try {
+            FeatureList features = task.get();
+            if (features == null) {
+                result.put("status", STATUS_SKIPPED);
+            } else {
+                result = features.toJson();
+                result.put("status", STATUS_OK);
+            }
+        } catch (TimeoutException e) {
+            LOGGER.error("Timeout while analyzing " + bug.getBugId() + " (" + executor.getLostThreads()
+                    + " threads still running timed-out bugs)");
+            result.put("status", STATUS_TIMEOUT);
+        } catch (ExecutionException e) {
+            LOGGER.error("Error while analyzing " + bug.getBugId() + ": " + e.getCause());
+            result.put("status", STATUS_FAILED);
+            result.put("error", e.getCause().toString());
+        }
+        result.put("bugId", bug.getBugId());
+        result.put("durationMs", task.getRunningTime(TimeUnit.MILLISECONDS));
+        return result;
+    }
+
+    static void write(Writer writer, JSONObject result) {
+        synchronized (writer) {
+            try {
+                writer.write(result.toString());
+                writer.write(Constants.LINE_BREAK);
+                writer.flush();
+            } catch (IOException e) {
+                LOGGER.error(e.toString());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        BatchLauncher launcher = new BatchLauncher(args);
+        launcher.execute();
+    }
+
+}
@@ -1,5 +1,10 @@
 package add.main;
 
+import java.io.IOException;
+
+import add.features.diffanalyzer.GitDiffAnalyzer;
+import add.features.diffanalyzer.PatchContext;
+
 public class Config {
 
     private LauncherMode launcherMode;
@@ -7,6 +12,10 @@ public class Config {
     private String buggySourceDirectoryPath;
     private String diffPath;
     private String outputDirectoryPath;
+    private String repositoryPath;
+    private String commitId;
+    private String parentCommitId;
+    private PatchContext patchContext;
 
     public Config() {
     }
@@ -33,6 +42,7 @@ public class Config {
 
     public void setBuggySourceDirectoryPath(String buggySourceDirectoryPath) {
         this.buggySourceDirectoryPath = buggySourceDirectoryPath;
+        this.patchContext = null;
     }
 
     public String getDiffPath() {
@@ -41,6 +51,7 @@ public class Config {
 
     public void setDiffPath(String diffPath) {
         this.diffPath = diffPath;
+        this.patchContext = null;
     }
 
     public String getOutputDirectoryPath() {
@@ -51,4 +62,63 @@ public class Config {
         this.outputDirectoryPath = outputDirectoryPath;
     }
 
+    public String getRepositoryPath() {
+        return repositoryPath;
+    }
+
+    /**
+     * Sets the Git repository the commit of the bug is read from, instead of a buggy source directory and a diff
+     * file.
+     */
+    public void setRepositoryPath(String repositoryPath) {
+        this.repositoryPath = repositoryPath;
+        this.patchContext = null;
+    }
+
+    public String getCommitId() {
+        return commitId;
+    }
+
+    public void setCommitId(String commitId) {
+        this.commitId = commitId;
+        this.patchContext = null;
+    }
+
+    public String getParentCommitId() {
+        return parentCommitId;
+    }
+
+    /**
+     * Sets the commit the commit of the bug is compared to, its first parent by default.
+     */
+    public void setParentCommitId(String parentCommitId) {
+        this.parentCommitId = parentCommitId;
+        this.patchContext = null;
+    }
+
+    /**
+     * Returns the parsed diff of the bug, built on first access and then shared by all the analyzers.
+     *
+     * The diff is read from the Git repository when one is set, and from the diff file otherwise.
+     */
+    public synchronized PatchContext getPatchContext() {
+        if (this.patchContext == null) {
+            if (this.repositoryPath != null) {
+                try (GitDiffAnalyzer gitDiffAnalyzer = new GitDiffAnalyzer(this.repositoryPath)) {
+                    this.patchContext = gitDiffAnalyzer.getPatchContext(this.parentCommitId, this.commitId);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot read the commit " + this.commitId + " of "
+                            + this.repositoryPath, e);
+                }
+            } else {
+                this.patchContext = new PatchContext(this.diffPath, this.buggySourceDirectoryPath);
+            }
+        }
+        return patchContext;
+    }
+
+    public synchronized void setPatchContext(PatchContext patchContext) {
+        this.patchContext = patchContext;
+    }
+
 }
@@ -0,0 +1,373 @@
+package add.main;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPException;
+import com.martiansoftware.jsap.JSAPResult;
+import com.martiansoftware.jsap.stringparsers.EnumeratedStringParser;
+import com.martiansoftware.jsap.stringparsers.FileStringParser;
+
+import add.entities.FeatureList;
+import add.features.diffanalyzer.GitDiffAnalyzer;
+import add.features.diffanalyzer.PatchContext;
+import diffson.RunJournal;
+
+/**
+ * Extracts the features of every commit of a range of the history of a Git repository, in a single JVM.
+ *
+ * The commits are walked with a {@link RevWalk} from the oldest to the newest, and each non-merge commit is compared
+ * to its first parent in memory, with {@link GitDiffAnalyzer}: only the commits modifying <code>.java</code> files are
+ * analyzed. The commits are submitted to a {@link TimeLimitedExecutor} a few at a time ahead of their results, which
+ * are collected in the order of the walk: one JSON object per commit is appended to the output file (JSON Lines).
+ *
+ * The status of each commit is recorded in a {@link RunJournal} next to the output file, once its line is on disk. An
+ * interrupted run is resumed by running it again on the same output file: the commits the journal records as analyzed
+ * successfully are not analyzed again, and the output file is first rewritten with their results only, so that the
+ * other commits, the failed and timed-out ones included, are analyzed again without duplicates.
+ */
+public class HistoryMiner {
+    private static Logger LOGGER = LoggerFactory.getLogger(HistoryMiner.class);
+
+    public static final String RANGE_SEPARATOR = "..";
+    public static final String JOURNAL_SUFFIX = ".journal";
+
+    private LauncherMode launcherMode;
+    private File repository;
+    private String range;
+    private File outputFile;
+    private int nbThreads;
+    private long timeoutInSeconds;
+
+    public HistoryMiner(String[] args) throws JSAPException {
+        JSAP jsap = this.initJSAP();
+        JSAPResult arguments = jsap.parse(args);
+        BatchLauncher.requirePositive(arguments, "threads", "timeout");
+        if (!arguments.success()) {
+            System.err.println();
+            for (Iterator<?> errs = arguments.getErrorMessageIterator(); errs.hasNext(); ) {
+                System.err.println("Error: " + errs.next());
+            }
+            System.err.println();
+            System.err.println("Usage: java -cp automatic-diff-dissection.jar add.main.HistoryMiner <arguments>");
+            System.err.println();
+            System.err.println(jsap.getHelp());
+            System.exit(-1);
+        }
+        this.launcherMode = LauncherMode.valueOf(arguments.getString("launcherMode").toUpperCase());
+        this.repository = arguments.getFile("repository");
+        this.range = arguments.getString("range");
+        this.outputFile = arguments.getFile("output");
+        this.nbThreads = arguments.getInt("threads");
+        this.timeoutInSeconds = arguments.getLong("timeout");
+    }
+
+    private JSAP initJSAP() throws JSAPException {
+        JSAP jsap = new JSAP();
+
+        String launcherModeValues = "";
+        for (LauncherMode mode : LauncherMode.values()) {
+            launcherModeValues += mode.name() + ";";
+        }
+        launcherModeValues = launcherModeValues.substring(0, launcherModeValues.length() - 1);
+
+        FlaggedOption opt = new FlaggedOption("launcherMode");
+        opt.setShortFlag('m');
+        opt.setLongFlag("launcherMode");
+        opt.setRequired(true);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setUsageName(launcherModeValues);
+        opt.setStringParser(EnumeratedStringParser.getParser(launcherModeValues));
+        opt.setHelp("Provide the launcher mode, which is the type of the features that will be extracted.");
+        jsap.registerParameter(opt);
+
+        opt = new FlaggedOption("repository");
+        opt.setLongFlag("repository");
+        opt.setRequired(true);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setStringParser(FileStringParser.getParser().setMustBeDirectory(true).setMustExist(true));
+        opt.setHelp("Provide the path of the Git repository whose history is mined.");
+        jsap.registerParameter(opt);
+
+        opt = new FlaggedOption("range");
+        opt.setLongFlag("range");
+        opt.setRequired(false);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setDefault("HEAD");
+        opt.setHelp("Provide the commits to analyze: <since>..<until>, or <until> for all its history (default: HEAD).");
+        jsap.registerParameter(opt);
+
+        opt = new FlaggedOption("output");
+        opt.setShortFlag('o');
+        opt.setLongFlag("output");
+        opt.setRequired(true);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setStringParser(FileStringParser.getParser());
+        opt.setHelp("Provide the path of the JSON Lines file where the results are appended.");
+        jsap.registerParameter(opt);
+
+        opt = new FlaggedOption("threads");
+        opt.setShortFlag('t');
+        opt.setLongFlag("threads");
+        opt.setRequired(false);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setStringParser(JSAP.INTEGER_PARSER);
+        opt.setDefault(String.valueOf(Runtime.getRuntime().availableProcessors()));
+        opt.setHelp("Provide the number of commits analyzed in parallel (default: number of cores).");
+        jsap.registerParameter(opt);
+
+        opt = new FlaggedOption("timeout");
+        opt.setLongFlag("timeout");
+        opt.setRequired(false);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setStringParser(JSAP.LONG_PARSER);
+        opt.setDefault("600");
+        opt.setHelp("Provide the maximum time in seconds spent on one commit (default: 600).");
+        jsap.registerParameter(opt);
+
+        return jsap;
+    }
+
+    /**
+     * Analyzes the commits of the range that are not in the output file yet, and appends one line per commit to it.
+     *
+     * @return the number of commits that were analyzed successfully
+     */
+    public int execute() throws IOException, InterruptedException {
+        // the commits submitted to the executor, in the order of the walk, whose results are not written yet
+        Deque<PendingCommit> pending = new ArrayDeque<>();
+        int nbCommits = 0;
+        int nbSuccess = 0;
+
+        try (RunJournal journal = new RunJournal(new File(this.outputFile.getPath() + JOURNAL_SUFFIX), true);
+                TimeLimitedExecutor executor = new TimeLimitedExecutor("history-miner", this.nbThreads);
+                GitDiffAnalyzer gitDiffAnalyzer = new GitDiffAnalyzer(this.repository.getAbsolutePath());
+                RevWalk walk = new RevWalk(gitDiffAnalyzer.getRepository())) {
+            int nbAnalyzedCommits = this.compactOutput(journal);
+            if (nbAnalyzedCommits > 0) {
+                LOGGER.info("Resuming after " + nbAnalyzedCommits + " commits already in " + this.outputFile);
+            }
+            try (FileOutputStream output = new FileOutputStream(this.outputFile, true)) {
+                this.initWalk(walk, gitDiffAnalyzer.getRepository());
+                for (RevCommit commit : walk) {
+                    if (this.isAnalyzed(journal, commit.name())) {
+                        continue;
+                    }
+                    // bounds the commits waiting for a thread, since the walk is much faster than the analysis
+                    if (pending.size() == 2 * this.nbThreads
+                            && this.collect(pending.remove(), output, journal, executor)) {
+                        nbSuccess++;
+                    }
+                    RevCommit parent = commit.getParentCount() == 0 ? null : walk.parseCommit(commit.getParent(0));
+                    pending.add(this.submit(gitDiffAnalyzer, commit, parent, executor));
+                    nbCommits++;
+                }
+                while (!pending.isEmpty()) {
+                    if (this.collect(pending.remove(), output, journal, executor)) {
+                        nbSuccess++;
+                    }
+                }
+            }
+        }
+
+        LOGGER.info(nbSuccess + "/" + nbCommits + " commits analyzed successfully");
+        return nbSuccess;
+    }
+
+    private void initWalk(RevWalk walk, Repository repository) throws IOException {
+        walk.setRetainBody(false);
+        walk.setRevFilter(RevFilter.NO_MERGES);
+        walk.sort(RevSort.TOPO);
+        walk.sort(RevSort.REVERSE, true);
+
+        int separator = this.range.indexOf(RANGE_SEPARATOR);
+        if (separator >= 0) {
+            walk.markUninteresting(walk.parseCommit(this.resolve(repository, this.range.substring(0, separator))));
+            walk.markStart(walk.parseCommit(this.resolve(repository, this.range.substring(separator + RANGE_SEPARATOR.length()))));
+        } else {
+            walk.markStart(walk.parseCommit(this.resolve(repository, this.range)));
+        }
+    }
+
+    private ObjectId resolve(Repository repository, String revision) throws IOException {
+        ObjectId id = repository.resolve(revision + "^{commit}");
+        if (id == null) {
+            throw new IOException("Unknown revision " + revision + " in " + repository.getDirectory());
+        }
+        return id;
+    }
+
+    /**
+     * Submits the analysis of one commit. The commits that do not modify a <code>.java</code> file are reported as
+     * skipped.
+     */
+    private PendingCommit submit(GitDiffAnalyzer gitDiffAnalyzer, RevCommit commit, RevCommit parent,
+            TimeLimitedExecutor executor) {
+        Config config = new Config();
+        config.setLauncherMode(this.launcherMode);
+        config.setBugId(commit.name());
+        config.setRepositoryPath(gitDiffAnalyzer.getProjectRoot());
+        config.setCommitId(commit.name());
+        TimeLimitedExecutor.TimedTask<FeatureList> task = executor.submit(() -> {
+            PatchContext patchContext = gitDiffAnalyzer.getPatchContext(parent, commit);
+            if (patchContext.getOriginalFiles().isEmpty()) {
+                return null;
+            }
+            config.setPatchContext(patchContext);
+            return Launcher.extractFeatures(config);
+        }, this.timeoutInSeconds, TimeUnit.SECONDS);
+        return new PendingCommit(config, commit, parent, task);
+    }
+
+    /**
+     * Waits for the result of a commit and writes it.
+     *
+     * @return whether the commit was analyzed successfully
+     */
+    private boolean collect(PendingCommit commit, FileOutputStream output, RunJournal journal,
+            TimeLimitedExecutor executor) throws InterruptedException {
+        JSONObject result = commit.getResult(executor);
+        this.write(output, journal, result);
+        return BatchLauncher.STATUS_OK.equals(result.getString("status"));
+    }
+
+    /**
+     * @return whether the journal records that the commit was analyzed successfully, in the same launcher mode
+     */
+    private boolean isAnalyzed(RunJournal journal, String commit) {
+        return journal.isCompleted(commit, this.getInput(commit))
+                && BatchLauncher.STATUS_OK.equals(journal.getStatus(commit));
+    }
+
+    /**
+     * The input of a commit in the journal: the commit id identifies its content, and the features depend on the
+     * launcher mode.
+     */
+    private String getInput(String commit) {
+        return this.launcherMode.name() + " " + commit;
+    }
+
+    /**
+     * Rewrites the output file with the last result of each commit that is not analyzed again. The lines of an
+     * interrupted run that were not journaled, such as a truncated last line, are dropped. The output is written to a
+     * temporary file that is renamed once it is complete, so that a crash never loses the previous results.
+     *
+     * @return the number of commits kept
+     */
+    int compactOutput(RunJournal journal) throws IOException {
+        if (!this.outputFile.isFile()) {
+            return 0;
+        }
+        Map<String, String> results = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(this.outputFile.toPath(), StandardCharsets.UTF_8)) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                JSONObject result = new JSONObject(line);
+                if (result.has("commit") && this.isAnalyzed(journal, result.getString("commit"))) {
+                    // the last line of a commit wins
+                    results.remove(result.getString("commit"));
+                    results.put(result.getString("commit"), line);
+                }
+            } catch (JSONException e) {
+                LOGGER.warn("Ignoring malformed output line: " + line);
+            }
+        }
+
+        File partial = new File(this.outputFile.getPath() + ".part");
+        try {
+            try (FileOutputStream stream = new FileOutputStream(partial);
+                    Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8)) {
+                for (String line : results.values()) {
+                    writer.write(line);
+                    writer.write(Constants.LINE_BREAK);
+                }
+                writer.flush();
+                stream.getChannel().force(false);
+            }
+            Files.move(partial.toPath(), this.outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            partial.delete();
+        }
+        return results.size();
+    }
+
+    /**
+     * Appends the result of a commit to the output file, then records it in the journal once it is on disk, so that
+     * every commit of the journal has its line in the output file.
+     */
+    private void write(FileOutputStream output, RunJournal journal, JSONObject result) {
+        synchronized (output) {
+            try {
+                output.write((result.toString() + Constants.LINE_BREAK).getBytes(StandardCharsets.UTF_8));
+                output.getChannel().force(false);
+            } catch (IOException e) {
+                LOGGER.error(e.toString());
+                return;
+            }
+            String commit = result.getString("commit");
+            journal.record(commit, result.getString("status"), this.getInput(commit), result.getLong("durationMs"),
+                    result.optString("error", null));
+        }
+    }
+
+    /**
+     * A commit whose analysis was submitted.
+     */
+    private static class PendingCommit {
+        private final Config config;
+        private final RevCommit commit;
+        private final RevCommit parent;
+        private final TimeLimitedExecutor.TimedTask<FeatureList> task;
+
+        PendingCommit(Config config, RevCommit commit, RevCommit parent,
+                TimeLimitedExecutor.TimedTask<FeatureList> task) {
+            this.config = config;
+            this.commit = commit;
+            this.parent = parent;
+            this.task = task;
+        }
+
+        JSONObject getResult(TimeLimitedExecutor executor) throws InterruptedException {
+            JSONObject result = BatchLauncher.getResult(this.config, this.task, executor);
+            result.put("commit", this.commit.name());
+            if (this.parent != null) {
+                result.put("parent", this.parent.name());
+            }
+            return result;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        HistoryMiner miner = new HistoryMiner(args);
+        miner.execute();
+    }
+
+}
@@ -26,6 +26,11 @@ import gumtree.spoon.diff.Diff;
 public class Launcher {
     private static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(Launcher.class);
 
+    /**
+     * The prefix of the stages of the analyzers, followed by their simple class name.
+     */
+    public static final String ANALYZER_STAGE_PREFIX = "analyzer.";
+
     private Config config;
 
     public Launcher(String[] args) throws JSAPException {
@@ -59,6 +64,14 @@ public class Launcher {
             this.showUsage(jsap);
             return null;
         }
+        boolean fromFiles = config.contains("buggySourceDirectory") && config.contains("diffPath");
+        boolean fromRepository = config.contains("repository") && config.contains("commit");
+        if (!fromFiles && !fromRepository) {
+            System.err.println();
+            System.err.println("Error: Provide either a buggy source code directory and a diff file, or a Git repository and a commit.");
+            this.showUsage(jsap);
+            return null;
+        }
         return config;
     }
 
@@ -92,7 +105,7 @@ public class Launcher {
 
         opt = new FlaggedOption("buggySourceDirectory");
         opt.setLongFlag("buggySourceDirectory");
-        opt.setRequired(true);
+        opt.setRequired(false);
         opt.setAllowMultipleDeclarations(false);
         opt.setStringParser(JSAP.STRING_PARSER);
         opt.setHelp("Provide the path to the buggy source code directory of the bug.");
@@ -100,12 +113,36 @@ public class Launcher {
 
         opt = new FlaggedOption("diffPath");
         opt.setLongFlag("diff");
-        opt.setRequired(true);
+        opt.setRequired(false);
         opt.setAllowMultipleDeclarations(true);
         opt.setStringParser(JSAP.STRING_PARSER);
         opt.setHelp("Provide the path to the diff file.");
         jsap.registerParameter(opt);
 
+        opt = new FlaggedOption("repository");
+        opt.setLongFlag("repository");
+        opt.setRequired(false);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setStringParser(JSAP.STRING_PARSER);
+        opt.setHelp("Provide the path to a Git repository to read the bug from, instead of a buggy source code directory and a diff file.");
+        jsap.registerParameter(opt);
+
+        opt = new FlaggedOption("commit");
+        opt.setLongFlag("commit");
+        opt.setRequired(false);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setStringParser(JSAP.STRING_PARSER);
+        opt.setHelp("Provide the commit of the Git repository that fixes the bug.");
+        jsap.registerParameter(opt);
+
+        opt = new FlaggedOption("parentCommit");
+        opt.setLongFlag("parentCommit");
+        opt.setRequired(false);
+        opt.setAllowMultipleDeclarations(false);
+        opt.setStringParser(JSAP.STRING_PARSER);
+        opt.setHelp("Provide the commit the fixing commit is compared to (optional, its first parent by default).");
+        jsap.registerParameter(opt);
+
         opt = new FlaggedOption("outputDirectory");
         opt.setShortFlag('o');
         opt.setLongFlag("output");
@@ -124,41 +161,72 @@ public class Launcher {
         this.config.setBugId(arguments.getString("bugId"));
         this.config.setBuggySourceDirectoryPath(arguments.getString("buggySourceDirectory"));
         this.config.setDiffPath(arguments.getString("diffPath"));
+        if (arguments.contains("repository") && arguments.contains("commit")) {
+            this.config.setRepositoryPath(arguments.getString("repository"));
+            this.config.setCommitId(arguments.getString("commit"));
+            this.config.setParentCommitId(arguments.getString("parentCommit"));
+        }
         if (arguments.getFile("outputDirectory") != null) {
             this.config.setOutputDirectoryPath(arguments.getFile("outputDirectory").getAbsolutePath());
         }
     }
 
     protected void execute() {
-        FeatureList features = new FeatureList(this.config);
+        FeatureList features = extractFeatures(this.config);
+
+        LOGGER.info(features.toCSV());
+
+        if (this.config.getOutputDirectoryPath() != null) {
+            JSONObject json = new JSONObject(features.toString());
+            JSONOutputFileCreator.writeJSONfile(json.toString(4), this.config);
+        }
+    }
+
+    /**
+     * Runs the analyzers selected by the launcher mode of the given config on one bug.
+     *
+     * When the stages are profiled (see {@link StageProfile}), their figures are attached to the features. The stages
+     * are recorded in the current profile of the calling thread if it has one, whether or not they are attached to the
+     * features.
+     */
+    public static FeatureList extractFeatures(Config config) {
+        if (!StageProfile.isEnabled()) {
+            return runAnalyzers(config);
+        }
+        StageProfile profile = StageProfile.current() == null ? new StageProfile() : StageProfile.current();
+        FeatureList features;
+        try (StageProfile.Scope scope = profile.activate()) {
+            features = runAnalyzers(config);
+        }
+        features.setStageProfile(profile);
+        return features;
+    }
+
+    private static FeatureList runAnalyzers(Config config) {
+        FeatureList features = new FeatureList(config);
         List<FeatureAnalyzer> featureAnalyzers = new ArrayList<>();
 
         Diff editScript = null;
-        if (this.config.getLauncherMode() == LauncherMode.REPAIR_PATTERNS ||
-                this.config.getLauncherMode() == LauncherMode.ALL) {
-            RepairPatternDetector detector = new RepairPatternDetector(this.config);
+        if (config.getLauncherMode() == LauncherMode.REPAIR_PATTERNS ||
+                config.getLauncherMode() == LauncherMode.ALL) {
+            RepairPatternDetector detector = new RepairPatternDetector(config);
             editScript = detector.getEditScript();
             featureAnalyzers.add(detector);
         }
-        if (this.config.getLauncherMode() == LauncherMode.REPAIR_ACTIONS ||
-                this.config.getLauncherMode() == LauncherMode.ALL) {
-            featureAnalyzers.add(new RepairActionDetector(this.config, editScript));
+        if (config.getLauncherMode() == LauncherMode.REPAIR_ACTIONS ||
+                config.getLauncherMode() == LauncherMode.ALL) {
+            featureAnalyzers.add(new RepairActionDetector(config, editScript));
         }
-        if (this.config.getLauncherMode() == LauncherMode.METRICS ||
-                this.config.getLauncherMode() == LauncherMode.ALL) {
-            featureAnalyzers.add(new MetricExtractor(this.config));
+        if (config.getLauncherMode() == LauncherMode.METRICS ||
+                config.getLauncherMode() == LauncherMode.ALL) {
+            featureAnalyzers.add(new MetricExtractor(config));
         }
 
         for (FeatureAnalyzer featureAnalyzer : featureAnalyzers) {
-            features.add(featureAnalyzer.analyze());
-        }
-
-        LOGGER.info(features.toCSV());
-
-        if (this.config.getOutputDirectoryPath() != null) {
-            JSONObject json = new JSONObject(features.toString());
-            JSONOutputFileCreator.writeJSONfile(json.toString(4), this.config);
+            features.add(StageProfile.measure(ANALYZER_STAGE_PREFIX + featureAnalyzer.getClass().getSimpleName(),
+                    featureAnalyzer::analyze));
         }
+        return features;
     }
 
     public static void main(String[] args) throws Exception {
@@ -1,32 +1,133 @@
 package add.main;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 import org.json.JSONObject;
 
 import add.entities.FeatureList;
-import add.features.FeatureAnalyzer;
-import add.features.detector.repairactions.RepairActionDetector;
-import add.features.detector.repairpatterns.RepairPatternDetector;
-import add.features.extractor.MetricExtractor;
+import add.features.diffanalyzer.InvalidDiffException;
 import fi.iki.elonen.NanoHTTPD;
-import gumtree.spoon.diff.Diff;
-import org.json.JSONObject;
 
+/**
+ * HTTP front-end of the feature extraction.
+ *
+ * A POST on <code>/</code> enqueues the analysis of one bug and answers <code>202 Accepted</code> with the id of the
+ * job; the features are then retrieved with a GET on <code>/jobs/&lt;id&gt;</code>, optionally long-polling with
+ * <code>?wait=&lt;seconds&gt;</code>. The result of a finished job can be retrieved any number of times until the job time
+ * to live expires, after which the job is evicted by a periodic task.
+ * When the job queue is full, the POST is rejected with
+ * <code>429 Too Many Requests</code> and a <code>Retry-After</code> header. The analysis of a job runs on a
+ * {@link TimeLimitedExecutor}: a job exceeding the job timeout fails and is given up, and its worker takes the next
+ * job.
+ *
+ * A GET on <code>/metrics</code> returns the metrics of the server in the text exposition format of Prometheus (see
+ * {@link ServerMetrics}).
+ */
 public class Server extends NanoHTTPD {
 
+    public static final int DEFAULT_PORT = 9888;
+    public static final int DEFAULT_QUEUE_CAPACITY = 100;
+    public static final int RETRY_AFTER_SECONDS = 5;
+    public static final int MAX_WAIT_SECONDS = 60;
+    public static final long DEFAULT_JOB_TIMEOUT_SECONDS = 600;
+    public static final long DEFAULT_JOB_TTL_SECONDS = 60 * 60;
+    public static final long EVICTION_PERIOD_SECONDS = 60;
+    public static final String JOBS_URI = "/jobs/";
+    public static final String METRICS_URI = "/metrics";
+
+    private static final Response.IStatus TOO_MANY_REQUESTS = new Response.IStatus() {
+        @Override
+        public String getDescription() {
+            return "429 Too Many Requests";
+        }
+
+        @Override
+        public int getRequestStatus() {
+            return 429;
+        }
+    };
+
+    private enum JobStatus {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private static class Job {
+        private final String id;
+        private final Config config;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile String result;
+        private volatile long finishedAt;
+
+        Job(String id, Config config) {
+            this.id = id;
+            this.config = config;
+        }
+    }
+
+    private final ThreadPoolExecutor workers;
+    private final TimeLimitedExecutor analysis;
+    private final long jobTimeoutInSeconds;
+    private final ServerMetrics metrics;
+    private final ScheduledExecutorService evictor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private volatile long jobTtlNanos = TimeUnit.SECONDS.toNanos(DEFAULT_JOB_TTL_SECONDS);
+    private volatile Function<Config, FeatureList> extraction = Launcher::extractFeatures;
+
     public Server() throws IOException {
-        super(9888);
+        this(DEFAULT_PORT, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param port the port to listen to, 0 to pick a free one
+     * @param nbWorkers the number of bugs analyzed in parallel
+     * @param queueCapacity the number of bugs that can wait for a worker before new jobs are rejected
+     */
+    public Server(int port, int nbWorkers, int queueCapacity) throws IOException {
+        this(port, nbWorkers, queueCapacity, DEFAULT_JOB_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * @param jobTimeoutInSeconds the maximum time spent on one bug
+     */
+    public Server(int port, int nbWorkers, int queueCapacity, long jobTimeoutInSeconds) throws IOException {
+        super(port);
+        this.workers = new ThreadPoolExecutor(nbWorkers, nbWorkers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity));
+        this.analysis = new TimeLimitedExecutor("server-analysis", nbWorkers);
+        this.jobTimeoutInSeconds = jobTimeoutInSeconds;
+        this.metrics = new ServerMetrics(this.workers, this.analysis);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "server-job-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.evictor.scheduleAtFixedRate(this::evictExpiredJobs, EVICTION_PERIOD_SECONDS, EVICTION_PERIOD_SECONDS,
+                TimeUnit.SECONDS);
         start(NanoHTTPD.SOCKET_READ_TIMEOUT, false);
-        System.out.println("\nRunning! Point your browsers to http://localhost:9888/ \n");
+        System.out.println("\nRunning! Point your browsers to http://localhost:" + getListeningPort() + "/ \n");
     }
 
     public static void main(String[] args) {
         try {
-            new Server();
+            int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+            int nbWorkers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+            int queueCapacity = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_QUEUE_CAPACITY;
+            long jobTimeoutInSeconds = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_JOB_TIMEOUT_SECONDS;
+            new Server(port, nbWorkers, queueCapacity, jobTimeoutInSeconds);
         } catch (IOException ioe) {
             System.err.println("Couldn't start server:\n" + ioe);
             ioe.printStackTrace();
@@ -34,42 +135,111 @@ public class Server extends NanoHTTPD {
     }
 
     @Override
-    public Response serve(IHTTPSession session) {
-        if (session.getMethod() == Method.POST) {
+    public void stop() {
+        super.stop();
+        this.workers.shutdownNow();
+        this.analysis.close();
+        this.evictor.shutdownNow();
+    }
+
+    public ServerMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * @param jobTtlInSeconds the time a finished job is kept for its result to be retrieved
+     */
+    public void setJobTtl(long jobTtlInSeconds) {
+        this.jobTtlNanos = TimeUnit.SECONDS.toNanos(jobTtlInSeconds);
+    }
 
+    /**
+     * Replaces the extraction of the features of the jobs, for the tests.
+     */
+    void setExtraction(Function<Config, FeatureList> extraction) {
+        this.extraction = extraction;
+    }
+
+    /**
+     * Evicts the finished jobs older than the job time to live, since their client may never come back. It runs every
+     * {@link #EVICTION_PERIOD_SECONDS}.
+     */
+    void evictExpiredJobs() {
+        long now = System.nanoTime();
+        this.jobs.values().removeIf(job -> job.done.getCount() == 0 && now - job.finishedAt >= this.jobTtlNanos);
+    }
 
+    @Override
+    public Response serve(IHTTPSession session) {
+        this.metrics.requestStarted();
+        Response response = null;
+        try {
+            response = this.route(session);
+            return response;
+        } finally {
+            int status = response == null ? Response.Status.INTERNAL_ERROR.getRequestStatus()
+                    : response.getStatus().getRequestStatus();
+            this.metrics.requestFinished(String.valueOf(session.getMethod()), status);
+        }
+    }
+
+    private Response route(IHTTPSession session) {
+        if (session.getMethod() == Method.POST) {
+            Config config;
             try {
                 Map<String, String> parms = session.getParms();
                 session.parseBody(parms);
                 JSONObject data = new JSONObject(parms.get("postData"));
 
-                Config config = new Config();
-                config.setLauncherMode(LauncherMode.METRICS);
+                config = new Config();
+                config.setLauncherMode(LauncherMode.ALL);
                 config.setBugId(data.getString("bugId"));
                 config.setBuggySourceDirectoryPath(data.getString("buggySourceDirectory"));
                 config.setDiffPath(data.getString("diffPath"));
-
-                FeatureList features = new FeatureList(config);
-
-                List<FeatureAnalyzer> featureAnalyzers = new ArrayList<>();
-
-                RepairPatternDetector detector = new RepairPatternDetector(config);
-                Diff editScript = detector.getEditScript();
-                featureAnalyzers.add(detector);
-                featureAnalyzers.add(new RepairActionDetector(config, editScript));
-                featureAnalyzers.add(new MetricExtractor(config));
-
-                for (FeatureAnalyzer featureAnalyzer : featureAnalyzers) {
-                    features.add(featureAnalyzer.analyze());
-                }
-
-                Response response = newFixedLengthResponse(Response.Status.OK, "application/json", features.toJson().toString(4));
-                response.addHeader("Access-Control-Allow-Origin", "*");
-                response.addHeader("Access-Control-Allow-Headers", "*");
-                return response;
             } catch (Exception e) {
                 e.printStackTrace();
-                return newFixedLengthResponse(Response.Status.INTERNAL_ERROR, MIME_PLAINTEXT, e.getMessage());
+                return withCORS(newFixedLengthResponse(Response.Status.BAD_REQUEST, MIME_PLAINTEXT, e.getMessage()));
+            }
+
+            Job job = new Job(UUID.randomUUID().toString(), config);
+            this.jobs.put(job.id, job);
+            try {
+                this.workers.execute(() -> this.run(job));
+            } catch (RejectedExecutionException e) {
+                this.jobs.remove(job.id);
+                Response response = newFixedLengthResponse(TOO_MANY_REQUESTS, MIME_PLAINTEXT, "Job queue is full");
+                response.addHeader("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+                return withCORS(response);
+            }
+            Response response = newFixedLengthResponse(Response.Status.ACCEPTED, "application/json",
+                    this.toStatusJson(job).toString(4));
+            response.addHeader("Location", JOBS_URI + job.id);
+            return withCORS(response);
+        } else if (session.getMethod() == Method.GET && METRICS_URI.equals(session.getUri())) {
+            return newFixedLengthResponse(Response.Status.OK, ServerMetrics.CONTENT_TYPE, this.metrics.toText());
+        } else if (session.getMethod() == Method.GET && session.getUri().startsWith(JOBS_URI)) {
+            Job job = this.jobs.get(session.getUri().substring(JOBS_URI.length()));
+            if (job == null) {
+                return withCORS(newFixedLengthResponse(Response.Status.NOT_FOUND, MIME_PLAINTEXT, "Unknown job"));
+            }
+            String wait = session.getParms().get("wait");
+            if (wait != null) {
+                try {
+                    job.done.await(Math.min(Long.parseLong(wait), MAX_WAIT_SECONDS), TimeUnit.SECONDS);
+                } catch (NumberFormatException e) {
+                    return withCORS(newFixedLengthResponse(Response.Status.BAD_REQUEST, MIME_PLAINTEXT, "Invalid wait"));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            switch (job.status) {
+                case DONE:
+                    return withCORS(newFixedLengthResponse(Response.Status.OK, "application/json", job.result));
+                case FAILED:
+                    return withCORS(newFixedLengthResponse(Response.Status.INTERNAL_ERROR, MIME_PLAINTEXT, job.result));
+                default:
+                    return withCORS(newFixedLengthResponse(Response.Status.ACCEPTED, "application/json",
+                            this.toStatusJson(job).toString(4)));
             }
         } else if (session.getMethod() == Method.OPTIONS) {
             Response response = newFixedLengthResponse(Response.Status.OK, MIME_PLAINTEXT, "");
@@ -86,4 +256,68 @@ public class Server extends NanoHTTPD {
             return response;
         }
     }
+
+    private void run(Job job) {
+        job.status = JobStatus.RUNNING;
+
+        // the stages of every job are measured for the metrics, whether or not they are attached to the features
+        StageProfile profile = new StageProfile();
+        long start = System.nanoTime();
+        JobStatus status;
+        String result;
+        String outcome;
+        try (StageProfile.Scope scope = profile.activate()) {
+            FeatureList features = this.analysis.call(() -> this.extraction.apply(job.config),
+                    this.jobTimeoutInSeconds, TimeUnit.SECONDS);
+            result = features.toJson().toString(4);
+            status = JobStatus.DONE;
+            outcome = ServerMetrics.JOB_DONE;
+        } catch (TimeoutException e) {
+            result = "Timeout after " + this.jobTimeoutInSeconds + " seconds";
+            status = JobStatus.FAILED;
+            outcome = ServerMetrics.JOB_TIMEOUT;
+        } catch (Throwable e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            cause.printStackTrace();
+            result = String.valueOf(cause.getMessage());
+            status = JobStatus.FAILED;
+            outcome = ServerMetrics.JOB_FAILED;
+            if (isInvalidDiff(cause)) {
+                this.metrics.invalidDiff();
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.metrics.jobFinished(outcome, System.nanoTime() - start, profile);
+
+        // the status is published last, since the result of a job is read as soon as its status is final
+        job.result = result;
+        job.finishedAt = System.nanoTime();
+        job.status = status;
+        job.done.countDown();
+    }
+
+    private static boolean isInvalidDiff(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InvalidDiffException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private JSONObject toStatusJson(Job job) {
+        JSONObject json = new JSONObject();
+        json.put("jobId", job.id);
+        json.put("bugId", job.config.getBugId());
+        json.put("status", job.status.name().toLowerCase());
+        return json;
+    }
+
+    private Response withCORS(Response response) {
+        response.addHeader("Access-Control-Allow-Origin", "*");
+        response.addHeader("Access-Control-Allow-Headers", "*");
+        return response;
+    }
 }
@@ -0,0 +1,221 @@
+package add.main;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The metrics of a {@link Server}, rendered in the text exposition format of Prometheus.
+ *
+ * Besides the HTTP requests, the registry records the outcome and the duration of each job, and the wall time of the
+ * stages of the job measured by its {@link StageProfile}: each stage is observed once per job, with the sum of its
+ * runs. The stages of the analyzers are reported apart from the other stages of the pipeline. The figures of the JVM
+ * are read from its MX beans when the metrics are scraped.
+ */
+public class ServerMetrics {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    public static final String JOB_DONE = "done";
+    public static final String JOB_FAILED = "failed";
+    public static final String JOB_TIMEOUT = "timeout";
+
+    /**
+     * The upper bounds of the buckets of the duration histograms, in seconds.
+     */
+    static final double[] BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300, 600};
+
+    private static class Histogram {
+        // the number of observations lower than or equal to each bucket
+        private final long[] buckets = new long[BUCKETS.length];
+        private long count;
+        private long sumNanos;
+
+        void observe(long nanos) {
+            double seconds = toSeconds(nanos);
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (seconds <= BUCKETS[i]) {
+                    buckets[i]++;
+                }
+            }
+            count++;
+            sumNanos += nanos;
+        }
+    }
+
+    private final ThreadPoolExecutor workers;
+    private final TimeLimitedExecutor analysis;
+    private final AtomicInteger requestsInFlight = new AtomicInteger();
+    // the samples of the labeled metrics, by their rendered labels
+    private final Map<String, Long> requests = new TreeMap<>();
+    private final Map<String, Long> jobs = new TreeMap<>();
+    private final Map<String, Histogram> stageDurations = new TreeMap<>();
+    private final Map<String, Histogram> analyzerDurations = new TreeMap<>();
+    private final Histogram jobDurations = new Histogram();
+    private long invalidDiffs;
+
+    /**
+     * @param workers the pool taking the jobs, whose queue is reported
+     * @param analysis the executor running the analysis of the jobs, whose running tasks are reported
+     */
+    public ServerMetrics(ThreadPoolExecutor workers, TimeLimitedExecutor analysis) {
+        this.workers = workers;
+        this.analysis = analysis;
+    }
+
+    public void requestStarted() {
+        requestsInFlight.incrementAndGet();
+    }
+
+    public void requestFinished(String method, int status) {
+        requestsInFlight.decrementAndGet();
+        synchronized (this) {
+            increment(requests, label("method", method) + "," + label("code", String.valueOf(status)));
+        }
+    }
+
+    /**
+     * Records a finished job.
+     *
+     * @param status {@link #JOB_DONE}, {@link #JOB_FAILED} or {@link #JOB_TIMEOUT}
+     * @param profile the stages of the job
+     */
+    public synchronized void jobFinished(String status, long durationNanos, StageProfile profile) {
+        increment(jobs, label("status", status));
+        jobDurations.observe(durationNanos);
+        for (Map.Entry<String, Long> stage : profile.getWallTimes().entrySet()) {
+            String name = stage.getKey();
+            if (name.startsWith(Launcher.ANALYZER_STAGE_PREFIX)) {
+                histogram(analyzerDurations, label("analyzer", name.substring(Launcher.ANALYZER_STAGE_PREFIX.length())))
+                        .observe(stage.getValue());
+            } else {
+                histogram(stageDurations, label("stage", name)).observe(stage.getValue());
+            }
+        }
+    }
+
+    /**
+     * Records a job that failed because its diff does not apply on the buggy source code.
+     */
+    public synchronized void invalidDiff() {
+        invalidDiffs++;
+    }
+
+    private static void increment(Map<String, Long> samples, String labels) {
+        samples.merge(labels, 1L, Long::sum);
+    }
+
+    private static Histogram histogram(Map<String, Histogram> histograms, String labels) {
+        return histograms.computeIfAbsent(labels, key -> new Histogram());
+    }
+
+    /**
+     * @return the metrics, in the text exposition format
+     */
+    public synchronized String toText() {
+        StringBuilder text = new StringBuilder();
+
+        header(text, "add_http_requests_total", "counter", "HTTP requests served, by method and status code.");
+        for (Map.Entry<String, Long> sample : requests.entrySet()) {
+            sample(text, "add_http_requests_total", sample.getKey(), sample.getValue());
+        }
+        header(text, "add_http_requests_in_flight", "gauge", "HTTP requests being served.");
+        sample(text, "add_http_requests_in_flight", "", requestsInFlight.get());
+
+        header(text, "add_jobs_queued", "gauge", "Jobs waiting for a worker.");
+        sample(text, "add_jobs_queued", "", workers.getQueue().size());
+        // a timed-out job whose analysis did not stop is still running, although its worker took another job
+        header(text, "add_jobs_running", "gauge", "Jobs being analyzed, including the timed-out ones still running.");
+        sample(text, "add_jobs_running", "", analysis.getRunningTasks());
+        header(text, "add_jobs_abandoned", "gauge", "Timed-out jobs whose analysis is still running.");
+        sample(text, "add_jobs_abandoned", "", analysis.getLostThreads());
+        header(text, "add_jobs_total", "counter", "Finished jobs, by status.");
+        for (Map.Entry<String, Long> sample : jobs.entrySet()) {
+            sample(text, "add_jobs_total", sample.getKey(), sample.getValue());
+        }
+        header(text, "add_job_timeouts_total", "counter", "Jobs given up because they exceeded the job timeout.");
+        sample(text, "add_job_timeouts_total", "", jobs.getOrDefault(label("status", JOB_TIMEOUT), 0L));
+        header(text, "add_invalid_diffs_total", "counter", "Jobs failed because their diff does not apply.");
+        sample(text, "add_invalid_diffs_total", "", invalidDiffs);
+
+        header(text, "add_job_duration_seconds", "histogram", "Wall time of the jobs.");
+        histogram(text, "add_job_duration_seconds", "", jobDurations);
+        header(text, "add_stage_duration_seconds", "histogram", "Wall time of the pipeline stages, per job.");
+        for (Map.Entry<String, Histogram> histogram : stageDurations.entrySet()) {
+            histogram(text, "add_stage_duration_seconds", histogram.getKey(), histogram.getValue());
+        }
+        header(text, "add_analyzer_duration_seconds", "histogram", "Wall time of the analyzers, per job.");
+        for (Map.Entry<String, Histogram> histogram : analyzerDurations.entrySet()) {
+            histogram(text, "add_analyzer_duration_seconds", histogram.getKey(), histogram.getValue());
+        }
+
+        writeJvmMetrics(text);
+        return text.toString();
+    }
+
+    private static void writeJvmMetrics(StringBuilder text) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        header(text, "jvm_memory_bytes_used", "gauge", "Used bytes of a JVM memory area.");
+        sample(text, "jvm_memory_bytes_used", label("area", "heap"), heap.getUsed());
+        sample(text, "jvm_memory_bytes_used", label("area", "nonheap"), nonHeap.getUsed());
+        header(text, "jvm_memory_bytes_committed", "gauge", "Committed bytes of a JVM memory area.");
+        sample(text, "jvm_memory_bytes_committed", label("area", "heap"), heap.getCommitted());
+        sample(text, "jvm_memory_bytes_committed", label("area", "nonheap"), nonHeap.getCommitted());
+        // the maximum is undefined (-1) when the area is not bounded
+        header(text, "jvm_memory_bytes_max", "gauge", "Maximum bytes of a JVM memory area.");
+        if (heap.getMax() >= 0) {
+            sample(text, "jvm_memory_bytes_max", label("area", "heap"), heap.getMax());
+        }
+        if (nonHeap.getMax() >= 0) {
+            sample(text, "jvm_memory_bytes_max", label("area", "nonheap"), nonHeap.getMax());
+        }
+
+        header(text, "jvm_gc_collection_seconds", "summary", "Time spent in a JVM garbage collector.");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc.getCollectionCount() < 0) {
+                continue;
+            }
+            String labels = label("gc", gc.getName());
+            sample(text, "jvm_gc_collection_seconds_count", labels, gc.getCollectionCount());
+            sample(text, "jvm_gc_collection_seconds_sum", labels, gc.getCollectionTime() / 1000.0);
+        }
+    }
+
+    private static void header(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder text, String name, String labels, Object value) {
+        text.append(name);
+        if (!labels.isEmpty()) {
+            text.append('{').append(labels).append('}');
+        }
+        text.append(' ').append(value).append('\n');
+    }
+
+    private static void histogram(StringBuilder text, String name, String labels, Histogram histogram) {
+        String bucketLabels = labels.isEmpty() ? "" : labels + ",";
+        for (int i = 0; i < BUCKETS.length; i++) {
+            sample(text, name + "_bucket", bucketLabels + label("le", String.valueOf(BUCKETS[i])),
+                    histogram.buckets[i]);
+        }
+        sample(text, name + "_bucket", bucketLabels + label("le", "+Inf"), histogram.count);
+        sample(text, name + "_sum", labels, toSeconds(histogram.sumNanos));
+        sample(text, name + "_count", labels, histogram.count);
+    }
+
+    static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    private static double toSeconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+}
@@ -0,0 +1,143 @@
+package add.main;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import add.features.diffanalyzer.LineStore;
+
+/**
+ * Loads the source files of a bug and prepares the content given to Spoon.
+ *
+ * A file is read with a single NIO read into one buffer and decoded at once, with the encoding of the
+ * <code>source_encoding</code> property: a charset name, or <code>auto</code> to read the files with a UTF-8 byte
+ * order mark or valid UTF-8 content as UTF-8, and the other ones as ISO-8859-1.
+ */
+public class SourceLoader {
+
+    public static final String ENCODING_PROPERTY = "source_encoding";
+
+    public static final String AUTO_ENCODING = "auto";
+
+    private static final String DEFAULT_ENCODING = "ISO-8859-1";
+
+    // the imports of annotations that are commented out, since Spoon fails on them in noclasspath mode
+    private static final String ANNOTATION_IMPORT = "import javax.annotation.";
+    private static final String[] COMMENTED_OUT_ANNOTATIONS = { "Nullable", "CheckForNull" };
+    private static final String COMMENT = "// ";
+
+    /**
+     * @return the content of the file, decoded with the encoding of the properties
+     */
+    public static CharBuffer read(Path path) throws IOException {
+        return read(path, getEncoding());
+    }
+
+    /**
+     * @return the content, such as the one of a blob of a Git repository, decoded with the encoding of the properties
+     */
+    public static CharBuffer decode(byte[] content) throws CharacterCodingException {
+        return decode(ByteBuffer.wrap(content), getEncoding());
+    }
+
+    private static String getEncoding() {
+        String encoding = ExtractorProperties.getProperty(ENCODING_PROPERTY);
+        return encoding == null || encoding.trim().isEmpty() ? DEFAULT_ENCODING : encoding.trim();
+    }
+
+    /**
+     * @param encoding a charset name, or {@link #AUTO_ENCODING}
+     * @return the content of the file, in a char buffer backed by an array
+     */
+    public static CharBuffer read(Path path, String encoding) throws IOException {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + path);
+            }
+            bytes = ByteBuffer.allocate((int) size);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // reads until the end of the file
+            }
+            bytes.flip();
+        }
+        return decode(bytes, encoding);
+    }
+
+    static CharBuffer decode(ByteBuffer bytes, String encoding) throws CharacterCodingException {
+        if (!AUTO_ENCODING.equalsIgnoreCase(encoding)) {
+            // like the readers, the malformed input is replaced
+            return Charset.forName(encoding).newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE).decode(bytes);
+        }
+        if (bytes.remaining() >= 3 && (bytes.get(bytes.position()) & 0xFF) == 0xEF
+                && (bytes.get(bytes.position() + 1) & 0xFF) == 0xBB && (bytes.get(bytes.position() + 2) & 0xFF) == 0xBF) {
+            bytes.position(bytes.position() + 3);
+            return StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE).decode(bytes);
+        }
+        int start = bytes.position();
+        try {
+            return StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT).decode(bytes);
+        } catch (CharacterCodingException e) {
+            bytes.position(start);
+            return StandardCharsets.ISO_8859_1.decode(bytes);
+        }
+    }
+
+    /**
+     * @return the content given to Spoon for the lines of a file: the lines joined with {@link Constants#LINE_BREAK},
+     *         with the imports of the <code>javax.annotation</code> annotations Spoon fails on commented out. The
+     *         imports are rewritten while the lines are copied, in a single pass.
+     */
+    public static String toSpoonSource(List<String> lines) {
+        StringBuilder source = new StringBuilder(LineStore.estimateLength(Constants.LINE_BREAK, lines));
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) {
+                source.append(Constants.LINE_BREAK);
+            }
+            int lineStart = source.length();
+            LineStore.appendLine(source, lines, i);
+            commentOutAnnotationImports(source, lineStart);
+        }
+        return source.toString();
+    }
+
+    private static void commentOutAnnotationImports(StringBuilder source, int from) {
+        int index = source.indexOf(ANNOTATION_IMPORT, from);
+        while (index >= 0) {
+            int next = index + ANNOTATION_IMPORT.length();
+            for (String annotation : COMMENTED_OUT_ANNOTATIONS) {
+                if (regionMatches(source, next, annotation)) {
+                    source.insert(index, COMMENT);
+                    next += COMMENT.length();
+                    break;
+                }
+            }
+            index = source.indexOf(ANNOTATION_IMPORT, next);
+        }
+    }
+
+    private static boolean regionMatches(StringBuilder source, int offset, String text) {
+        if (offset + text.length() > source.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (source.charAt(offset + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
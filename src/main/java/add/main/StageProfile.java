@@ -0,0 +1,211 @@
+package add.main;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import org.json.JSONObject;
+
+/**
+ * The wall time, CPU time and allocated bytes of each stage of the analysis of one bug, measured with the
+ * {@link ThreadMXBean} of the JVM.
+ *
+ * The profiling is opt-in, with the <code>profile_stages</code> property. A profile is made current on the thread
+ * analyzing the bug with {@link #activate()}, and the stages call {@link #measure(String, Supplier)}, which does
+ * nothing but run the stage when no profile is current. The tasks handed to other threads are wrapped with
+ * {@link #propagate(Callable)}, so that their stages are recorded in the profile of the bug. A stage run several
+ * times is accumulated.
+ *
+ * The wall time of a stage includes the one of the stages nested in it, wherever they run. The CPU time and the
+ * allocated bytes are measured per thread, so those of a stage only include the stages nested in it that run on the
+ * same thread, not the ones handed to other threads. Since the runs of a stage on concurrent threads are summed, the
+ * wall time of such a stage may exceed the one of the stage enclosing it.
+ */
+public class StageProfile {
+
+    public static final String PROPERTY = "profile_stages";
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final ThreadLocal<StageProfile> CURRENT = new ThreadLocal<>();
+
+    // the count, the wall time, the CPU time and the allocated bytes of each stage, in the order of their first run
+    private final Map<String, long[]> stages = new LinkedHashMap<>();
+
+    public static boolean isEnabled() {
+        return ExtractorProperties.getPropertyBoolean(PROPERTY);
+    }
+
+    /**
+     * @return the profile of the calling thread, or null when the stages are not profiled
+     */
+    public static StageProfile current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes the profile current on the calling thread, until the returned scope is closed.
+     */
+    public Scope activate() {
+        StageProfile previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> CURRENT.set(previous);
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * @return the task, running with the current profile of the calling thread
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        StageProfile profile = CURRENT.get();
+        if (profile == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope scope = profile.activate()) {
+                return task.call();
+            }
+        };
+    }
+
+    public static Runnable propagate(Runnable task) {
+        StageProfile profile = CURRENT.get();
+        if (profile == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope scope = profile.activate()) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * Runs the stage, and records it in the current profile if there is one.
+     */
+    public static <T> T measure(String stage, Supplier<T> work) {
+        StageProfile profile = CURRENT.get();
+        if (profile == null) {
+            return work.get();
+        }
+        long[] start = start();
+        try {
+            return work.get();
+        } finally {
+            profile.stop(stage, start);
+        }
+    }
+
+    /**
+     * Runs the stage, which may throw a checked exception, and records it in the current profile if there is one.
+     */
+    public static <T> T measureCall(String stage, Callable<T> work) throws Exception {
+        StageProfile profile = CURRENT.get();
+        if (profile == null) {
+            return work.call();
+        }
+        long[] start = start();
+        try {
+            return work.call();
+        } finally {
+            profile.stop(stage, start);
+        }
+    }
+
+    /**
+     * Runs the stage, and records it in the current profile if there is one.
+     */
+    public static void measure(String stage, Runnable work) {
+        measure(stage, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return the wall time, the CPU time and the allocated bytes of the calling thread at the start of a stage
+     */
+    private static long[] start() {
+        return new long[] { System.nanoTime(), getCpuTime(), getAllocatedBytes() };
+    }
+
+    private void stop(String stage, long[] start) {
+        record(stage, System.nanoTime() - start[0], delta(start[1], getCpuTime()),
+                delta(start[2], getAllocatedBytes()));
+    }
+
+    private static long getCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long getAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static long delta(long before, long after) {
+        return before < 0 || after < 0 ? -1 : after - before;
+    }
+
+    private synchronized void record(String stage, long wallNanos, long cpuNanos, long allocatedBytes) {
+        long[] figures = stages.get(stage);
+        if (figures == null) {
+            figures = new long[4];
+            stages.put(stage, figures);
+        }
+        figures[0]++;
+        figures[1] += wallNanos;
+        figures[2] = figures[2] < 0 || cpuNanos < 0 ? -1 : figures[2] + cpuNanos;
+        figures[3] = figures[3] < 0 || allocatedBytes < 0 ? -1 : figures[3] + allocatedBytes;
+    }
+
+    /**
+     * @return the wall time in nanoseconds of each stage, in the order of their first run
+     */
+    public synchronized Map<String, Long> getWallTimes() {
+        Map<String, Long> wallTimes = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> stage : stages.entrySet()) {
+            wallTimes.put(stage.getKey(), stage.getValue()[1]);
+        }
+        return wallTimes;
+    }
+
+    /**
+     * @return the figures of each stage; the CPU time and the allocated bytes are left out when the JVM does not
+     *         measure them
+     */
+    public synchronized JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        for (Map.Entry<String, long[]> stage : stages.entrySet()) {
+            long[] figures = stage.getValue();
+            JSONObject jsonStage = new JSONObject();
+            jsonStage.put("count", figures[0]);
+            jsonStage.put("wallMs", toMilliseconds(figures[1]));
+            if (figures[2] >= 0) {
+                jsonStage.put("cpuMs", toMilliseconds(figures[2]));
+            }
+            if (figures[3] >= 0) {
+                jsonStage.put("allocatedBytes", figures[3]);
+            }
+            json.put(stage.getKey(), jsonStage);
+        }
+        return json;
+    }
+
+    private static double toMilliseconds(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+}
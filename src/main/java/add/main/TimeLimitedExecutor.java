@@ -0,0 +1,246 @@
+package add.main;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a pool of threads, each task with a time limit that starts when the task starts running, so that the
+ * time a task waits in the queue of the pool does not count against it.
+ *
+ * Spoon and GumTree do not check for interrupts, so a task exceeding its time limit generally cannot be stopped: it
+ * is interrupted, in case it checks, and given up. Its thread is counted as lost until the task returns, and the pool
+ * gets a replacement thread, so that a stuck task does not take a worker away from the next ones. The number of
+ * replaced threads is bounded: past the bound, the tasks wait for a lost thread to return.
+ *
+ * The time limits are enforced by a timer thread of the executor, whether the result of the task is waited for or
+ * not, so that all the tasks can be submitted at once and their results collected in any order. A task that returns
+ * before the timer gives it up is not given up: its result is reported.
+ */
+public class TimeLimitedExecutor implements AutoCloseable {
+
+    private final int nbThreads;
+    private final int maxLostThreads;
+    private final ThreadPoolExecutor pool;
+    private final ScheduledThreadPoolExecutor timer;
+    private final AtomicInteger runningTasks = new AtomicInteger();
+    private int lostThreads;
+
+    /**
+     * Creates an executor replacing as many lost threads as it has threads.
+     */
+    public TimeLimitedExecutor(String name, int nbThreads) {
+        this(name, nbThreads, nbThreads);
+    }
+
+    /**
+     * @param name the prefix of the names of the threads, which are daemons
+     * @param maxLostThreads the number of lost threads that are replaced
+     */
+    public TimeLimitedExecutor(String name, int nbThreads, int maxLostThreads) {
+        this.nbThreads = nbThreads;
+        this.maxLostThreads = maxLostThreads;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(nbThreads, nbThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.pool.allowCoreThreadTimeOut(true);
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, name + "-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // the deadlines of the tasks that returned in time do not pile up in the queue of the timer
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Submits a task, which runs with the current {@link StageProfile} of the calling thread.
+     */
+    public <T> TimedTask<T> submit(Callable<T> callable, long timeout, TimeUnit unit) {
+        TimedTask<T> task = new TimedTask<>(StageProfile.propagate(callable), unit.toNanos(timeout));
+        pool.execute(task);
+        return task;
+    }
+
+    /**
+     * Runs a task and waits for its result.
+     *
+     * @see TimedTask#get()
+     */
+    public <T> T call(Callable<T> callable, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return submit(callable, timeout, unit).get();
+    }
+
+    /**
+     * @return the number of tasks running, including the ones given up that did not return yet
+     */
+    public int getRunningTasks() {
+        return runningTasks.get();
+    }
+
+    /**
+     * @return the number of threads running a task that was given up
+     */
+    public synchronized int getLostThreads() {
+        return lostThreads;
+    }
+
+    private synchronized void threadLost() {
+        lostThreads++;
+        resize();
+    }
+
+    private synchronized void threadReturned() {
+        lostThreads--;
+        resize();
+    }
+
+    private void resize() {
+        int size = nbThreads + Math.min(lostThreads, maxLostThreads);
+        // the core size must never exceed the maximum size
+        if (size > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(size);
+            pool.setCorePoolSize(size);
+        } else {
+            pool.setCorePoolSize(size);
+            pool.setMaximumPoolSize(size);
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    /**
+     * A task of the executor, whose result is waited for with {@link #get()}.
+     */
+    public final class TimedTask<T> implements Runnable {
+        private final Callable<T> callable;
+        private final long timeoutNanos;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        // the reason the timer gave up the task with, set before the result is completed
+        private volatile TimeoutException timeout;
+        // the state of the thread running the task, guarded by the task
+        private Thread runner;
+        private long startNanos;
+        private long endNanos;
+        private ScheduledFuture<?> deadline;
+        private boolean finished;
+        private boolean lost;
+
+        private TimedTask(Callable<T> callable, long timeoutNanos) {
+            this.callable = callable;
+            this.timeoutNanos = timeoutNanos;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (result.isDone()) {
+                    // given up before it started
+                    return;
+                }
+                runner = Thread.currentThread();
+                runningTasks.incrementAndGet();
+                startNanos = System.nanoTime();
+                deadline = timer.schedule(this::timeOut, timeoutNanos, TimeUnit.NANOSECONDS);
+            }
+            T value = null;
+            Throwable failure = null;
+            try {
+                value = callable.call();
+            } catch (Throwable e) {
+                failure = e;
+            }
+            synchronized (this) {
+                finished = true;
+                endNanos = System.nanoTime();
+                deadline.cancel(false);
+                // the interrupt sent when the task was given up must not reach the next task of the thread
+                Thread.interrupted();
+                if (lost) {
+                    threadReturned();
+                }
+                // the counters are up to date when the result is seen
+                runningTasks.decrementAndGet();
+                if (failure == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(failure);
+                }
+            }
+        }
+
+        /**
+         * Waits for the result of the task, which is available at the latest when the task exceeds its time limit.
+         * The task is given up when the calling thread is interrupted.
+         *
+         * @throws TimeoutException if the task exceeded its time limit
+         * @throws ExecutionException if the task failed
+         */
+        public T get() throws InterruptedException, ExecutionException, TimeoutException {
+            try {
+                return result.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() == timeout) {
+                    throw timeout;
+                }
+                throw e;
+            } catch (InterruptedException e) {
+                giveUp(new CancellationException("interrupted"));
+                throw e;
+            }
+        }
+
+        /**
+         * @return how long the task ran, or has been running if it did not return yet, or 0 if it did not start
+         */
+        public synchronized long getRunningTime(TimeUnit unit) {
+            if (runner == null) {
+                return 0;
+            }
+            return unit.convert((finished ? endNanos : System.nanoTime()) - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void timeOut() {
+            TimeoutException reason = new TimeoutException(
+                    "exceeded its time limit of " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms");
+            timeout = reason;
+            giveUp(reason);
+        }
+
+        /**
+         * @return whether the task was given up, which is not the case if it already returned
+         */
+        private synchronized boolean giveUp(Throwable reason) {
+            // the result is only completed under the lock of the task
+            if (result.isDone()) {
+                return false;
+            }
+            if (runner != null && !finished) {
+                lost = true;
+                threadLost();
+                runner.interrupt();
+            }
+            // the counters are up to date when the result is seen
+            result.completeExceptionally(reason);
+            return true;
+        }
+    }
+
+}
@@ -1,25 +1,14 @@
 package add.main;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.io.BufferedReader;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.BufferedReader;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
-import java.util.LinkedList;
+import java.nio.file.Paths;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import add.features.diffanalyzer.LineStore;
+
 
 public class Utils {
     private static Logger LOGGER = LoggerFactory.getLogger(Utils.class);
@@ -34,21 +23,16 @@ public class Utils {
         return fileName;
     }
 
+    /**
+     * @return the lines of the file, in a {@link LineStore} over its whole content, as read by {@link SourceLoader}
+     */
     public static List<String> fileToLines(String filename) {
-        List<String> lines = new LinkedList<String>();
-        String line;
         try {
-            InputStream is = new FileInputStream(filename);
-            int BUFFER_SIZE = 8192;
-
-            BufferedReader in = new BufferedReader(new InputStreamReader(is, Charset.forName("ISO-8859-1")), BUFFER_SIZE);
-            while ((line = in.readLine()) != null) {
-                lines.add(line);
-            }
+            return LineStore.of(SourceLoader.read(Paths.get(filename)));
         } catch (IOException e) {
             LOGGER.error(e.toString());
         }
-        return lines;
+        return LineStore.of("");
     }
 
 }
@@ -1,10 +1,19 @@
 package diffson;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -14,7 +23,10 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 import org.apache.log4j.Logger;
 import com.github.gumtreediff.tree.ITree;
 import com.google.gson.Gson;
@@ -22,6 +34,7 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import add.entities.PatternInstance;
 import add.entities.RepairPatterns;
 import add.features.codefeatures.Cntx;
@@ -29,15 +42,18 @@ import add.features.codefeatures.CodeFeatureDetector;
 import add.features.detector.EditScriptBasedDetector;
 import add.features.detector.repairpatterns.MappingAnalysis;
 import add.features.detector.repairpatterns.RepairPatternDetector;
+import add.features.detector.spoon.EditScriptCache;
 import add.features.utils.MapList;
 import add.main.Config;
+import add.main.StageProfile;
 import add.main.TimeChrono;
+import add.main.TimeLimitedExecutor;
+import add.main.TimeLimitedExecutor.TimedTask;
 import gumtree.spoon.AstComparator;
 import gumtree.spoon.builder.Json4SpoonGenerator;
 import gumtree.spoon.builder.SpoonGumTreeBuilder;
 import gumtree.spoon.builder.jsonsupport.NodePainter;
 import gumtree.spoon.diff.Diff;
-import gumtree.spoon.diff.DiffImpl;
 import gumtree.spoon.diff.operations.DeleteOperation;
 import gumtree.spoon.diff.operations.InsertOperation;
 import gumtree.spoon.diff.operations.MoveOperation;
@@ -53,6 +69,7 @@ import spoon.reflect.code.CtLiteral;
 import spoon.reflect.code.CtSwitch;
 import spoon.reflect.code.CtWhile;
 import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
 
 public class DiffContextAnalyzer {
 	File out = null;
@@ -73,52 +90,245 @@ public class DiffContextAnalyzer {
 	}
 
 	private Logger log = Logger.getLogger(this.getClass());
-	int error = 0;
-	int zero = 0;
-	int withactions = 0;
+	AtomicInteger error = new AtomicInteger();
+	AtomicInteger zero = new AtomicInteger();
+	AtomicInteger withactions = new AtomicInteger();
+	AtomicInteger timeouts = new AtomicInteger();
+	AtomicInteger commitsAnalyzed = new AtomicInteger();
+	AtomicInteger filesAnalyzed = new AtomicInteger();
+
+	public static final long DIFF_TIMEOUT_SECONDS = 60;
+	public static final long CONTEXT_TIMEOUT_SECONDS = 5 * 60;
+	public static final int PROGRESS_LOG_INTERVAL = 100;
+	public static final String JOURNAL_FILE = "journal.jsonl";
 
-	@SuppressWarnings("unchecked")
-	public void run(String path) throws Exception {
+	/**
+	 * Number of commits analyzed concurrently by {@link #run(String)}, and size of the executor shared by all the
+	 * AST diff and context computations.
+	 */
+	private int nbThreads = 1;
 
-		error = 0;
-		zero = 0;
-		withactions = 0;
+	private TimeLimitedExecutor analysisExecutor = null;
 
-		File dir = new File(path);
+	/**
+	 * When set, {@link #atEndCommit(File, Map)} streams the context of each commit to its output file instead of
+	 * building it in memory, optionally gzipped and without indentation.
+	 */
+	private boolean streamOutput = PDDConfigurationProperties.getPropertyBoolean("stream_json_output");
+	private boolean compressOutput = PDDConfigurationProperties.getPropertyBoolean("compress_json_output");
+	private boolean prettyOutput = !PDDConfigurationProperties.getPropertyBoolean("compact_json_output");
 
-		beforeStart();
+	public void setStreamOutput(boolean streamOutput) {
+		this.streamOutput = streamOutput;
+	}
 
-		for (File difffile : dir.listFiles()) {
-			
-			TimeChrono cr = new TimeChrono();
-			cr.start();
-			Map<String, Diff> diffOfcommit = new HashMap();
+	public void setCompressOutput(boolean compressOutput) {
+		this.compressOutput = compressOutput;
+	}
 
-			if (difffile.isFile() || difffile.listFiles() == null)
-				continue;
+	public void setPrettyOutput(boolean prettyOutput) {
+		this.prettyOutput = prettyOutput;
+	}
 
-			if (!acceptFile(difffile)) {
-				continue;
-			}
+	/**
+	 * When set, {@link #run(String)} keeps the journal of the previous run in the output directory and only analyzes
+	 * the commits that it did not complete, or whose files changed since. Otherwise, all the commits are analyzed
+	 * and the journal starts empty.
+	 */
+	private boolean resume = false;
 
-			processDiff(difffile, diffOfcommit);
+	private RunJournal journal = null;
 
-			// here, at the end, we compute the Context
-			atEndCommit(difffile, diffOfcommit);
-			
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+
+	public void setNbThreads(int nbThreads) {
+		this.nbThreads = Math.max(1, nbThreads);
+	}
+
+	public int getNbThreads() {
+		return nbThreads;
+	}
+
+	/**
+	 * The executor shared by all the diff and context computations of this analyzer. Its threads are daemons and
+	 * die after one minute of inactivity, so the analyzer does not need to be closed. The time limit of a
+	 * computation starts when it starts running, and the threads of the computations given up are replaced, up to
+	 * the number of threads of the analyzer.
+	 */
+	private synchronized TimeLimitedExecutor getAnalysisExecutor() {
+		if (analysisExecutor == null) {
+			analysisExecutor = new TimeLimitedExecutor("diff-context-analyzer", nbThreads);
 		}
-		
+		return analysisExecutor;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void run(String path) throws Exception {
+
+		error.set(0);
+		zero.set(0);
+		withactions.set(0);
+		timeouts.set(0);
+		commitsAnalyzed.set(0);
+		filesAnalyzed.set(0);
+
+		File dir = new File(path);
+
+		beforeStart();
+
+		File[] commits = dir.listFiles();
+		long start = System.currentTimeMillis();
+		journal = new RunJournal(new File(out, JOURNAL_FILE), resume);
+		try {
+			analyzeCommits(commits, start);
+		} finally {
+			journal.close();
+			journal = null;
+		}
+
 		log.info("Final Results: ");
 		log.info("----");
 		log.info("Withactions " + withactions);
 		log.info("Zero " + zero);
 		log.info("Error " + error);
+		log.info("Timeouts " + timeouts);
+		logProgress(commits.length, start);
 
 		beforeEnd();
 	}
 
-	@SuppressWarnings("unchecked")
+	private void analyzeCommits(File[] commits, long start) throws InterruptedException {
+		if (nbThreads <= 1) {
+			for (File difffile : commits) {
+				analyzeCommit(difffile, commits.length, start);
+			}
+		} else {
+			// the commit workers only wait for the analysis executor, so both pools can have the same bound
+			ExecutorService commitExecutor = Executors.newFixedThreadPool(nbThreads);
+			try {
+				List<Future<?>> commitFutures = new ArrayList<>();
+				for (File difffile : commits) {
+					commitFutures.add(commitExecutor.submit(() -> analyzeCommit(difffile, commits.length, start)));
+				}
+				for (Future<?> commitFuture : commitFutures) {
+					try {
+						commitFuture.get();
+					} catch (ExecutionException e) {
+						log.error("caught exception: " + e.getCause());
+					}
+				}
+			} finally {
+				commitExecutor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Analyzes one commit and records its outcome in the journal: timeout if one of its computations timed out,
+	 * failed if one of its files could not be diffed or its output could not be written, skipped if it has no file
+	 * to diff, ok otherwise.
+	 */
+	private void analyzeCommit(File difffile, int nbCommits, long start) {
+		TimeChrono cr = new TimeChrono();
+		cr.start();
+		Map<String, Diff> diffOfcommit = new HashMap();
+
+		if (difffile.isFile() || difffile.listFiles() == null)
+			return;
+
+		String inputHash;
+		try {
+			inputHash = RunJournal.hash(difffile);
+		} catch (IOException e) {
+			log.error("could not read " + difffile + ": " + e);
+			journal.record(difffile.getName(), RunJournal.STATUS_FAILED, null, 0, e.toString());
+			return;
+		}
+
+		if (!acceptFile(difffile, inputHash)) {
+			return;
+		}
+
+		CommitStatus status = new CommitStatus();
+		StageProfile profile = StageProfile.isEnabled() ? new StageProfile() : null;
+		try (StageProfile.Scope scope = profile == null ? null : profile.activate()) {
+			processDiff(difffile, diffOfcommit, status);
+
+			// here, at the end, we compute the Context
+			atEndCommit(difffile, diffOfcommit, status);
+		} catch (RuntimeException e) {
+			log.error("could not analyze " + difffile + ": " + e);
+			status.fail(e.toString());
+		}
+		cr.stop();
+		journal.record(difffile.getName(), status.get(), inputHash, cr.getMilliseconds(), status.error, profile);
+
+		if (commitsAnalyzed.incrementAndGet() % PROGRESS_LOG_INTERVAL == 0) {
+			logProgress(nbCommits, start);
+		}
+	}
+
+	/**
+	 * The outcome of the analysis of one commit, updated by the threads working on it.
+	 */
+	private static final class CommitStatus {
+		private volatile boolean timedOut;
+		private volatile boolean failed;
+		private volatile boolean hasFiles;
+		private volatile String error;
+
+		void timeout(String message) {
+			timedOut = true;
+			error = message;
+		}
+
+		void fail(String message) {
+			failed = true;
+			if (error == null) {
+				error = message;
+			}
+		}
+
+		String get() {
+			if (timedOut) {
+				return RunJournal.STATUS_TIMEOUT;
+			}
+			if (failed) {
+				return RunJournal.STATUS_FAILED;
+			}
+			return hasFiles ? RunJournal.STATUS_OK : RunJournal.STATUS_SKIPPED;
+		}
+	}
+
+	private void logProgress(int nbCommits, long start) {
+		double seconds = Math.max(1, System.currentTimeMillis() - start) / 1000.0;
+		log.info(String.format("Progress: %d/%d commits, %d files, %d timeouts, %.2f commits/s, %.2f files/s",
+				commitsAnalyzed.get(), nbCommits, filesAnalyzed.get(), timeouts.get(),
+				commitsAnalyzed.get() / seconds, filesAnalyzed.get() / seconds));
+	}
+
+	public int getNbCommitsAnalyzed() {
+		return commitsAnalyzed.get();
+	}
+
+	public int getNbFilesAnalyzed() {
+		return filesAnalyzed.get();
+	}
+
+	public int getNbTimeouts() {
+		return timeouts.get();
+	}
+
 	public void processDiff(File difffile, Map<String, Diff> diffOfcommit) {
+		processDiff(difffile, diffOfcommit, new CommitStatus());
+	}
+
+	@SuppressWarnings("unchecked")
+	private void processDiff(File difffile, Map<String, Diff> diffOfcommit, CommitStatus status) {
+		// all the files of the commit are diffed concurrently on the shared executor
+		Map<String, TimedTask<Diff>> diffFutures = new LinkedHashMap<>();
 		for (File fileModif : difffile.listFiles()) {
 			int i_hunk = 0;
 
@@ -146,25 +356,37 @@ public class DiffContextAnalyzer {
 
 			File postVersion = new File(pathname + "_t.java");
 			i_hunk++;
+
+			String key = fileModif.getParentFile().getName() + "_" + fileModif.getName();
+			status.hasFiles = true;
+			diffFutures.put(key, getfutureResult(previousVersion, postVersion));
+		}
+
+		for (Map.Entry<String, TimedTask<Diff>> diffFuture : diffFutures.entrySet()) {
 			try {
-				Diff diff = getdiffFuture(previousVersion, postVersion);
+				Diff diff = getResult(diffFuture.getValue(), "timeout", status);
+				filesAnalyzed.incrementAndGet();
+				if (diff == null) {
+					error.incrementAndGet();
+					status.fail("no diff for " + diffFuture.getKey());
+					continue;
+				}
 
-				String key = fileModif.getParentFile().getName() + "_" + fileModif.getName();
-				diffOfcommit.put(key, diff);
+				diffOfcommit.put(diffFuture.getKey(), diff);
 
 				if (diff.getAllOperations().size() > 0) {
 
-					withactions++;
+					withactions.incrementAndGet();
 
 				} else {
-					zero++;
+					zero.incrementAndGet();
 				}
 
 			} catch (Throwable e) {
 				e.printStackTrace();
-				error++;
+				error.incrementAndGet();
+				status.fail(e.toString());
 			}
-
 		}
 	}
 
@@ -176,56 +398,84 @@ public class DiffContextAnalyzer {
 		// Do nothing
 	}
 
-	private Future<Diff> getfutureResult(ExecutorService executorService, File left, File right) {
+	private TimedTask<Diff> getfutureResult(File left, File right) {
 
-		Future<Diff> future = executorService.submit(() -> {
+		TimedTask<Diff> future = getAnalysisExecutor().submit(() -> {
 
 			AstComparator comparator = new AstComparator();
-			return comparator.compare(left, right);
+			EditScriptCache cache = EditScriptCache.fromProperties();
+			if (cache != null) {
+				CtType<?> leftType = StageProfile.measureCall("modelBuild.old", () -> comparator.getCtType(left));
+				CtType<?> rightType = StageProfile.measureCall("modelBuild.new", () -> comparator.getCtType(right));
+				if (leftType != null && rightType != null) {
+					return StageProfile.measureCall("astDiff",
+							() -> cache.compare(EditScriptCache.computeKey(left, right), leftType, rightType));
+				}
+			}
+			// the comparator builds both models and diffs them
+			return StageProfile.measureCall("fileDiff", () -> comparator.compare(left, right));
 
-		});
+		}, DIFF_TIMEOUT_SECONDS, TimeUnit.SECONDS);
 		return future;
 	}
 
-	public Diff getdiffFuture(File left, File right) throws Exception {
-		ExecutorService executorService = Executors.newSingleThreadExecutor();
-		Future<Diff> future = getfutureResult(executorService, left, right);
-
-		Diff resukltDiff = null;
+	/**
+	 * Waits for the result of a task of the analysis executor, until its time limit, which starts when the task
+	 * starts running. A task exceeding it is given up and interrupted: the context loops check the interrupted flag
+	 * and stop, but GumTree and Spoon do not, so a diff may keep its thread until it returns. The executor counts
+	 * such threads as lost and replaces them, so that the next tasks still have a thread.
+	 */
+	private <T> T getResult(TimedTask<T> future, String timeoutMessage, CommitStatus status) {
 		try {
-			resukltDiff = future.get(60, TimeUnit.SECONDS);
+			return future.get();
 		} catch (InterruptedException e) {
 			log.error("job was interrupted");
+			Thread.currentThread().interrupt();
+			status.fail("interrupted");
 		} catch (ExecutionException e) {
 			log.error("caught exception: " + e.getCause());
+			status.fail(String.valueOf(e.getCause()));
 		} catch (TimeoutException e) {
-			log.error("timeout");
+			log.error(timeoutMessage + " (" + getAnalysisExecutor().getLostThreads() + " threads still running)");
+			timeouts.incrementAndGet();
+			status.timeout(timeoutMessage);
 		}
+		return null;
+	}
 
-		executorService.shutdown();
-		
-		try {
-		    if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
-		        executorService.shutdownNow();
-		    } 
-		} catch (InterruptedException e) {
-		    executorService.shutdownNow();
-		}
-		
-		return resukltDiff;
+	public Diff getdiffFuture(File left, File right) throws Exception {
+		return getResult(getfutureResult(left, right), "timeout", new CommitStatus());
+	}
 
+	/**
+	 * @return whether the commit must be analyzed: always, unless the run is resumed and the journal records that
+	 *         the commit was completed with the same files and its output is there
+	 */
+	protected boolean acceptFile(File fileModif, String inputHash) {
+		if (!resume || journal == null || !journal.isCompleted(fileModif.getName(), inputHash)) {
+			return true;
+		}
+		String name = fileModif.getName() + (streamOutput && compressOutput ? ".json.gz" : ".json");
+		return !new File(out, name).exists();
 	}
 
-	protected boolean acceptFile(File fileModif) {
-		File f = new File(out.getAbsolutePath() + File.separator + fileModif.getName() + ".json");
-		return !f.exists();
+	public JsonObject atEndCommit(File difffile, Map<String, Diff> diffOfcommit) {
+		return atEndCommit(difffile, diffOfcommit, new CommitStatus());
 	}
 
 	@SuppressWarnings("unchecked")
-	public JsonObject atEndCommit(File difffile, Map<String, Diff> diffOfcommit) {
+	private JsonObject atEndCommit(File difffile, Map<String, Diff> diffOfcommit, CommitStatus status) {
+		if (streamOutput) {
+			streamCommit(difffile, diffOfcommit, status);
+			return null;
+		}
 		try {
 
-			JsonObject statsjsonRoot = getContextFuture(difffile.getName(), diffOfcommit);
+			JsonObject statsjsonRoot = getResult(getContextInFeature(difffile.getName(), diffOfcommit),
+					"timeout context analyzed.", status);
+			if (statsjsonRoot == null) {
+				return null;
+			}
 			Gson gson = new GsonBuilder().setPrettyPrinting().create();
 
 			boolean savePerFile = false;// testing
@@ -236,68 +486,107 @@ public class DiffContextAnalyzer {
 
 					String name = jsonElement.getAsJsonObject().getAsJsonPrimitive("file").getAsString();
 
-					FileWriter fw = new FileWriter(out.getAbsolutePath() + File.separator + name + ".json");
-
 					String prettyJsonString = gson.toJson(jsonElement);
-					fw.write(prettyJsonString);
-
-					fw.flush();
-					fw.close();
+					writeAtomically(new File(out, name + ".json"), prettyJsonString);
 				}
 
 			} else {
-				FileWriter fw = new FileWriter(out.getAbsolutePath() + File.separator + difffile.getName() + ".json");
-
 				// Gson gson = new GsonBuilder().setPrettyPrinting().create();
 				String prettyJsonString = gson.toJson(statsjsonRoot);
-				fw.write(prettyJsonString);
+				writeAtomically(new File(out, difffile.getName() + ".json"), prettyJsonString);
 				// System.out.println(prettyJsonString);
-				fw.flush();
-				fw.close();
 			}
 			return statsjsonRoot;
 		} catch (Exception e) {
 			e.printStackTrace();
+			status.fail(e.toString());
 			return null;
 		}
 	}
 
-	private Future<JsonObject> getContextInFeature(ExecutorService executorService, String id,
-			Map<String, Diff> diffOfcommit) {
+	/**
+	 * Writes the content to a temporary file that is renamed once it is complete, so that a crash never leaves a
+	 * truncated output.
+	 */
+	private void writeAtomically(File output, String content) throws IOException {
+		File partial = new File(output.getPath() + ".part");
+		try {
+			try (FileOutputStream stream = new FileOutputStream(partial);
+					OutputStreamWriter writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8)) {
+				writer.write(content);
+				writer.flush();
+				stream.getChannel().force(false);
+			}
+			Files.move(partial.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			partial.delete();
+		}
+	}
 
-		Future<JsonObject> future = executorService.submit(() -> {
-			JsonObject statsjsonRoot = calculateCntxJSON(id, diffOfcommit);
-			return statsjsonRoot;
-		});
-		return future;
+	/**
+	 * Writes the context of a commit directly to its output file, one pattern instance at a time, instead of
+	 * building the whole document in memory. The document is written to a temporary file that is renamed once it is
+	 * complete, so a timed-out commit never leaves a truncated output.
+	 */
+	public File streamCommit(File difffile, Map<String, Diff> diffOfcommit) {
+		return streamCommit(difffile, diffOfcommit, new CommitStatus());
 	}
 
-	public JsonObject getContextFuture(String id, Map<String, Diff> operations) throws Exception {
-		ExecutorService executorService = Executors.newSingleThreadExecutor();
-		Future<JsonObject> future = getContextInFeature(executorService, id, operations);
+	private File streamCommit(File difffile, Map<String, Diff> diffOfcommit, CommitStatus status) {
+		String name = difffile.getName() + (compressOutput ? ".json.gz" : ".json");
+		File output = new File(out, name);
+		File partial = new File(out, name + ".part");
 
-		JsonObject resukltDiff = null;
-		try {
-			resukltDiff = future.get(5, TimeUnit.MINUTES);
-		} catch (InterruptedException e) {
-			log.error("job was interrupted");
-		} catch (ExecutionException e) {
-			log.error("caught exception: " + e.getCause());
-		} catch (TimeoutException e) {
-			log.error("timeout context analyzed.");
-		}
+		TimedTask<File> future = getAnalysisExecutor().submit(() -> {
+			OutputStream stream = new BufferedOutputStream(new FileOutputStream(partial), 1 << 16);
+			if (compressOutput) {
+				stream = new GZIPOutputStream(stream, 1 << 16);
+			}
+			try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+				writer.setHtmlSafe(true);
+				if (prettyOutput) {
+					writer.setIndent("  ");
+				}
+				JsonWriter contextWriter = writer;
+				StageProfile.measure("context", () -> {
+					try {
+						writeCntxJSON(difffile.getName(), diffOfcommit, contextWriter);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			}
+			return partial;
+		}, CONTEXT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
 
-		executorService.shutdown();
-		
+		if (getResult(future, "timeout context analyzed.", status) == null) {
+			partial.delete();
+			return null;
+		}
 		try {
-		    if (!executorService.awaitTermination(60, TimeUnit.SECONDS)) {
-		        executorService.shutdownNow();
-		    } 
-		} catch (InterruptedException e) {
-		    executorService.shutdownNow();
+			Files.move(partial.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			return output;
+		} catch (IOException e) {
+			log.error("could not write " + output + ": " + e);
+			status.fail(e.toString());
+			partial.delete();
+			return null;
 		}
-		
-		return resukltDiff;
+	}
+
+	private TimedTask<JsonObject> getContextInFeature(String id, Map<String, Diff> diffOfcommit) {
+
+		TimedTask<JsonObject> future = getAnalysisExecutor().submit(() -> {
+			JsonObject statsjsonRoot = StageProfile.measure("context", () -> calculateCntxJSON(id, diffOfcommit));
+			return statsjsonRoot;
+		}, CONTEXT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		return future;
+	}
+
+	public JsonObject getContextFuture(String id, Map<String, Diff> operations) throws Exception {
+		return getResult(getContextInFeature(id, operations), "timeout context analyzed.", new CommitStatus());
 	}
 
 	/////// ---------=-=-=-=--=-=-=-
@@ -311,9 +600,12 @@ public class DiffContextAnalyzer {
 		statsjsonRoot.add("affected_files", filesArray);
 
 		for (String modifiedFile : operations.keySet()) {
+			if (Thread.currentThread().isInterrupted()) {
+				log.error("context of " + id + " cancelled");
+				break;
+			}
 			MapList<Operation, String> patternsPerOp = new MapList<>();
 			MapList<Operation, String> repairactionPerOp = new MapList<>();
-			List<PatternInstance> patternInstances = new ArrayList<>();
 
 			Diff diff = operations.get(modifiedFile);
 			List<Operation> operationsFromFile = diff.getRootOperations();
@@ -328,17 +620,7 @@ public class DiffContextAnalyzer {
 			   fileModified.addProperty("nr_root_ast_changes", diff.getRootOperations().size());
 			   filesArray.add(fileModified);
 
-			   Config config = new Config();
-			   EditScriptBasedDetector.preprocessEditScript(diff);
-			   TimeChrono cr = new TimeChrono();
-			   cr.start();
-			   RepairPatternDetector detector = new RepairPatternDetector(config, diff);
-			   RepairPatterns rp = detector.analyze();
-
-			   for (List<PatternInstance> pi : rp.getPatternInstances().values()) {
-				  patternInstances.addAll(pi);
-			   }
-			   cr.start();
+			   List<PatternInstance> patternInstances = detectPatternInstances(diff);
 
 			   JsonArray ast_arrays = calculateJSONAffectedStatementList(diff, operationsFromFile, patternsPerOp,
 					repairactionPerOp, patternInstances);
@@ -353,6 +635,67 @@ public class DiffContextAnalyzer {
 
 	}
 
+	/**
+	 * Streaming counterpart of {@link #calculateCntxJSON(String, Map)}: produces the same document, but each pattern
+	 * instance is written as soon as it is computed and then released, so the memory used does not depend on the
+	 * number of pattern instances of the commit.
+	 */
+	public void writeCntxJSON(String id, Map<String, Diff> operations, JsonWriter writer) throws IOException {
+		Gson gson = new Gson();
+
+		writer.beginObject();
+		writer.name("diffid").value(id);
+		writer.name("affected_files").beginArray();
+
+		for (String modifiedFile : operations.keySet()) {
+			if (Thread.currentThread().isInterrupted()) {
+				log.error("context of " + id + " cancelled");
+				break;
+			}
+			Diff diff = operations.get(modifiedFile);
+			List<Operation> operationsFromFile = diff.getRootOperations();
+
+			log.info("Diff file " + modifiedFile + " " + operationsFromFile.size());
+			if (operationsFromFile.size() <= 10) {
+				writer.beginObject();
+				writer.name("file").value(modifiedFile);
+				writer.name("nr_root_ast_changes").value(operationsFromFile.size());
+
+				List<PatternInstance> patternInstances = detectPatternInstances(diff);
+
+				writer.name("pattern_instances").beginArray();
+				calculateJSONAffectedStatementList(diff, patternInstances,
+						jsonInstance -> gson.toJson(jsonInstance, writer));
+				writer.endArray();
+
+				JsonObject astChanges = new JsonObject();
+				includeAstChangeInfoInJSon(diff, operationsFromFile, astChanges);
+				writer.name("ast_changes");
+				gson.toJson(astChanges.get("ast_changes"), writer);
+
+				writer.endObject();
+				writer.flush();
+			}
+		}
+
+		writer.endArray();
+		writer.endObject();
+	}
+
+	private List<PatternInstance> detectPatternInstances(Diff diff) {
+		List<PatternInstance> patternInstances = new ArrayList<>();
+
+		Config config = new Config();
+		EditScriptBasedDetector.preprocessEditScript(diff);
+		RepairPatternDetector detector = new RepairPatternDetector(config, diff);
+		RepairPatterns rp = detector.analyze();
+
+		for (List<PatternInstance> pi : rp.getPatternInstances().values()) {
+			patternInstances.addAll(pi);
+		}
+		return patternInstances;
+	}
+
 	public void includeAstChangeInfoInJSon(Diff diff, List<Operation> operationsFromFile, JsonObject fileModified) {
 		JsonArray ast_changes_arrays = new JsonArray();
 		// Here include optionality
@@ -417,13 +760,27 @@ public class DiffContextAnalyzer {
 			MapList<Operation, String> patternsPerOp, MapList<Operation, String> repairactionPerOp,
 			List<PatternInstance> patternInstancesOriginal) {
 
-		Json4SpoonGenerator jsongen = new Json4SpoonGenerator();
-
 		JsonArray ast_affected = new JsonArray();
 
+		calculateJSONAffectedStatementList(diff, patternInstancesOriginal, ast_affected::add);
+
+		return ast_affected;
+	}
+
+	/**
+	 * Computes the JSON of each pattern instance of the diff and hands it to the consumer as soon as it is complete.
+	 */
+	private void calculateJSONAffectedStatementList(Diff diff, List<PatternInstance> patternInstancesOriginal,
+			Consumer<JsonObject> instanceConsumer) {
+
+		Json4SpoonGenerator jsongen = new Json4SpoonGenerator();
+
 		List<PatternInstance> patternInstancesMerged = merge(patternInstancesOriginal);
 
 		for (PatternInstance patternInstance : patternInstancesMerged) {
+			if (Thread.currentThread().isInterrupted()) {
+				break;
+			}
 			Set<ITree> allTreeparents = new HashSet<>();
 			Operation opi = patternInstance.getOp();
 
@@ -477,20 +834,18 @@ public class DiffContextAnalyzer {
 			JsonObject jsonInstance = new JsonObject();
 			JsonArray affected = new JsonArray();
 			for (ITree iTree : allTreeparents) {
-				JsonObject jsonT = jsongen.getJSONwithCustorLabels(((DiffImpl) diff).getContext(), iTree, painters);
+				JsonObject jsonT = jsongen.getJSONwithCustorLabels(EditScriptCache.getContext(diff), iTree, painters);
 				affected.add(jsonT);
 			}
 			
 			jsonInstance.add("faulty_ast", affected);
 
-			ast_affected.add(jsonInstance);
-
 			JsonObject opContext = getContextInformation(diff, cresolver, opi, getAffectedCtElement, painterforreturn);
 
 			jsonInstance.add("context", opContext);
-		}
 
-		return ast_affected;
+			instanceConsumer.accept(jsonInstance);
+		}
 	}
 	
 	private boolean whetherDiscardElement(CtElement orginalelement) {
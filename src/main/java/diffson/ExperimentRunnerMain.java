@@ -1,20 +1,33 @@
 package diffson;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import add.main.ExtractorProperties;
 
 public class ExperimentRunnerMain {
 
+	public static final String RESUME_FLAG = "--resume";
+
 	public static void main(String[] args) throws Exception {
+		// --resume retries only the commits that the journal of the previous run does not record as completed
+		List<String> arguments = new ArrayList<>(Arrays.asList(args));
+		boolean resume = arguments.remove(RESUME_FLAG);
+
 		// String name = args[0];
-		String inputpath = args[0];
-		String output = args[1];
+		String inputpath = arguments.get(0);
+		String output = arguments.get(1);
 
 		File outFile = new File(output);
 		String out = outFile.getAbsolutePath();
 		outFile.mkdirs();
 		DiffContextAnalyzer analyzer = new DiffContextAnalyzer(out);
+		analyzer.setResume(resume);
+		if (arguments.size() > 2) {
+			analyzer.setNbThreads(Integer.parseInt(arguments.get(2)));
+		}
 		String input = new File(inputpath).getAbsolutePath();
 		ExtractorProperties.properties.setProperty("difffolder", input);
 		analyzer.run(ExtractorProperties.getProperty("difffolder"));
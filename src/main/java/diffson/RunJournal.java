@@ -0,0 +1,201 @@
+package diffson;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import add.main.StageProfile;
+
+/**
+ * Append-only log of the items of a run, one JSON object per line, which records the status of each item, the hash
+ * of its input and the time spent on it.
+ *
+ * Each line is flushed and forced to disk as soon as it is recorded, so after a crash the journal holds every item
+ * finished before it; a line truncated by the crash is ignored when the journal is read back. The last line of an item
+ * wins, so an item retried by a resumed run is recorded again.
+ */
+public class RunJournal implements Closeable {
+
+	public static final String STATUS_OK = "ok";
+	public static final String STATUS_FAILED = "failed";
+	public static final String STATUS_TIMEOUT = "timeout";
+	public static final String STATUS_SKIPPED = "skipped";
+
+	private static final byte[] LINE_BREAK = "\n".getBytes(StandardCharsets.UTF_8);
+
+	private Logger log = Logger.getLogger(this.getClass());
+
+	private final File file;
+	private final FileOutputStream stream;
+	private final Map<String, JsonObject> entries = new HashMap<>();
+
+	/**
+	 * @param resume whether the entries of the existing journal are kept; otherwise the journal starts empty
+	 */
+	public RunJournal(File file, boolean resume) throws IOException {
+		this.file = file;
+		if (resume && file.isFile()) {
+			load();
+		}
+		this.stream = new FileOutputStream(file, resume);
+		if (resume && file.length() > 0 && !endsWithLineBreak()) {
+			// terminates the line truncated by a crash, so that the next entry starts on its own line
+			write(new byte[0]);
+		}
+	}
+
+	private void load() throws IOException {
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				try {
+					JsonObject entry = new JsonParser().parse(line).getAsJsonObject();
+					if (entry.has("item") && entry.has("status")) {
+						entries.put(entry.get("item").getAsString(), entry);
+					}
+				} catch (JsonParseException | IllegalStateException e) {
+					log.warn("Ignoring malformed journal line: " + line);
+				}
+			}
+		}
+	}
+
+	private boolean endsWithLineBreak() throws IOException {
+		try (RandomAccessFile content = new RandomAccessFile(file, "r")) {
+			content.seek(content.length() - 1);
+			return content.read() == '\n';
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the status last recorded for the item, or null if it was never recorded
+	 */
+	public synchronized String getStatus(String item) {
+		JsonObject entry = entries.get(item);
+		return entry == null ? null : entry.get("status").getAsString();
+	}
+
+	/**
+	 * @return whether the item was completed, that is analyzed or skipped, with the same input
+	 */
+	public synchronized boolean isCompleted(String item, String inputHash) {
+		JsonObject entry = entries.get(item);
+		if (entry == null) {
+			return false;
+		}
+		String status = entry.get("status").getAsString();
+		return (STATUS_OK.equals(status) || STATUS_SKIPPED.equals(status)) && entry.has("input")
+				&& entry.get("input").getAsString().equals(inputHash);
+	}
+
+	/**
+	 * Appends the entry of an item to the journal.
+	 *
+	 * @param error the reason of the failure, or null
+	 */
+	public void record(String item, String status, String inputHash, long durationMs, String error) {
+		record(item, status, inputHash, durationMs, error, null);
+	}
+
+	/**
+	 * Appends the entry of an item to the journal.
+	 *
+	 * @param error the reason of the failure, or null
+	 * @param stages the figures of the stages of the analysis of the item, or null when they are not profiled
+	 */
+	public synchronized void record(String item, String status, String inputHash, long durationMs, String error,
+			StageProfile stages) {
+		JsonObject entry = new JsonObject();
+		entry.addProperty("item", item);
+		entry.addProperty("status", status);
+		entry.addProperty("input", inputHash);
+		entry.addProperty("durationMs", durationMs);
+		if (error != null) {
+			entry.addProperty("error", error);
+		}
+		if (stages != null) {
+			entry.add("stages", new JsonParser().parse(stages.toJson().toString()));
+		}
+		entries.put(item, entry);
+		try {
+			write(entry.toString().getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			log.error("could not write the journal " + file + ": " + e);
+		}
+	}
+
+	private void write(byte[] line) throws IOException {
+		stream.write(line);
+		stream.write(LINE_BREAK);
+		stream.flush();
+		stream.getChannel().force(false);
+	}
+
+	/**
+	 * @return the SHA-1 of the files under the given one, with their relative paths, in a stable order
+	 */
+	public static String hash(File input) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		hash(input, "", digest);
+		StringBuilder hash = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hash.toString();
+	}
+
+	private static void hash(File file, String path, MessageDigest digest) throws IOException {
+		digest.update(path.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		if (file.isDirectory()) {
+			File[] children = file.listFiles();
+			if (children == null) {
+				return;
+			}
+			Arrays.sort(children);
+			for (File child : children) {
+				hash(child, path + "/" + child.getName(), digest);
+			}
+		} else {
+			digest.update(Files.readAllBytes(file.toPath()));
+			digest.update((byte) 0);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		stream.close();
+	}
+
+}
@@ -26,4 +26,21 @@ public class FeatureTest {
         assertEquals(1, metrics.getFeatureCounter("nbFiles"));
     }
 
-}
\ No newline at end of file
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownFeature() {
+        new RepairActions().incrementFeatureCounter("unknownFeature");
+    }
+
+    @Test
+    public void testFeatureCountersFollowFeatureNames() {
+        RepairPatterns patterns = new RepairPatterns();
+        patterns.incrementFeatureCounter("wrapsIf");
+        patterns.incrementFeatureCounter("wrapsIf");
+
+        int[] counters = patterns.getFeatureCounters();
+        assertEquals(patterns.getFeatureNames().size(), counters.length);
+        assertEquals(2, counters[patterns.getFeatureNames().indexOf("wrapsIf")]);
+        assertEquals(2, patterns.toJson().getJSONObject("repairPatterns").getInt("wrapsIf"));
+    }
+
+}
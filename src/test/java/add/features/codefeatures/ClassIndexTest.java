@@ -0,0 +1,60 @@
+package add.features.codefeatures;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import spoon.Launcher;
+import spoon.reflect.code.CtBinaryOperator;
+import spoon.reflect.code.CtConstructorCall;
+import spoon.reflect.code.CtFieldAccess;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.code.CtLiteral;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.visitor.filter.LineFilter;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+public class ClassIndexTest {
+
+    private static final String CLASS = "class A {"
+            + " int f = 1 + 2;"
+            + " Object o = new Object() { int g = 3; };"
+            + " int m(int x) { int y = x = f; if (x > 0) { y += foo(new StringBuilder(\"a\")); } return y; }"
+            + " int foo(Object p) { return p.hashCode() * 2; }"
+            + " }";
+
+    @Test
+    public void testIndexMatchesClassElements() {
+        CtClass<?> parentClass = Launcher.parseClass(CLASS);
+        ClassIndex index = ClassIndex.of(parentClass);
+
+        Assert.assertSame(index, ClassIndex.of(parentClass));
+        Assert.assertEquals(parentClass.getElements(new LineFilter()), index.getStatements());
+        Assert.assertEquals(parentClass.getElements(new TypeFilter<>(CtInvocation.class)), index.getInvocations());
+        Assert.assertEquals(parentClass.getElements(new TypeFilter<>(CtConstructorCall.class)), index.getConstructorCalls());
+        Assert.assertEquals(parentClass.getElements(new TypeFilter<>(CtLiteral.class)), index.getLiterals());
+        Assert.assertEquals(parentClass.getElements(new TypeFilter<>(CtBinaryOperator.class)), index.getBinaryOperators());
+
+        // the field g of the anonymous class is nested in the field o, y += ... is an operator assignment
+        Assert.assertEquals(2, index.getFields().size());
+        Assert.assertEquals(1, index.getAssignments().size());
+        Assert.assertEquals(1, index.getLocalVariables().size());
+    }
+
+    @Test
+    public void testMethodIndexMatchesMethodElements() {
+        CtClass<?> parentClass = Launcher.parseClass(CLASS);
+        CtMethod<?> method = parentClass.getMethodsByName("m").get(0);
+        MethodIndex index = MethodIndex.of(method);
+
+        Assert.assertSame(index, MethodIndex.of(method));
+        Assert.assertEquals(method.getElements(new LineFilter()), index.getStatements());
+        Assert.assertEquals(method.getElements(new TypeFilter<>(CtFieldAccess.class)), index.getFieldAccesses());
+
+        // x = f is nested in the local variable y
+        Assert.assertEquals(0, index.getAssignments().size());
+        Assert.assertEquals(1, index.getLocalVariables().size());
+        Assert.assertEquals(1, index.getAssignmentsAndLocalVariables().size());
+    }
+
+}
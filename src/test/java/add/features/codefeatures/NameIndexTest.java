@@ -0,0 +1,52 @@
+package add.features.codefeatures;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import spoon.Launcher;
+import spoon.reflect.declaration.CtClass;
+
+public class NameIndexTest {
+
+    private static final String CLASS = "class A {"
+            + " A() { }"
+            + " int getValue() { return 1; }"
+            + " int setValue(int v) { return v; }"
+            + " Object m() { getValue(); return new StringBuilder(\"a\").append(\"b\"); }"
+            + " }";
+
+    @Test
+    public void testNamesOfMembers() {
+        CtClass<?> parentClass = Launcher.parseClass(CLASS);
+        NameIndex index = NameIndex.of(parentClass);
+
+        Assert.assertSame(index, NameIndex.of(parentClass));
+        Assert.assertTrue(index.getNames().containsAll(Arrays.asList("getValue", "setValue", "m", "append",
+                "StringBuilder")));
+
+        Assert.assertTrue(index.hasNameEndingWith("value"));
+        Assert.assertTrue(index.hasNameEndingWith("Builder"));
+        Assert.assertFalse(index.hasNameEndingWith("values"));
+    }
+
+    @Test
+    public void testNamesWithinDistance() {
+        CtClass<?> parentClass = Launcher.parseClass(CLASS);
+        NameIndex index = NameIndex.of(parentClass);
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("getValue", "setValue")), index.getNamesWithin("getValue", 1));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("setValue")), index.getNamesWithin("setValues", 1));
+        Assert.assertTrue(index.getNamesWithin("size", 2).isEmpty());
+
+        // the names that are not in the class are compared directly
+        NameIndex.Neighbors neighbors = index.getNeighbors("getValue", 2);
+        Assert.assertTrue(neighbors.contains("setValue"));
+        Assert.assertTrue(neighbors.contains("getValues"));
+        Assert.assertFalse(neighbors.contains("append"));
+        Assert.assertFalse(neighbors.contains("getAllValues"));
+    }
+
+}
@@ -0,0 +1,45 @@
+package add.features.detector.repairpatterns;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import add.utils.TestUtils;
+import gumtree.spoon.diff.Diff;
+import gumtree.spoon.diff.operations.InsertOperation;
+import gumtree.spoon.diff.operations.Operation;
+
+public class DeclarationChangeIndexTest {
+
+    @Test
+    public void testInsertionsAreGroupedByParent() {
+        Diff diff = new RepairPatternDetector(TestUtils.setupConfig("closure_30")).getEditScript();
+        List<Operation> operations = diff.getRootOperations();
+
+        DeclarationChangeIndex index = new DeclarationChangeIndex(operations);
+
+        for (Operation operation : operations) {
+            if (operation instanceof InsertOperation) {
+                List<InsertOperation> expected = new ArrayList<>();
+                for (Operation other : operations) {
+                    if (other instanceof InsertOperation
+                            && ((InsertOperation) other).getParent() == ((InsertOperation) operation).getParent()) {
+                        expected.add((InsertOperation) other);
+                    }
+                }
+                Assert.assertEquals(expected, index.getInsertions(((InsertOperation) operation).getParent()));
+            }
+        }
+    }
+
+    @Test
+    public void testNoChangeForAnEmptyEditScript() {
+        DeclarationChangeIndex index = new DeclarationChangeIndex(new ArrayList<>());
+
+        Assert.assertTrue(index.getInsertions(null).isEmpty());
+        Assert.assertTrue(index.getParameterChanges("foo").isEmpty());
+    }
+
+}
@@ -0,0 +1,26 @@
+package add.features.detector.repairpatterns;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.gumtreediff.matchers.Mapping;
+
+import add.utils.TestUtils;
+import gumtree.spoon.diff.Diff;
+
+public class MappingAnalysisTest {
+
+    @Test
+    public void testMappedNodesResolveInBothDirections() {
+        Diff diff = new RepairPatternDetector(TestUtils.setupConfig("chart_25")).getEditScript();
+
+        for (Mapping mapping : diff.getMappingsComp().asSet()) {
+            Assert.assertSame(mapping.getSecond(), MappingAnalysis.getRightFromLeftNodeMapped(diff, mapping.getFirst()));
+            Assert.assertSame(mapping.getFirst(), MappingAnalysis.getLeftFromRightNodeMapped(diff, mapping.getSecond()));
+            // a node already on the expected side resolves to itself
+            Assert.assertSame(mapping.getFirst(), MappingAnalysis.getLeftFromRightNodeMapped(diff, mapping.getFirst()));
+            Assert.assertSame(mapping.getSecond(), MappingAnalysis.getRightFromLeftNodeMapped(diff, mapping.getSecond()));
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package add.features.detector.repairpatterns;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import add.entities.PatternInstance;
+import add.entities.PropertyPair;
+import add.entities.RepairPatterns;
+import add.main.Config;
+import add.utils.TestUtils;
+import gumtree.spoon.diff.Diff;
+import gumtree.spoon.diff.operations.Operation;
+
+public class RepairPatternDetectorTest {
+
+    @Test
+    public void testConcurrentDetectionEqualsSequentialDetection() {
+        for (String bugId : new String[] { "chart_25", "closure_30", "math_58", "chart_10" }) {
+            Config config = TestUtils.setupConfig(bugId);
+            Diff diff = new RepairPatternDetector(config).getEditScript();
+
+            RepairPatternDetector sequential = new RepairPatternDetector(config, diff);
+            sequential.setConcurrentDetection(false);
+            RepairPatterns expected = sequential.analyze();
+
+            RepairPatternDetector concurrent = new RepairPatternDetector(config, diff);
+            concurrent.setConcurrentDetection(true);
+            RepairPatterns actual = concurrent.analyze();
+
+            assertSamePatterns(bugId, expected, actual);
+        }
+    }
+
+    private void assertSamePatterns(String bugId, RepairPatterns expected, RepairPatterns actual) {
+        Assert.assertArrayEquals(bugId, expected.getFeatureCounters(), actual.getFeatureCounters());
+
+        Assert.assertEquals(bugId, new ArrayList<>(expected.getOperationsPerFeature().keySet()),
+                new ArrayList<>(actual.getOperationsPerFeature().keySet()));
+        for (String key : expected.getOperationsPerFeature().keySet()) {
+            List<Operation> expectedOperations = expected.getOperationsPerFeature().get(key);
+            List<Operation> actualOperations = actual.getOperationsPerFeature().get(key);
+            Assert.assertEquals(bugId + " " + key, expectedOperations.size(), actualOperations.size());
+            for (int i = 0; i < expectedOperations.size(); i++) {
+                Assert.assertSame(bugId + " " + key, expectedOperations.get(i), actualOperations.get(i));
+            }
+        }
+
+        // the pattern instances are created by each run, but they refer to the same nodes of the shared diff
+        Assert.assertEquals(bugId, new ArrayList<>(expected.getPatternInstances().keySet()),
+                new ArrayList<>(actual.getPatternInstances().keySet()));
+        for (String key : expected.getPatternInstances().keySet()) {
+            List<PatternInstance> expectedInstances = expected.getPatternInstances().get(key);
+            List<PatternInstance> actualInstances = actual.getPatternInstances().get(key);
+            Assert.assertEquals(bugId + " " + key, expectedInstances.size(), actualInstances.size());
+            for (int i = 0; i < expectedInstances.size(); i++) {
+                PatternInstance expectedInstance = expectedInstances.get(i);
+                PatternInstance actualInstance = actualInstances.get(i);
+                Assert.assertEquals(bugId + " " + key, expectedInstance.getPatternName(), actualInstance.getPatternName());
+                Assert.assertSame(bugId + " " + key, expectedInstance.getOp(), actualInstance.getOp());
+                Assert.assertSame(bugId + " " + key, expectedInstance.getNodeAffectedOp(), actualInstance.getNodeAffectedOp());
+                Assert.assertSame(bugId + " " + key, expectedInstance.getFaultyLine(), actualInstance.getFaultyLine());
+                Assert.assertEquals(bugId + " " + key, expectedInstance.getFaulty().size(), actualInstance.getFaulty().size());
+                for (int j = 0; j < expectedInstance.getFaulty().size(); j++) {
+                    Assert.assertSame(bugId + " " + key, expectedInstance.getFaulty().get(j), actualInstance.getFaulty().get(j));
+                }
+                Assert.assertEquals(bugId + " " + key, expectedInstance.getMetadata().size(), actualInstance.getMetadata().size());
+                for (int j = 0; j < expectedInstance.getMetadata().size(); j++) {
+                    PropertyPair expectedPair = expectedInstance.getMetadata().get(j);
+                    PropertyPair actualPair = actualInstance.getMetadata().get(j);
+                    Assert.assertEquals(bugId + " " + key, expectedPair.getKey(), actualPair.getKey());
+                    Assert.assertEquals(bugId + " " + key, expectedPair.getValue(), actualPair.getValue());
+                }
+            }
+        }
+    }
+
+}
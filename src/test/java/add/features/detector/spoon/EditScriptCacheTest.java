@@ -0,0 +1,72 @@
+package add.features.detector.spoon;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.gumtreediff.tree.TreeContext;
+
+import add.entities.RepairPatterns;
+import add.features.detector.repairpatterns.RepairPatternDetector;
+import add.main.ExtractorProperties;
+import add.utils.TestUtils;
+import gumtree.spoon.diff.Diff;
+import gumtree.spoon.diff.operations.Operation;
+import gumtree.spoon.diff.operations.OperationKind;
+
+public class EditScriptCacheTest {
+
+    @After
+    public void tearDown() {
+        ExtractorProperties.reset();
+    }
+
+    @Test
+    public void testCachedEditScriptGivesSamePatterns() throws IOException {
+        File cacheDirectory = Files.createTempDirectory("editscripts").toFile();
+        cacheDirectory.deleteOnExit();
+        ExtractorProperties.setProperty(EditScriptCache.CACHE_DIRECTORY_PROPERTY, cacheDirectory.getAbsolutePath());
+
+        RepairPatterns expected = new RepairPatternDetector(TestUtils.setupConfig("chart_25")).analyze();
+        Assert.assertEquals(1, cacheDirectory.listFiles().length);
+
+        RepairPatternDetector detector = new RepairPatternDetector(TestUtils.setupConfig("chart_25"));
+        Assert.assertTrue(detector.getEditScript() instanceof EditScriptCache.CachedDiff);
+        RepairPatterns actual = detector.analyze();
+
+        Assert.assertEquals(expected.toCSV(), actual.toCSV());
+    }
+
+    @Test
+    public void testCachedEditScriptAnswersQueriesLikeGumTree() throws IOException {
+        File cacheDirectory = Files.createTempDirectory("editscripts").toFile();
+        cacheDirectory.deleteOnExit();
+        ExtractorProperties.setProperty(EditScriptCache.CACHE_DIRECTORY_PROPERTY, cacheDirectory.getAbsolutePath());
+
+        Diff expected = new RepairPatternDetector(TestUtils.setupConfig("chart_25")).getEditScript();
+        Diff actual = new RepairPatternDetector(TestUtils.setupConfig("chart_25")).getEditScript();
+        Assert.assertTrue(actual instanceof EditScriptCache.CachedDiff);
+
+        Assert.assertEquals(expected.commonAncestor(), actual.commonAncestor());
+        Assert.assertEquals(expected.getRootOperations().get(0).getNode(),
+                actual.changedNode(actual.getRootOperations().get(0).getClass()));
+        TreeContext context = EditScriptCache.getContext(actual);
+        for (Operation operation : actual.getRootOperations()) {
+            OperationKind kind = OperationKind.valueOf(operation.getAction().getClass().getSimpleName());
+            String nodeKind = context.getTypeLabel(operation.getAction().getNode());
+            String label = operation.getAction().getNode().getLabel();
+            Assert.assertTrue(actual.containsOperation(kind, nodeKind, label));
+            Assert.assertEquals(expected.containsOperation(kind, nodeKind, label),
+                    actual.containsOperation(kind, nodeKind, label));
+            Assert.assertEquals(expected.containsOperation(kind, nodeKind), actual.containsOperation(kind, nodeKind));
+            for (Operation child : actual.getOperationChildren(operation, actual.getAllOperations())) {
+                Assert.assertEquals(operation.getNode(), child.getNode().getParent());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package add.features.diffanalyzer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import add.main.Config;
+import add.main.Utils;
+
+public class GitDiffAnalyzerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPatchContextOfCommit() throws Exception {
+        File repository = folder.newFolder("repository");
+        File source = new File(repository, "src/A.java");
+        source.getParentFile().mkdirs();
+
+        RevCommit fix;
+        try (Git git = Git.init().setDirectory(repository).call()) {
+            write(source, "class A {", "  int m(int x) {", "    return x;", "  }", "}");
+            write(new File(repository, "README"), "A");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Buggy version").setAuthor("a", "a@a").call();
+
+            write(source, "class A {", "  int m(int x) {", "    if (x < 0) {", "      return 0;", "    }",
+                    "    return x;", "  }", "}");
+            write(new File(repository, "README"), "B");
+            git.add().addFilepattern(".").call();
+            fix = git.commit().setMessage("Fix").setAuthor("a", "a@a").call();
+        }
+
+        String fileName = Utils.getFullPath(repository.getAbsolutePath(), "src/A.java");
+        PatchContext patchContext;
+        try (GitDiffAnalyzer gitDiffAnalyzer = new GitDiffAnalyzer(repository.getAbsolutePath())) {
+            patchContext = gitDiffAnalyzer.getPatchContext(null, fix.name());
+        }
+
+        // the other files are ignored
+        assertEquals(1, patchContext.getNbFiles());
+        Map<String, List<String>> originalFiles = patchContext.getOriginalFiles();
+        assertEquals(Arrays.asList("class A {", "  int m(int x) {", "    return x;", "  }", "}"),
+                originalFiles.get(fileName));
+        assertEquals(8, patchContext.getPatchedFiles().get(fileName).size());
+
+        List<Change> newChanges = patchContext.getChanges().getNewChanges();
+        assertEquals(1, newChanges.size());
+        assertEquals("INSERT", newChanges.get(0).getType());
+        assertEquals(3, newChanges.get(0).getLine());
+        assertEquals(3, newChanges.get(0).getLength());
+
+        Config config = new Config();
+        config.setRepositoryPath(repository.getAbsolutePath());
+        config.setCommitId(fix.name());
+        assertTrue(config.getPatchContext().getOriginalFiles().containsKey(fileName));
+    }
+
+    private static void write(File file, String... lines) throws Exception {
+        Files.write(file.toPath(), String.join("\n", lines).concat("\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -85,4 +85,19 @@ public class JGitBasedDiffAnalyzerTest {
         assertTrue(actualBuggyFilePaths.containsAll(expectedBuggyFilePaths));
     }
 
+    @Test
+    public void testPatchContextSharesOriginalAndPatchedFiles() {
+        Config config = TestUtils.setupConfig("chart_18");
+
+        JGitBasedDiffAnalyzer jgitDiffAnalyzer = new JGitBasedDiffAnalyzer(config.getDiffPath());
+        Map<String, List<String>> expectedOriginalFiles = jgitDiffAnalyzer.getOriginalFiles(config.getBuggySourceDirectoryPath());
+        Map<String, List<String>> expectedPatchedFiles = jgitDiffAnalyzer.getPatchedFiles(config.getBuggySourceDirectoryPath());
+
+        PatchContext patchContext = config.getPatchContext();
+        assertTrue(patchContext == config.getPatchContext());
+        assertEquals(2, patchContext.getNbFiles());
+        assertEquals(expectedOriginalFiles, patchContext.getOriginalFiles());
+        assertEquals(expectedPatchedFiles, patchContext.getPatchedFiles());
+    }
+
 }
@@ -0,0 +1,47 @@
+package add.features.diffanalyzer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import add.main.Config;
+import add.main.Constants;
+import add.utils.TestUtils;
+
+public class LineStoreTest {
+
+    @Test
+    public void testLinesAreSplitLikeBufferedReader() {
+        assertEquals(Arrays.asList("a", "b", "c", "", "d"), LineStore.of("a\r\nb\rc\n\nd"));
+        assertEquals(Arrays.asList("a", ""), LineStore.of("a\n\n"));
+        assertEquals(0, LineStore.of("").size());
+
+        LineStore lines = LineStore.of("first\r\nsecond");
+        assertEquals(6, lines.length(1));
+        assertEquals("first\nsecond", LineStore.join(Constants.LINE_BREAK, lines));
+    }
+
+    @Test
+    public void testPatchedFilesReferenceOriginalFiles() {
+        Config config = TestUtils.setupConfig("closure_24");
+
+        JGitBasedDiffAnalyzer jgitDiffAnalyzer = new JGitBasedDiffAnalyzer(config.getDiffPath());
+        Map<String, List<String>> originalFiles = jgitDiffAnalyzer.getOriginalFiles(config.getBuggySourceDirectoryPath());
+        Map<String, List<String>> patchedFiles = jgitDiffAnalyzer.getPatchedFiles(originalFiles,
+                config.getBuggySourceDirectoryPath());
+
+        assertEquals(originalFiles.keySet(), patchedFiles.keySet());
+        for (String path : patchedFiles.keySet()) {
+            assertTrue(originalFiles.get(path) instanceof LineStore);
+            assertTrue(patchedFiles.get(path) instanceof PatchedLines);
+            assertEquals(String.join(Constants.LINE_BREAK, patchedFiles.get(path)),
+                    LineStore.join(Constants.LINE_BREAK, patchedFiles.get(path)));
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package add.features.utils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import spoon.Launcher;
+import spoon.reflect.code.CtBinaryOperator;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.code.CtReturn;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtVariable;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+public class ScopeIndexTest {
+
+    private static final String CLASS = "class A {"
+            + " int f; private static final long serialVersionUID = 1L;"
+            + " int m(int p) { int a = 1; int b = 2; if (p > 0) { int c = 3; int d = c + a; return d; } return b; }"
+            + " }";
+
+    @Test
+    public void testVariablesInScope() {
+        CtClass<?> parentClass = Launcher.parseClass(CLASS);
+
+        CtLocalVariable<?> d = parentClass.getElements(new TypeFilter<>(CtLocalVariable.class)).stream()
+                .filter(v -> v.getSimpleName().equals("d")).findFirst().get();
+        Assert.assertEquals("[f, p, c, a, b]", names(VariableResolver.searchVariablesInScope(d)));
+
+        // the local variables of the block of an expression are only visible from the statements of the block
+        CtBinaryOperator<?> sum = parentClass.getElements(new TypeFilter<>(CtBinaryOperator.class)).get(1);
+        Assert.assertEquals("c + a", sum.toString());
+        Assert.assertEquals("[f, p, a, b]", names(VariableResolver.searchVariablesInScope(sum)));
+
+        List<CtReturn> returns = parentClass.getElements(new TypeFilter<>(CtReturn.class));
+        Assert.assertEquals("[f, p, a, b]", names(VariableResolver.searchVariablesInScope(returns.get(1))));
+
+        // the second lookup is answered by the index
+        Assert.assertSame(ScopeIndex.getFieldsInScope(parentClass), ScopeIndex.getFieldsInScope(parentClass));
+        Assert.assertEquals("[f, p, c, a, b]", names(VariableResolver.searchVariablesInScope(d)));
+    }
+
+    private static String names(List<CtVariable> variables) {
+        return variables.stream().map(CtVariable::getSimpleName).collect(Collectors.toList()).toString();
+    }
+
+}
@@ -0,0 +1,72 @@
+package add.features.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StringDistanceTest {
+
+    @Test
+    public void testKnownDistances() {
+        Assert.assertEquals(0, StringDistance.calculate("getValue", "getValue"));
+        Assert.assertEquals(3, StringDistance.calculate("kitten", "sitting"));
+        Assert.assertEquals(4, StringDistance.calculate("", "size"));
+        Assert.assertEquals(4, StringDistance.calculate("size", ""));
+        Assert.assertEquals(1, StringDistance.calculate("getX", "getY"));
+        Assert.assertEquals(2, StringDistance.calculate("count", "cunt2"));
+        Assert.assertEquals(1, StringDistance.calculate("élève", "élèves"));
+    }
+
+    @Test
+    public void testSameDistancesAsTheMatrix() {
+        Random random = new Random(7);
+        String alphabet = "abcdeXY_é";
+        for (int i = 0; i < 20000; i++) {
+            // some of the strings are longer than a machine word
+            String x = randomString(random, alphabet, random.nextInt(i % 10 == 0 ? 100 : 15));
+            String y = randomString(random, alphabet, random.nextInt(i % 7 == 0 ? 100 : 15));
+            int expected = matrixDistance(x, y);
+            int bound = random.nextInt(5);
+
+            Assert.assertEquals(x + " " + y, expected, StringDistance.calculate(x, y));
+            Assert.assertEquals(x + " " + y, Math.min(expected, bound + 1), StringDistance.calculate(x, y, bound));
+            Assert.assertEquals(x + " " + y, expected, StringDistance.forName(x).distance(y));
+            Assert.assertEquals(x + " " + y, Math.min(expected, bound + 1), StringDistance.forName(x).distance(y, bound));
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        int[] distances = StringDistance.calculate("value", Arrays.asList("value", "values", "valid", "somethingElse"),
+                StringDistance.MAX_SIMILAR_DISTANCE);
+        Assert.assertArrayEquals(new int[] { 0, 1, 2, 3 }, distances);
+    }
+
+    private static int matrixDistance(String x, String y) {
+        int[][] dp = new int[x.length() + 1][y.length() + 1];
+        for (int i = 0; i <= x.length(); i++) {
+            for (int j = 0; j <= y.length(); j++) {
+                if (i == 0) {
+                    dp[i][j] = j;
+                } else if (j == 0) {
+                    dp[i][j] = i;
+                } else {
+                    dp[i][j] = Math.min(dp[i - 1][j - 1] + (x.charAt(i - 1) == y.charAt(j - 1) ? 0 : 1),
+                            Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1));
+                }
+            }
+        }
+        return dp[x.length()][y.length()];
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder string = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            string.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return string.toString();
+    }
+
+}
@@ -0,0 +1,57 @@
+package add.features.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import spoon.Launcher;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.reference.CtTypeReference;
+
+public class TypeLatticeTest {
+
+    @Test
+    public void testSubtypesAndCategories() {
+        CtClass<?> parentClass = Launcher.parseClass("class A extends java.util.ArrayList<String> { }");
+        Factory factory = parentClass.getFactory();
+        CtTypeReference<?> a = parentClass.getReference();
+        CtTypeReference<?> list = factory.Type().createReference(java.util.List.class);
+        CtTypeReference<?> string = factory.Type().createReference(String.class);
+
+        TypeLattice lattice = TypeLattice.of(a);
+        Assert.assertSame(lattice, TypeLattice.of(string));
+
+        Assert.assertTrue(lattice.isSubtypeOf(a, list, false));
+        Assert.assertFalse(lattice.isSubtypeOf(list, a, true));
+        // answered from the cache
+        Assert.assertTrue(lattice.isSubtypeOf(a, list, false));
+
+        Assert.assertTrue(TypeLattice.areComparable(a, list));
+        Assert.assertTrue(TypeLattice.areComparable(list, a));
+        Assert.assertFalse(TypeLattice.areComparable(a, string));
+        Assert.assertFalse(TypeLattice.areComparable(a, null));
+
+        Assert.assertTrue(TypeLattice.isBoolean(factory.Type().BOOLEAN));
+        Assert.assertTrue(TypeLattice.isBoolean(factory.Type().BOOLEAN_PRIMITIVE));
+        Assert.assertFalse(TypeLattice.isBoolean(string));
+
+        Assert.assertTrue(TypeLattice.isPrimitiveLike(string));
+        Assert.assertTrue(TypeLattice.isPrimitiveLike(factory.Type().INTEGER_PRIMITIVE));
+        Assert.assertFalse(TypeLattice.isPrimitiveLike(a));
+        Assert.assertTrue(TypeLattice.isPrimitiveOrLibraryLike(factory.Type().createReference(java.util.Map.class)));
+        Assert.assertFalse(TypeLattice.isPrimitiveLike(factory.Type().createReference(java.util.Map.class)));
+
+        Assert.assertTrue(TypeLattice.isExceptionLike(factory.Type().createReference(IllegalStateException.class)));
+        Assert.assertFalse(TypeLattice.isExceptionLike(a));
+    }
+
+    @Test
+    public void testTypeParametersAreNotCached() {
+        CtClass<?> parentClass = Launcher.parseClass("class B<T> { java.util.List<T> l; java.util.List<String> s; T[] a; }");
+
+        Assert.assertNull(TypeLattice.getKey(parentClass.getField("l").getType()));
+        Assert.assertNull(TypeLattice.getKey(parentClass.getField("a").getType()));
+        Assert.assertEquals("java.util.List<java.lang.String>", TypeLattice.getKey(parentClass.getField("s").getType()));
+    }
+
+}
@@ -0,0 +1,88 @@
+package add.main;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.martiansoftware.jsap.JSAPException;
+
+import add.utils.TestUtils;
+
+public class BatchLauncherTest {
+
+    @Test
+    public void testManifestWithFailingBug() throws JSAPException, IOException, InterruptedException {
+        Config chart1 = TestUtils.setupConfig("chart_1");
+        Config closure114 = TestUtils.setupConfig("closure_114");
+
+        List<String> lines = new ArrayList<>();
+        lines.add(chart1.getBugId() + Constants.CSV_SEPARATOR + chart1.getBuggySourceDirectoryPath() + Constants.CSV_SEPARATOR + chart1.getDiffPath());
+        lines.add(closure114.getBugId() + Constants.CSV_SEPARATOR + closure114.getBuggySourceDirectoryPath() + Constants.CSV_SEPARATOR + closure114.getDiffPath());
+        // the diff of chart_1 cannot be applied on the sources of closure_114
+        lines.add("invalid" + Constants.CSV_SEPARATOR + closure114.getBuggySourceDirectoryPath() + Constants.CSV_SEPARATOR + chart1.getDiffPath());
+
+        File manifest = File.createTempFile("manifest", ".tsv");
+        manifest.deleteOnExit();
+        Files.write(manifest.toPath(), lines, StandardCharsets.UTF_8);
+        File output = File.createTempFile("features", ".jsonl");
+        output.deleteOnExit();
+
+        String[] args = new String[] {"-m", LauncherMode.METRICS.name(),
+                "--manifest", manifest.getAbsolutePath(),
+                "-o", output.getAbsolutePath(),
+                "-t", "2"
+        };
+        BatchLauncher launcher = new BatchLauncher(args);
+        assertEquals(2, launcher.execute());
+
+        Map<String, JSONObject> results = new HashMap<>();
+        for (String line : Files.readAllLines(output.toPath(), StandardCharsets.UTF_8)) {
+            JSONObject result = new JSONObject(line);
+            results.put(result.getString("bugId"), result);
+        }
+        assertEquals(3, results.size());
+        assertEquals(BatchLauncher.STATUS_OK, results.get("chart_1").getString("status"));
+        assertEquals(1, results.get("chart_1").getJSONObject("metrics").getInt("nbFiles"));
+        assertEquals(BatchLauncher.STATUS_OK, results.get("closure_114").getString("status"));
+        assertEquals(BatchLauncher.STATUS_FAILED, results.get("invalid").getString("status"));
+    }
+
+    @Test
+    public void testStuckBugDoesNotHoldTheWorker() throws Exception {
+        Config stuckBug = new Config();
+        stuckBug.setBugId("stuck");
+        Config nextBug = new Config();
+        nextBug.setBugId("next");
+
+        AtomicBoolean release = new AtomicBoolean();
+        try (TimeLimitedExecutor executor = new TimeLimitedExecutor("test", 1)) {
+            JSONObject result = BatchLauncher.analyze(stuckBug, () -> {
+                // like Spoon and GumTree, the analysis ignores interrupts
+                while (!release.get()) {
+                    Thread.yield();
+                }
+                return null;
+            }, executor, 1);
+            assertEquals(BatchLauncher.STATUS_TIMEOUT, result.getString("status"));
+            assertEquals(1, executor.getLostThreads());
+
+            // the next bug runs while the stuck one is still running
+            result = BatchLauncher.analyze(nextBug, () -> null, executor, 1);
+            assertEquals(BatchLauncher.STATUS_SKIPPED, result.getString("status"));
+        } finally {
+            release.set(true);
+        }
+    }
+
+}
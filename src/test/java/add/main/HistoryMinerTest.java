@@ -0,0 +1,96 @@
+package add.main;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HistoryMinerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMiningIsResumed() throws Exception {
+        File repository = folder.newFolder("repository");
+        File source = new File(repository, "src/A.java");
+        source.getParentFile().mkdirs();
+
+        RevCommit fix;
+        RevCommit documentation;
+        try (Git git = Git.init().setDirectory(repository).call()) {
+            write(source, "class A {", "  int m(int x) {", "    return x;", "  }", "}");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Initial version").setAuthor("a", "a@a").call();
+
+            write(source, "class A {", "  int m(int x) {", "    if (x < 0) {", "      return 0;", "    }",
+                    "    return x;", "  }", "}");
+            git.add().addFilepattern(".").call();
+            fix = git.commit().setMessage("Fix").setAuthor("a", "a@a").call();
+
+            write(new File(repository, "README"), "A");
+            git.add().addFilepattern(".").call();
+            documentation = git.commit().setMessage("Documentation").setAuthor("a", "a@a").call();
+        }
+
+        File output = folder.newFile("features.jsonl");
+        // the truncated line of an interrupted run
+        Files.write(output.toPath(), "{\"commit\":\"".getBytes(StandardCharsets.UTF_8));
+
+        String[] args = new String[] {"-m", LauncherMode.METRICS.name(),
+                "--repository", repository.getAbsolutePath(),
+                "-o", output.getAbsolutePath(),
+                "-t", "2"
+        };
+        assertEquals(1, new HistoryMiner(args).execute());
+
+        Map<String, JSONObject> results = readResults(output);
+        // the first commit only adds a file, so it has no original file to analyze
+        assertEquals(3, results.size());
+        assertEquals(BatchLauncher.STATUS_OK, results.get(fix.name()).getString("status"));
+        assertEquals(1, results.get(fix.name()).getJSONObject("metrics").getInt("nbFiles"));
+        assertEquals(fix.getParent(0).name(), results.get(fix.name()).getString("parent"));
+        assertEquals(BatchLauncher.STATUS_SKIPPED, results.get(documentation.name()).getString("status"));
+
+        // the truncated line is dropped
+        assertEquals(3, Files.readAllLines(output.toPath(), StandardCharsets.UTF_8).size());
+
+        // only the commits analyzed successfully are not analyzed again
+        assertEquals(0, new HistoryMiner(args).execute());
+        assertEquals(3, readResults(output).size());
+        assertEquals(3, Files.readAllLines(output.toPath(), StandardCharsets.UTF_8).size());
+
+        // a commit that failed is analyzed again
+        File journal = new File(output.getPath() + HistoryMiner.JOURNAL_SUFFIX);
+        Files.write(journal.toPath(), ("{\"item\":\"" + fix.name() + "\",\"status\":\"failed\"}\n")
+                .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        assertEquals(1, new HistoryMiner(args).execute());
+        assertEquals(BatchLauncher.STATUS_OK, readResults(output).get(fix.name()).getString("status"));
+        assertEquals(3, Files.readAllLines(output.toPath(), StandardCharsets.UTF_8).size());
+    }
+
+    private static Map<String, JSONObject> readResults(File output) throws Exception {
+        Map<String, JSONObject> results = new HashMap<>();
+        for (String line : Files.readAllLines(output.toPath(), StandardCharsets.UTF_8)) {
+            JSONObject result = new JSONObject(line);
+            results.put(result.getString("commit"), result);
+        }
+        return results;
+    }
+
+    private static void write(File file, String... lines) throws Exception {
+        Files.write(file.toPath(), String.join("\n", lines).concat("\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+}
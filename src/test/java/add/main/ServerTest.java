@@ -1,36 +1,279 @@
 package add.main;
 
+import add.entities.FeatureList;
 import add.utils.Constants;
 import org.json.JSONObject;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ServerTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testServerLauncher() throws IOException {
-        Server server = new Server();
+        Server server = new Server(0, 2, 10);
+        try {
+            HttpURLConnection con = postBug(server, "math_5");
+            Assert.assertEquals(202, con.getResponseCode());
+            String jobId = new JSONObject(read(con)).getString("jobId");
+
+            URL url = new URL("http://localhost:" + server.getListeningPort() + Server.JOBS_URI + jobId + "?wait=" + Server.MAX_WAIT_SECONDS);
+            con = (HttpURLConnection) url.openConnection();
+            while (con.getResponseCode() == 202) {
+                con = (HttpURLConnection) url.openConnection();
+            }
+            Assert.assertEquals(200, con.getResponseCode());
+            JSONObject results = new JSONObject(read(con));
+            Assert.assertEquals(2, results.getJSONObject("repairActions").getInt("varReplVar"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testServerRejectsWhenQueueIsFull() throws Exception {
+        Server server = new Server(0, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        server.setExtraction(config -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new FeatureList(config);
+        });
+        try {
+            // the first job occupies the only worker, the second one fills the queue
+            Assert.assertEquals(202, postBug(server, "closure_114").getResponseCode());
+            started.await();
+            Assert.assertEquals(202, postBug(server, "closure_114").getResponseCode());
+
+            HttpURLConnection con = postBug(server, "math_5");
+            Assert.assertEquals(429, con.getResponseCode());
+            Assert.assertEquals(String.valueOf(Server.RETRY_AFTER_SECONDS), con.getHeaderField("Retry-After"));
+        } finally {
+            release.countDown();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testFinishedJobsAreKeptUntilEvicted() throws Exception {
+        Server server = new Server(0, 1, 10);
+        server.setJobTtl(0);
+        CountDownLatch secondJobStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        server.setExtraction(config -> {
+            if ("closure_114".equals(config.getBugId())) {
+                secondJobStarted.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new FeatureList(config);
+        });
+        try {
+            // the first job expires as soon as it is finished
+            String finishedJob = new JSONObject(read(postBug(server, "math_5"))).getString("jobId");
+            String runningJob = new JSONObject(read(postBug(server, "closure_114"))).getString("jobId");
+            // the only worker took the second job, so the first one is finished
+            secondJobStarted.await();
+
+            // the result of a finished job is kept until it is evicted, however many times it is retrieved
+            URL url = new URL("http://localhost:" + server.getListeningPort() + Server.JOBS_URI + finishedJob);
+            Assert.assertEquals(200, ((HttpURLConnection) url.openConnection()).getResponseCode());
+            Assert.assertEquals(200, ((HttpURLConnection) url.openConnection()).getResponseCode());
+
+            // the eviction removes the expired jobs, but not the running ones
+            server.evictExpiredJobs();
+            Assert.assertEquals(404, ((HttpURLConnection) url.openConnection()).getResponseCode());
+            url = new URL("http://localhost:" + server.getListeningPort() + Server.JOBS_URI + runningJob);
+            Assert.assertEquals(202, ((HttpURLConnection) url.openConnection()).getResponseCode());
+        } finally {
+            release.countDown();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testUnknownJob() throws IOException {
+        Server server = new Server(0, 1, 1);
+        try {
+            URL url = new URL("http://localhost:" + server.getListeningPort() + Server.JOBS_URI + "unknown");
+            HttpURLConnection con = (HttpURLConnection) url.openConnection();
+            Assert.assertEquals(404, con.getResponseCode());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testMetrics() throws IOException {
+        Server server = new Server(0, 1, 1);
+        try {
+            HttpURLConnection con = postBug(server, "math_5");
+            Assert.assertEquals(202, con.getResponseCode());
+            Assert.assertEquals(200, awaitJob(server, new JSONObject(read(con)).getString("jobId")).getResponseCode());
+
+            Map<String, Double> metrics = scrape(server);
+            Assert.assertEquals(1, metrics.get("add_http_requests_total{method=\"POST\",code=\"202\"}"), 0);
+            Assert.assertEquals(1, metrics.get("add_http_requests_total{method=\"GET\",code=\"200\"}"), 0);
+            // the scrape itself is in flight
+            Assert.assertEquals(1, metrics.get("add_http_requests_in_flight"), 0);
+            Assert.assertEquals(1, metrics.get("add_jobs_total{status=\"done\"}"), 0);
+            Assert.assertEquals(1, metrics.get("add_job_duration_seconds_count"), 0);
+            Assert.assertEquals(1, metrics.get("add_stage_duration_seconds_count{stage=\"patchApply\"}"), 0);
+            Assert.assertEquals(1, metrics.get("add_stage_duration_seconds_bucket{stage=\"astDiff\",le=\"+Inf\"}"), 0);
+            Assert.assertEquals(1, metrics.get("add_analyzer_duration_seconds_count{analyzer=\"MetricExtractor\"}"), 0);
+            Assert.assertEquals(0, metrics.get("add_job_timeouts_total"), 0);
+            Assert.assertEquals(0, metrics.get("add_invalid_diffs_total"), 0);
+            Assert.assertTrue(metrics.get("jvm_memory_bytes_used{area=\"heap\"}") > 0);
+
+            // the previous scrape is counted
+            Assert.assertEquals(2, scrape(server).get("add_http_requests_total{method=\"GET\",code=\"200\"}"), 0);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testMetricsOfInvalidDiff() throws IOException {
+        File diff = folder.newFile("path.diff");
+        String path = Constants.class.getResource("/patches/math_5").getPath();
+        String content = new String(Files.readAllBytes(new File(path, "path.diff").toPath()), StandardCharsets.UTF_8);
+        // the removed line does not match the buggy version
+        Files.write(diff.toPath(), content.replace("-            return NaN;", "-            return ZERO;")
+                .getBytes(StandardCharsets.UTF_8));
+
+        Server server = new Server(0, 1, 1);
+        try {
+            HttpURLConnection con = postBug(server, "math_5", path + "/buggy-version", diff.getAbsolutePath());
+            Assert.assertEquals(500, awaitJob(server, new JSONObject(read(con)).getString("jobId")).getResponseCode());
+
+            Map<String, Double> metrics = scrape(server);
+            Assert.assertEquals(1, metrics.get("add_jobs_total{status=\"failed\"}"), 0);
+            Assert.assertEquals(1, metrics.get("add_invalid_diffs_total"), 0);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testMetricsOfTimedOutJob() throws Exception {
+        Server server = new Server(0, 1, 10, 1);
+        AtomicBoolean release = new AtomicBoolean();
+        server.setExtraction(config -> {
+            if ("closure_114".equals(config.getBugId())) {
+                // like Spoon and GumTree, the analysis ignores interrupts
+                while (!release.get()) {
+                    Thread.yield();
+                }
+            }
+            return new FeatureList(config);
+        });
+        try {
+            HttpURLConnection con = postBug(server, "closure_114");
+            Assert.assertEquals(500, awaitJob(server, new JSONObject(read(con)).getString("jobId")).getResponseCode());
+
+            // the worker is free for the next job, while the timed-out analysis is still running
+            con = postBug(server, "math_5");
+            Assert.assertEquals(200, awaitJob(server, new JSONObject(read(con)).getString("jobId")).getResponseCode());
+            Map<String, Double> metrics = scrape(server);
+            Assert.assertEquals(1, metrics.get("add_jobs_total{status=\"timeout\"}"), 0);
+            Assert.assertEquals(1, metrics.get("add_jobs_total{status=\"done\"}"), 0);
+            Assert.assertEquals(1, metrics.get("add_job_timeouts_total"), 0);
+            Assert.assertEquals(1, metrics.get("add_jobs_running"), 0);
+            Assert.assertEquals(1, metrics.get("add_jobs_abandoned"), 0);
+
+            release.set(true);
+            while (scrape(server).get("add_jobs_running") > 0) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(0, scrape(server).get("add_jobs_abandoned"), 0);
+        } finally {
+            release.set(true);
+            server.stop();
+        }
+    }
+
+    private HttpURLConnection awaitJob(Server server, String jobId) throws IOException {
+        URL url = new URL("http://localhost:" + server.getListeningPort() + Server.JOBS_URI + jobId + "?wait=" + Server.MAX_WAIT_SECONDS);
+        HttpURLConnection con = (HttpURLConnection) url.openConnection();
+        while (con.getResponseCode() == 202) {
+            con = (HttpURLConnection) url.openConnection();
+        }
+        return con;
+    }
+
+    /**
+     * Scrapes the metrics of the server like Prometheus does.
+     *
+     * @return the value of each sample, by its name and labels
+     */
+    private Map<String, Double> scrape(Server server) throws IOException {
+        URL url = new URL("http://localhost:" + server.getListeningPort() + Server.METRICS_URI);
+        HttpURLConnection con = (HttpURLConnection) url.openConnection();
+        Assert.assertEquals(200, con.getResponseCode());
+        Assert.assertTrue(con.getContentType().startsWith("text/plain; version=0.0.4"));
+
+        Map<String, Double> samples = new HashMap<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int separator = line.lastIndexOf(' ');
+                samples.put(line.substring(0, separator), Double.parseDouble(line.substring(separator + 1)));
+            }
+        }
+        return samples;
+    }
+
+    private HttpURLConnection postBug(Server server, String bugId) throws IOException {
+        String path = Constants.class.getResource("/patches/" + bugId).getPath();
+        return postBug(server, bugId, path + "/buggy-version", path + "/path.diff");
+    }
+
+    private HttpURLConnection postBug(Server server, String bugId, String buggySourceDirectory, String diffPath) throws IOException {
         URL url = new URL("http://localhost:" + server.getListeningPort());
         HttpURLConnection con = (HttpURLConnection) url.openConnection();
         con.setRequestMethod("POST");
         con.setRequestProperty("Content-Type", "application/json; utf-8");
         con.setDoOutput(true);
-        String path = Constants.class.getResource("/patches/math_5").getPath();
-        String jsonInputString = "{'bugId': 'test', 'buggySourceDirectory': '" + path + "/buggy-version', 'diffPath': '" + path + "/path.diff'}";
+        String jsonInputString = "{'bugId': '" + bugId + "', 'buggySourceDirectory': '" + buggySourceDirectory + "', 'diffPath': '" + diffPath + "'}";
 
         try(OutputStream os = con.getOutputStream()) {
             byte[] input = jsonInputString.getBytes(Charset.defaultCharset());
             os.write(input, 0, input.length);
         }
+        return con;
+    }
 
+    private String read(HttpURLConnection con) throws IOException {
         BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()));
         String inputLine;
         StringBuilder content = new StringBuilder();
@@ -38,7 +281,6 @@ public class ServerTest {
             content.append(inputLine);
         }
         in.close();
-        JSONObject results = new JSONObject(content.toString());
-        Assert.assertEquals(2, results.getJSONObject("repairActions").getInt("varReplVar"));
+        return content.toString();
     }
-}
\ No newline at end of file
+}
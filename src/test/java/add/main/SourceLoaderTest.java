@@ -0,0 +1,41 @@
+package add.main;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SourceLoaderTest {
+
+    @Test
+    public void testEncodings() throws IOException {
+        File file = File.createTempFile("source", ".java");
+        file.deleteOnExit();
+
+        Files.write(file.toPath(), "String s = \"café\";".getBytes(StandardCharsets.UTF_8));
+        assertEquals("String s = \"café\";", SourceLoader.read(file.toPath(), SourceLoader.AUTO_ENCODING).toString());
+        assertEquals("String s = \"cafÃ©\";", SourceLoader.read(file.toPath(), "ISO-8859-1").toString());
+
+        // the content that is not valid UTF-8 is read as ISO-8859-1
+        Files.write(file.toPath(), "String s = \"café\";".getBytes(StandardCharsets.ISO_8859_1));
+        assertEquals("String s = \"café\";", SourceLoader.read(file.toPath(), SourceLoader.AUTO_ENCODING).toString());
+
+        // the byte order mark is not part of the content
+        Files.write(file.toPath(), "\uFEFFclass A {}".getBytes(StandardCharsets.UTF_8));
+        assertEquals("class A {}", SourceLoader.read(file.toPath(), SourceLoader.AUTO_ENCODING).toString());
+    }
+
+    @Test
+    public void testSpoonSourceCommentsOutAnnotationImports() {
+        assertEquals("package a;\n// import javax.annotation.Nullable;\n// import javax.annotation.CheckForNull;\n"
+                + "import javax.annotation.Nonnull;\nclass A {}",
+                SourceLoader.toSpoonSource(Arrays.asList("package a;", "import javax.annotation.Nullable;",
+                        "import javax.annotation.CheckForNull;", "import javax.annotation.Nonnull;", "class A {}")));
+    }
+
+}
@@ -0,0 +1,65 @@
+package add.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import add.entities.FeatureList;
+import add.utils.TestUtils;
+
+public class StageProfileTest {
+
+    @Test
+    public void testStagesAreAccumulatedAcrossThreads() throws Exception {
+        // without a current profile, the stages are only run
+        assertEquals("a", StageProfile.measure("stage", () -> "a"));
+
+        StageProfile profile = new StageProfile();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (StageProfile.Scope scope = profile.activate()) {
+            StageProfile.measure("stage", () -> new int[1024]);
+            StageProfile.measure("stage", () -> new int[1024]);
+            executor.submit(StageProfile.propagate(() -> StageProfile.measure("helper", () -> "b"))).get();
+        } finally {
+            executor.shutdown();
+        }
+        assertNull(StageProfile.current());
+
+        JSONObject stages = profile.toJson();
+        assertEquals(2, stages.getJSONObject("stage").getLong("count"));
+        assertTrue(stages.getJSONObject("stage").getDouble("wallMs") >= 0);
+        assertEquals(1, stages.getJSONObject("helper").getLong("count"));
+        assertFalse(stages.has("other"));
+    }
+
+    @Test
+    public void testStagesInFeatures() {
+        Config config = TestUtils.setupConfig("chart_1");
+        config.setLauncherMode(LauncherMode.METRICS);
+
+        ExtractorProperties.setProperty(StageProfile.PROPERTY, "true");
+        FeatureList features;
+        try {
+            features = Launcher.extractFeatures(config);
+        } finally {
+            ExtractorProperties.setProperty(StageProfile.PROPERTY, "false");
+        }
+
+        JSONObject stages = features.toJson().getJSONObject("stages");
+        assertEquals(1, stages.getJSONObject("diffParse").getLong("count"));
+        assertEquals(1, stages.getJSONObject("patchApply").getLong("count"));
+        assertEquals(1, stages.getJSONObject("analyzer.MetricExtractor").getLong("count"));
+
+        config = TestUtils.setupConfig("chart_1");
+        config.setLauncherMode(LauncherMode.METRICS);
+        assertFalse(Launcher.extractFeatures(config).toJson().has("stages"));
+    }
+
+}
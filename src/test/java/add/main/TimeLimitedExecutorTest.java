@@ -0,0 +1,110 @@
+package add.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class TimeLimitedExecutorTest {
+
+    @Test
+    public void testStuckTaskIsGivenUp() throws Exception {
+        try (TimeLimitedExecutor executor = new TimeLimitedExecutor("test", 1)) {
+            AtomicBoolean release = new AtomicBoolean();
+            TimeLimitedExecutor.TimedTask<String> stuck = executor.submit(() -> {
+                // like Spoon and GumTree, the task ignores interrupts
+                while (!release.get()) {
+                    Thread.yield();
+                }
+                return "stuck";
+            }, 100, TimeUnit.MILLISECONDS);
+            try {
+                stuck.get();
+                fail();
+            } catch (TimeoutException e) {
+                // expected
+            }
+            assertEquals(1, executor.getLostThreads());
+            assertEquals(1, executor.getRunningTasks());
+
+            // the lost thread is replaced, and the interrupt sent to the stuck task reaches no other task
+            assertFalse(executor.call(() -> Thread.currentThread().isInterrupted(), 1, TimeUnit.SECONDS));
+
+            release.set(true);
+            while (executor.getRunningTasks() > 0) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, executor.getLostThreads());
+        }
+    }
+
+    @Test
+    public void testResultCollectedAfterTheTimeLimitIsReported() throws Exception {
+        try (TimeLimitedExecutor executor = new TimeLimitedExecutor("test", 1)) {
+            TimeLimitedExecutor.TimedTask<String> task = executor.submit(() -> "done", 200, TimeUnit.MILLISECONDS);
+            // the task returned in time, so it is not given up when its result is collected late
+            Thread.sleep(300);
+            assertEquals("done", task.get());
+            assertEquals(0, executor.getLostThreads());
+        }
+    }
+
+    @Test
+    public void testStuckTaskIsGivenUpWithoutWaitingForIt() throws Exception {
+        try (TimeLimitedExecutor executor = new TimeLimitedExecutor("test", 1)) {
+            AtomicBoolean release = new AtomicBoolean();
+            TimeLimitedExecutor.TimedTask<String> stuck = executor.submit(() -> {
+                while (!release.get()) {
+                    Thread.yield();
+                }
+                return "stuck";
+            }, 100, TimeUnit.MILLISECONDS);
+            TimeLimitedExecutor.TimedTask<String> next = executor.submit(() -> "next", 1, TimeUnit.SECONDS);
+            try {
+                // the stuck task is given up by the timer, so the next one gets a thread
+                assertEquals("next", next.get());
+                assertEquals(1, executor.getLostThreads());
+                try {
+                    stuck.get();
+                    fail();
+                } catch (TimeoutException e) {
+                    // expected
+                }
+            } finally {
+                release.set(true);
+            }
+        }
+    }
+
+    @Test
+    public void testTimeLimitStartsWhenTheTaskRuns() throws Exception {
+        try (TimeLimitedExecutor executor = new TimeLimitedExecutor("test", 1)) {
+            executor.submit(() -> {
+                Thread.sleep(500);
+                return null;
+            }, 1, TimeUnit.SECONDS);
+            // waits 500ms in the queue, which does not count against its time limit
+            TimeLimitedExecutor.TimedTask<String> queued = executor.submit(() -> {
+                Thread.sleep(100);
+                return "queued";
+            }, 400, TimeUnit.MILLISECONDS);
+            assertEquals("queued", queued.get());
+        }
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void testFailure() throws Exception {
+        try (TimeLimitedExecutor executor = new TimeLimitedExecutor("test", 1)) {
+            executor.call(() -> {
+                throw new IllegalStateException();
+            }, 1, TimeUnit.SECONDS);
+        }
+    }
+
+}
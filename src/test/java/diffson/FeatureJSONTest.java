@@ -5,6 +5,15 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.log4j.ConsoleAppender;
 import org.apache.log4j.Level;
@@ -12,19 +21,28 @@ import org.apache.log4j.Logger;
 import org.apache.log4j.PatternLayout;
 import org.junit.Before;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
 
 import add.features.codefeatures.CodeFeatures;
+import add.features.diffanalyzer.PatchContext;
+import add.utils.TestUtils;
+import gumtree.spoon.diff.Diff;
 
 public class FeatureJSONTest {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@Before
 	public void setUp() throws Exception {
 
@@ -349,6 +367,52 @@ public class FeatureJSONTest {
 		assertMarkedlAST(resultjson, CodeFeatures.M2_SIMILAR_METHOD_WITH_SAME_RETURN, Boolean.FALSE);
 	}
 
+	@Test
+	public void testStreamedContextEqualsContext_Closure9() throws Exception {
+
+		String diffId = "Closure_9";
+		File input = createDiffFolder(diffId, "closure_9");
+		File out = folder.newFolder("streamed");
+
+		DiffContextAnalyzer analyzer = new DiffContextAnalyzer(out.getAbsolutePath());
+		analyzer.setStreamOutput(true);
+		analyzer.setCompressOutput(true);
+		analyzer.setPrettyOutput(false);
+		Map<String, Diff> diffOfcommit = new HashMap<>();
+		analyzer.processDiff(input, diffOfcommit);
+
+		File streamed = analyzer.streamCommit(input, diffOfcommit);
+		assertNotNull(streamed);
+		assertTrue(streamed.getName().endsWith(".json.gz"));
+
+		JsonElement expected = analyzer.calculateCntxJSON(diffId, diffOfcommit);
+		try (Reader reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(streamed)),
+				StandardCharsets.UTF_8)) {
+			JsonElement actual = new JsonParser().parse(reader);
+			assertEquals(expected, actual);
+		}
+	}
+
+	/**
+	 * Writes the files of a bug of the <code>patches</code> corpus of the test resources in the layout read by
+	 * {@link DiffContextAnalyzer}: one folder per modified file, with its source and target versions.
+	 */
+	private File createDiffFolder(String diffId, String bugId) throws Exception {
+		PatchContext patchContext = TestUtils.setupConfig(bugId).getPatchContext();
+		File diffFolder = folder.newFolder(diffId);
+		for (Map.Entry<String, List<String>> original : patchContext.getOriginalFiles().entrySet()) {
+			String name = new File(original.getKey()).getName().replace(".java", "");
+			File fileFolder = new File(diffFolder, name);
+			fileFolder.mkdirs();
+			String pathname = diffId + "_" + name;
+			Files.write(new File(fileFolder, pathname + "_s.java").toPath(), original.getValue(),
+					StandardCharsets.UTF_8);
+			Files.write(new File(fileFolder, pathname + "_t.java").toPath(),
+					patchContext.getPatchedFiles().get(original.getKey()), StandardCharsets.UTF_8);
+		}
+		return diffFolder;
+	}
+
 	public JsonObject getJsonOfBugId(String diffId) {
 		String input = "Defects4J/" + diffId;
 		File file = new File("./datasets/" + input);
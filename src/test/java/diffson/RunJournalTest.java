@@ -0,0 +1,70 @@
+package diffson;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RunJournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testResumeAfterCrash() throws Exception {
+		File commit = folder.newFolder("commit");
+		Files.write(new File(commit, "A.java").toPath(), "class A {}".getBytes(StandardCharsets.UTF_8));
+		String hash = RunJournal.hash(commit);
+
+		File file = new File(folder.getRoot(), DiffContextAnalyzer.JOURNAL_FILE);
+		try (RunJournal journal = new RunJournal(file, false)) {
+			journal.record("1", RunJournal.STATUS_OK, hash, 10, null);
+			journal.record("2", RunJournal.STATUS_FAILED, hash, 10, "error");
+			journal.record("3", RunJournal.STATUS_TIMEOUT, hash, 10, "timeout");
+		}
+		// the line being written when the run crashed
+		Files.write(file.toPath(), "{\"item\":\"4\",\"sta".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		try (RunJournal journal = new RunJournal(file, true)) {
+			assertTrue(journal.isCompleted("1", hash));
+			assertFalse(journal.isCompleted("2", hash));
+			assertFalse(journal.isCompleted("3", hash));
+			assertNull(journal.getStatus("4"));
+			journal.record("2", RunJournal.STATUS_OK, hash, 10, null);
+		}
+
+		try (RunJournal journal = new RunJournal(file, true)) {
+			assertTrue(journal.isCompleted("2", hash));
+			assertEquals(RunJournal.STATUS_TIMEOUT, journal.getStatus("3"));
+		}
+		assertEquals(5, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+
+		// a new run starts an empty journal
+		try (RunJournal journal = new RunJournal(file, false)) {
+			assertNull(journal.getStatus("1"));
+		}
+	}
+
+	@Test
+	public void testHashDependsOnTheFiles() throws Exception {
+		File commit = folder.newFolder("commit");
+		File source = new File(commit, "A.java");
+		Files.write(source.toPath(), "class A {}".getBytes(StandardCharsets.UTF_8));
+		String hash = RunJournal.hash(commit);
+		assertEquals(hash, RunJournal.hash(commit));
+
+		Files.write(source.toPath(), "class A { }".getBytes(StandardCharsets.UTF_8));
+		assertNotEquals(hash, RunJournal.hash(commit));
+	}
+
+}